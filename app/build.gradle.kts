@@ -14,10 +14,20 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // game event ring buffer + counters ( see GameTrace ), compiled out of release
+        buildConfigField("boolean", "GAME_TRACE", "true")
+        // where finished games are posted ( see ScoreUploader ), empty = no uploads
+        buildConfigField("String", "LEADERBOARD_URL", "\"\"")
+    }
+
+    buildFeatures {
+        buildConfig = true
     }
 
     buildTypes {
         release {
+            buildConfigField("boolean", "GAME_TRACE", "false")
             isMinifyEnabled = false
             proguardFiles(
                 getDefaultProguardFile("proguard-android-optimize.txt"),
@@ -33,11 +43,13 @@ android {
 
 dependencies {
 
+    implementation(project(":game-core"))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
     implementation(libs.lifecycle.viewmodel.android)
+    implementation(libs.lifecycle.viewmodel.savedstate)
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
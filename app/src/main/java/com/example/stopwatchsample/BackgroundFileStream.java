@@ -0,0 +1,92 @@
+package com.example.stopwatchsample;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An OutputStream to a file whose opening, writes and closing all happen
+ * on one background thread, in order. Each write copies its bytes, so hand
+ * it chunks ( SessionWriter writes 4 KB at a time ), not single bytes.
+ * Errors can't reach the caller; they're logged and the rest is dropped.
+ */
+final class BackgroundFileStream extends OutputStream {
+
+    // shared, so a new file is opened only after the previous one is closed
+    private static final ExecutorService IO =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "background-file"));
+
+    private final File file;
+    // only touched on the IO thread
+    private OutputStream out;
+    private boolean failed;
+
+    /**
+     * Opens ( and truncates ) the file in the background.
+     * @param file The file.
+     */
+    BackgroundFileStream(File file) {
+        this.file = file;
+        IO.execute(() -> {
+            try {
+                out = new FileOutputStream(file);
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+    }
+
+    @Override
+    public void write(int b) {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        byte[] chunk = Arrays.copyOfRange(b, off, off + len);
+        IO.execute(() -> {
+            if (failed) return;
+            try {
+                out.write(chunk);
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+    }
+
+    @Override
+    public void flush() {
+        IO.execute(() -> {
+            if (failed) return;
+            try {
+                out.flush();
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        IO.execute(() -> {
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+            out = null;
+        });
+    }
+
+    private void fail(IOException e) {
+        if (!failed) Log.w("WMA", "writing " + file.getName() + " failed", e);
+        failed = true;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.stopwatchsample;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes the board's drawables once per cell size and shares the bitmaps
+ * between every cell and both renderers.
+ *
+ * The images are far bigger than a cell, so they're decoded w/ the largest
+ * inSampleSize that still covers the cell ( and w/o density scaling, which
+ * would blow them up further ). The cache drops its bitmaps when the system
+ * asks the app to trim memory; cells that still show them keep them alive.
+ * Use it from the main thread only.
+ */
+final class BitmapCache implements ComponentCallbacks2 {
+
+    private static BitmapCache instance;
+
+    private final Resources resources;
+    // key = drawable id << 32 | cell size
+    private final Map<Long, Bitmap> bitmaps = new HashMap<>();
+    private long bytes;
+
+    private BitmapCache(Context app) {
+        resources = app.getResources();
+    }
+
+    /**
+     * Returns the app's cache.
+     * @param context Any context.
+     * @return The shared cache.
+     */
+    static BitmapCache get(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new BitmapCache(app);
+            app.registerComponentCallbacks(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns a drawable decoded for a square cell of the given size.
+     *
+     * @param resId The drawable ( a bitmap resource ).
+     * @param cellSize The cell's width and height, in pixels.
+     * @return The shared bitmap, at least cellSize in its smaller dimension when the image allows.
+     */
+    Bitmap get(int resId, int cellSize) {
+        Long key = ((long) resId << 32) | Math.max(1, cellSize);
+        Bitmap bitmap = bitmaps.get(key);
+        if (bitmap == null) {
+            bitmap = decode(resId, Math.max(1, cellSize));
+            bitmaps.put(key, bitmap);
+            bytes += bitmap.getAllocationByteCount();
+        }
+        return bitmap;
+    }
+
+    private Bitmap decode(int resId, int cellSize) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inScaled = false;
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(resources, resId, options);
+
+        // halve while the image would still cover the cell
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= cellSize
+                && options.outHeight / (sampleSize * 2) >= cellSize) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        return BitmapFactory.decodeResource(resources, resId, options);
+    }
+
+    /**
+     * Returns the memory held by the cached bitmaps.
+     * @return The size in bytes.
+     */
+    long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of cached bitmaps.
+     * @return The bitmap count.
+     */
+    int size() {
+        return bitmaps.size();
+    }
+
+    /**
+     * Drops every bitmap ( they're decoded again on demand ).
+     */
+    void clear() {
+        bitmaps.clear();
+        bytes = 0;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        // memory is getting low ( or the UI is hidden ), a board rebuild can decode again
+        if (level >= TRIM_MEMORY_RUNNING_LOW) clear();
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.MoleType;
+
+/**
+ * Draws the board and reports taps on it.
+ * WhackmoleActivity talks to the board only through this interface,
+ * so the renderers can be swapped to compare them.
+ */
+interface BoardRenderer {
+
+    /**
+     * Called when the player taps a hole.
+     * eventTime is when the finger went down ( MotionEvent.getEventTime(), uptime ms ),
+     * so the listener can measure how long the tap took to land.
+     */
+    interface OnHoleHitListener {
+        void onHoleHit(int index, long eventTime);
+    }
+
+    /**
+     * Sets who gets told about taps.
+     * @param listener The listener.
+     */
+    void setOnHoleHitListener(OnHoleHitListener listener);
+
+    /**
+     * Returns whether the hole's mole is up ( or on its way up ).
+     * @param index The index of the hole.
+     * @return True if the mole is shown.
+     */
+    boolean isMoleShown(int index);
+
+    /**
+     * Pops the mole up out of the hole.
+     * @param index The index of the hole.
+     * @param type What kind of mole it is ( drawn in its MoleTints color ).
+     */
+    void showMole(int index, MoleType type);
+
+    /**
+     * Sends the mole back down the hole.
+     * @param index The index of the hole.
+     */
+    void hideMole(int index);
+}
@@ -0,0 +1,179 @@
+package com.example.stopwatchsample;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.animation.PathInterpolator;
+
+import com.example.stopwatchsample.game.MoleType;
+
+/**
+ * Draws the whole board ( every hole and mole ) in a single onDraw pass.
+ * An alternative to GridBoardRenderer's two ImageViews per hole, whose
+ * layout and draw cost grows w/ the board.
+ */
+public class BoardView extends View implements BoardRenderer {
+
+    private static final PathInterpolator INTERPOLATOR = new PathInterpolator(0.5f, 0, 0.5f, 1f);
+
+    private final int gridSize;
+    private final int[] cellDrawables;
+    // decoded for the cell size once the view has one
+    private final Bitmap[] holeBitmaps;
+    private Bitmap moleBitmap;
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    // one paint per mole type, tinted w/ its MoleTints filter
+    private final Paint[] molePaints = new Paint[MoleType.count()];
+    private final RectF dst = new RectF();
+
+    // cell geometry, recomputed when the view is resized
+    private final float[] cellX;
+    private final float[] cellY;
+    private float cellSize;
+
+    private final MoleAnimations animations;
+    // the type of each hole's ( last ) mole, by ordinal
+    private final byte[] moleTypes;
+
+    private OnHoleHitListener listener;
+
+    /**
+     * Creates a board view.
+     *
+     * @param context The activity.
+     * @param gridSize The number of rows ( and columns ).
+     * @param cellDrawables The hole drawable of each cell.
+     */
+    public BoardView(Context context, int gridSize, int[] cellDrawables) {
+        super(context);
+        this.gridSize = gridSize;
+        this.cellDrawables = cellDrawables;
+        int numHoles = gridSize * gridSize;
+        holeBitmaps = new Bitmap[numHoles];
+
+        cellX = new float[gridSize];
+        cellY = new float[gridSize];
+        animations = new MoleAnimations(numHoles);
+        moleTypes = new byte[numHoles];
+        for (int i = 0; i < molePaints.length; i++) {
+            molePaints[i] = new Paint(Paint.FILTER_BITMAP_FLAG);
+            molePaints[i].setColorFilter(MoleTints.of(MoleType.of(i)));
+        }
+    }
+
+    @Override
+    public void setOnHoleHitListener(OnHoleHitListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean isMoleShown(int index) {
+        return animations.isShown(index);
+    }
+
+    @Override
+    public void showMole(int index, MoleType type) {
+        moleTypes[index] = (byte) type.ordinal();
+        animations.animate(index, true, SystemClock.uptimeMillis());
+        postInvalidateOnAnimation();
+    }
+
+    @Override
+    public void hideMole(int index) {
+        animations.animate(index, false, SystemClock.uptimeMillis());
+        postInvalidateOnAnimation();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        cellSize = (float) Math.min(w, h) / gridSize;
+        float left = (w - cellSize * gridSize) / 2f;
+        float top = h - cellSize * gridSize; // sit on the bottom, like the grid did
+        for (int i = 0; i < gridSize; i++) {
+            cellX[i] = left + i * cellSize;
+            cellY[i] = top + i * cellSize;
+        }
+
+        // the cache shares each drawable between the cells ( and w/ the grid renderer )
+        if (cellSize < 1) return;
+        BitmapCache bitmaps = BitmapCache.get(getContext());
+        int size = (int) Math.ceil(cellSize);
+        for (int i = 0; i < holeBitmaps.length; i++) {
+            holeBitmaps[i] = bitmaps.get(cellDrawables[i], size);
+        }
+        moleBitmap = bitmaps.get(R.drawable.mole, size);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        boolean moving = animations.step(SystemClock.uptimeMillis(), null);
+        if (moleBitmap == null) return; // not laid out yet
+
+        for (int i = 0; i < holeBitmaps.length; i++) {
+            float x = cellX[i % gridSize];
+            float y = cellY[i / gridSize];
+
+            fitCenter(holeBitmaps[i], x, y);
+            canvas.drawBitmap(holeBitmaps[i], null, dst, paint);
+
+            float p = animations.progress(i);
+            if (p <= 0f) continue;
+            p = INTERPOLATOR.getInterpolation(p);
+
+            // rise from 60% down, showing only the top half of the cell ( like the clip bounds did )
+            float hiddenY = cellSize * 0.6f;
+            float dy = hiddenY * (1f - p);
+            canvas.save();
+            canvas.clipRect(x, y + dy, x + cellSize, y + dy + cellSize / 2f * p);
+            fitCenter(moleBitmap, x, y + dy);
+            canvas.drawBitmap(moleBitmap, null, dst, molePaints[moleTypes[i]]);
+            canvas.restore();
+        }
+
+        if (moving) postInvalidateOnAnimation();
+    }
+
+    // scale the bitmap into the cell at ( x, y ) keeping its aspect ratio
+    private void fitCenter(Bitmap bitmap, float x, float y) {
+        float scale = Math.min(cellSize / bitmap.getWidth(), cellSize / bitmap.getHeight());
+        float w = bitmap.getWidth() * scale;
+        float h = bitmap.getHeight() * scale;
+        dst.set(x + (cellSize - w) / 2f, y + (cellSize - h) / 2f,
+                x + (cellSize + w) / 2f, y + (cellSize + h) / 2f);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_POINTER_DOWN) {
+            // every finger that goes down is a tap
+            int pointer = event.getActionIndex();
+            int index = holeAt(event.getX(pointer), event.getY(pointer));
+            if (index >= 0 && listener != null) listener.onHoleHit(index, event.getEventTime());
+            return true;
+        }
+        if (action == MotionEvent.ACTION_UP) performClick();
+        return true;
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    // the hole under the point, or -1
+    private int holeAt(float x, float y) {
+        if (cellSize <= 0) return -1;
+        int col = (int) Math.floor((x - cellX[0]) / cellSize);
+        int row = (int) Math.floor((y - cellY[0]) / cellSize);
+        if (col < 0 || row < 0 || col >= gridSize || row >= gridSize) return -1;
+        return row * gridSize + col;
+    }
+}
@@ -7,10 +7,15 @@ import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.TextView;
 
+import java.util.Locale;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.BundleCompat;
 import androidx.fragment.app.DialogFragment;
 
+import com.example.stopwatchsample.game.GameSummary;
+
 /**
  * The pop-up that is shown after the game has ended.
  */
@@ -18,6 +23,10 @@ public class GameOverFragment extends DialogFragment {
 
     private static final String ARG_SCORE = "score";
     private static final String ARG_HIGHSCORE = "highscore";
+    private static final String ARG_LATENCY = "latency";
+    private static final String ARG_RANK = "rank";
+    private static final String ARG_GAMES = "games";
+    private static final String ARG_SUMMARY = "summary";
 
     /**
      * Create a new pop-up to display end-of-game info.
@@ -27,10 +36,38 @@ public class GameOverFragment extends DialogFragment {
      * @return The pop-up fragment object.
      */
     public static GameOverFragment newInstance( int score, int highscore ) {
+        return newInstance(score, highscore, null);
+    }
+
+    /**
+     * Create a new pop-up to display end-of-game info, plus latency numbers ( debug builds ).
+     *
+     * @param score The score of the game that just ended.
+     * @param highscore The high score ( managed by view ).
+     * @param latencySummary The latency percentiles to show, or null to hide them.
+     * @return The pop-up fragment object.
+     */
+    public static GameOverFragment newInstance( int score, int highscore, @Nullable String latencySummary ) {
+        return newInstance(score, highscore, latencySummary, null);
+    }
+
+    /**
+     * Create a new pop-up to display end-of-game info and the game's stats.
+     *
+     * @param score The score of the game that just ended.
+     * @param highscore The high score ( managed by view ).
+     * @param latencySummary The latency percentiles to show, or null to hide them.
+     * @param summary The game's reaction times, accuracy and streaks, or null to hide them.
+     * @return The pop-up fragment object.
+     */
+    public static GameOverFragment newInstance( int score, int highscore, @Nullable String latencySummary,
+                                                @Nullable GameSummary summary ) {
         GameOverFragment fragment = new GameOverFragment();
         Bundle args = new Bundle();
         args.putInt(ARG_SCORE, score);
         args.putInt(ARG_HIGHSCORE, highscore);
+        args.putString(ARG_LATENCY, latencySummary);
+        if (summary != null) args.putParcelable(ARG_SUMMARY, new SummaryParcel(summary));
         fragment.setArguments(args);
         return fragment;
     }
@@ -56,6 +93,9 @@ public class GameOverFragment extends DialogFragment {
 
         TextView tvHighScore = view.findViewById(R.id.tvHighScore);
         TextView tvFinalScore = view.findViewById(R.id.tvFinalScore);
+        TextView tvLatency = view.findViewById(R.id.tvLatency);
+        TextView tvRank = view.findViewById(R.id.tvRank);
+        TextView tvStats = view.findViewById(R.id.tvStats);
         Button btnRestart = view.findViewById(R.id.btnRestart);
 
         int highScore = getArguments() != null ? getArguments().getInt(ARG_HIGHSCORE) : 0;
@@ -64,6 +104,25 @@ public class GameOverFragment extends DialogFragment {
         int score = getArguments() != null ? getArguments().getInt(ARG_SCORE) : 0;
         tvFinalScore.setText("Score: " + score);
 
+        int rank = getArguments() != null ? getArguments().getInt(ARG_RANK) : 0;
+        if (rank > 0) {
+            tvRank.setText("Rank #" + rank + " of " + getArguments().getInt(ARG_GAMES) + " games");
+            tvRank.setVisibility(View.VISIBLE);
+        }
+
+        SummaryParcel stats = getArguments() != null
+                ? BundleCompat.getParcelable(getArguments(), ARG_SUMMARY, SummaryParcel.class) : null;
+        if (stats != null) {
+            tvStats.setText(describe(stats.summary));
+            tvStats.setVisibility(View.VISIBLE);
+        }
+
+        String latency = getArguments() != null ? getArguments().getString(ARG_LATENCY) : null;
+        if (latency != null) {
+            tvLatency.setText(latency);
+            tvLatency.setVisibility(View.VISIBLE);
+        }
+
         btnRestart.setOnClickListener(v -> {
             dismiss(); // close popup
             if (getActivity() instanceof GameOverListener) {
@@ -74,6 +133,45 @@ public class GameOverFragment extends DialogFragment {
         return view;
     }
 
+    // a few lines on how the game went
+    private static String describe(GameSummary summary) {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.US, "Accuracy: %d%% ( %d hits, %d misses )",
+                Math.round(summary.accuracy() * 100), summary.hits, summary.misses));
+        text.append("\nLongest streak: ").append(summary.longestStreak);
+        if (summary.reactions > 0) {
+            text.append(String.format(Locale.US, "\nReaction: %d ms median, %d ms at p90 ( %d \u00b1 %d ms )",
+                    summary.reactionMedian, summary.reactionP90, summary.reactionMean, summary.reactionStdDev));
+        }
+        if (summary.molesDown > 0) {
+            text.append(String.format(Locale.US, "\nMoles lasted %.1f s on average", summary.meanLifetime / 1000.0));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Shows where the game ranks in the score history ( which answers after the pop-up is up ).
+     *
+     * @param rank The game's rank, 1 = best.
+     * @param games The number of games played.
+     * @param best The personal best.
+     */
+    public void showHistory(int rank, int games, int best) {
+        Bundle args = getArguments();
+        if (args == null) return;
+        args.putInt(ARG_RANK, rank);
+        args.putInt(ARG_GAMES, games);
+        args.putInt(ARG_HIGHSCORE, Math.max(best, args.getInt(ARG_HIGHSCORE)));
+
+        View view = getView();
+        if (view == null) return; // onCreateView will pick them up
+        TextView tvHighScore = view.findViewById(R.id.tvHighScore);
+        tvHighScore.setText("High Score: " + args.getInt(ARG_HIGHSCORE));
+        TextView tvRank = view.findViewById(R.id.tvRank);
+        tvRank.setText("Rank #" + rank + " of " + games + " games");
+        tvRank.setVisibility(View.VISIBLE);
+    }
+
     /**
      * Inflates the view more ( otherwise the pop-up is too small ).
      */
@@ -0,0 +1,169 @@
+package com.example.stopwatchsample;
+
+import android.animation.TimeAnimator;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.animation.PathInterpolator;
+import android.widget.FrameLayout;
+import android.widget.GridLayout;
+import android.widget.ImageView;
+
+import com.example.stopwatchsample.game.GameConfig;
+import com.example.stopwatchsample.game.MoleType;
+
+/**
+ * The original board: a FrameLayout w/ a hole and a mole ImageView per cell.
+ * One touch listener on the grid finds the cell under each finger that goes
+ * down, so taps are reported on touch-down ( every pointer ), not on click.
+ */
+final class GridBoardRenderer implements BoardRenderer {
+
+    private static final PathInterpolator INTERPOLATOR = new PathInterpolator(0.5f, 0, 0.5f, 1f);
+
+    private final ImageView[] imgMoles;
+    private final Rect[] clips;
+    private final MoleAnimations animations;
+    // a single animator drives every cell, it runs only while something moves
+    private final TimeAnimator animator = new TimeAnimator();
+    private final MoleAnimations.ProgressListener applyProgress = this::applyProgress;
+    private final GridLayout gridHoles;
+    private final int gridSize;
+    private OnHoleHitListener listener;
+
+    /**
+     * Fills the grid w/ one cell per hole. Call it once the grid has been laid out.
+     *
+     * @param context The activity.
+     * @param gridHoles The ( empty ) grid to fill.
+     * @param gridSize The number of rows ( and columns ).
+     * @param cellDrawables The hole drawable of each cell.
+     */
+    GridBoardRenderer(Context context, GridLayout gridHoles, int gridSize, int[] cellDrawables) {
+        this.gridHoles = gridHoles;
+        this.gridSize = gridSize;
+        int parentWidth = gridHoles.getWidth();
+        int holeCellSize = parentWidth / gridSize;
+
+        gridHoles.setColumnCount(gridSize);
+        gridHoles.setRowCount(gridSize);
+        // default margins would eat most of a small cell
+        gridHoles.setUseDefaultMargins(gridSize <= GameConfig.DEFAULT_GRID_SIZE);
+
+        imgMoles = new ImageView[gridSize * gridSize];
+        clips = new Rect[gridSize * gridSize];
+        animations = new MoleAnimations(gridSize * gridSize);
+        animator.setTimeListener((animation, totalTime, deltaTime) -> onFrame());
+
+        // every cell shares the bitmaps, decoded at ( about ) the cell size
+        BitmapCache bitmaps = BitmapCache.get(context);
+        Bitmap moleBitmap = bitmaps.get(R.drawable.mole, holeCellSize);
+
+        for (int i = 0; i < gridSize * gridSize; i++) {
+            FrameLayout frame = new FrameLayout(context);
+
+            ImageView holeImg = new ImageView(context);
+            holeImg.setImageBitmap(bitmaps.get(cellDrawables[i], holeCellSize));
+            holeImg.setScaleType(ImageView.ScaleType.FIT_CENTER);
+
+            ImageView imgMole = new ImageView(context);
+            imgMole.setImageBitmap(moleBitmap);
+            imgMole.setScaleType(ImageView.ScaleType.FIT_CENTER);
+            imgMole.setVisibility(View.INVISIBLE);
+            imgMoles[i] = imgMole;
+            clips[i] = new Rect();
+
+            frame.addView(holeImg);
+            frame.addView(imgMole);
+
+            GridLayout.LayoutParams params = new GridLayout.LayoutParams();
+            params.width = holeCellSize;
+            params.height = holeCellSize;
+            frame.setLayoutParams(params);
+
+            gridHoles.addView(frame);
+        }
+        gridHoles.setOnTouchListener(this::onTouch);
+    }
+
+    // every finger that goes down is a tap, judged by when it went down
+    private boolean onTouch(View v, MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+                int pointer = event.getActionIndex();
+                int index = holeAt(event.getX(pointer), event.getY(pointer));
+                if (index >= 0 && listener != null) listener.onHoleHit(index, event.getEventTime());
+                break;
+            case MotionEvent.ACTION_UP:
+                v.performClick();
+                break;
+            default:
+                break;
+        }
+        return true;
+    }
+
+    // the hole under the point ( grid coordinates ), or -1; a cell owns the margin after it
+    private int holeAt(float x, float y) {
+        View first = gridHoles.getChildAt(0);
+        if (first == null || first.getWidth() == 0) return -1;
+        float strideX = gridSize > 1
+                ? (gridHoles.getChildAt(gridSize - 1).getLeft() - first.getLeft()) / (float) (gridSize - 1)
+                : first.getWidth();
+        float strideY = gridSize > 1
+                ? (gridHoles.getChildAt(gridSize * (gridSize - 1)).getTop() - first.getTop()) / (float) (gridSize - 1)
+                : first.getHeight();
+        int col = (int) Math.floor((x - first.getLeft()) / strideX);
+        int row = (int) Math.floor((y - first.getTop()) / strideY);
+        if (col < 0 || row < 0 || col >= gridSize || row >= gridSize) return -1;
+        return row * gridSize + col;
+    }
+
+    @Override
+    public void setOnHoleHitListener(OnHoleHitListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean isMoleShown(int index) {
+        return animations.isShown(index);
+    }
+
+    @Override
+    public void showMole(int index, MoleType type) {
+        imgMoles[index].setColorFilter(MoleTints.of(type));
+        animate(index, true);
+    }
+
+    @Override
+    public void hideMole(int index) {
+        animate(index, false);
+    }
+
+    private void animate(int index, boolean show) {
+        animations.animate(index, show, SystemClock.uptimeMillis());
+        if (!animator.isStarted()) animator.start();
+    }
+
+    // one frame of every moving mole
+    private void onFrame() {
+        if (!animations.step(SystemClock.uptimeMillis(), applyProgress)) animator.end();
+    }
+
+    // rise from 60% down, showing only the top half of the cell
+    private void applyProgress(int index, float progress) {
+        ImageView moleImg = imgMoles[index];
+        float eased = INTERPOLATOR.getInterpolation(progress);
+        int height = moleImg.getHeight();
+
+        moleImg.setTranslationY(height * 0.6f * (1f - eased));
+        Rect clip = clips[index];
+        clip.set(0, 0, moleImg.getWidth(), (int) (height / 2 * eased));
+        moleImg.setClipBounds(clip);
+        moleImg.setVisibility(progress > 0f ? View.VISIBLE : View.INVISIBLE);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.stopwatchsample;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.example.stopwatchsample.game.Clock;
+import com.example.stopwatchsample.game.Scheduler;
+
+/**
+ * Runs the game's delayed work on a looper ( the main one by default ).
+ */
+final class HandlerScheduler implements Clock, Scheduler {
+
+    private final Handler handler;
+
+    HandlerScheduler() {
+        this(Looper.getMainLooper());
+    }
+
+    /**
+     * Creates a scheduler for the given looper.
+     * @param looper The thread the game's work runs on.
+     */
+    HandlerScheduler(Looper looper) {
+        handler = new Handler(looper);
+    }
+
+    @Override
+    public long now() {
+        return SystemClock.uptimeMillis();
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMillis) {
+        handler.postDelayed(task, delayMillis);
+    }
+
+    @Override
+    public void removeCallbacks(Runnable task) {
+        handler.removeCallbacks(task);
+    }
+
+    @Override
+    public void removeAll() {
+        handler.removeCallbacksAndMessages(null);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.stopwatchsample;
+
+import android.view.Choreographer;
+
+import com.example.stopwatchsample.game.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Measures how the game feels while it runs, into three histograms ( in microseconds ):
+ * tap to state commit, tap to the first frame that can show the hit,
+ * and the time between frames. Use it from the main thread only.
+ */
+final class LatencyMonitor implements Choreographer.FrameCallback {
+
+    private static final long NANOS_PER_MILLI = 1_000_000;
+    private static final long HIGHEST_MICROS = 10_000_000; // 10s, anything longer is a hang anyway
+    private static final int MAX_PENDING_TAPS = 16;
+
+    private final LatencyHistogram tapToCommit = new LatencyHistogram(HIGHEST_MICROS);
+    private final LatencyHistogram tapToFrame = new LatencyHistogram(HIGHEST_MICROS);
+    private final LatencyHistogram frameIntervals = new LatencyHistogram(HIGHEST_MICROS);
+    // input times ( nanos ) of hits still waiting for a frame
+    private final long[] pendingTaps = new long[MAX_PENDING_TAPS];
+    private int pendingCount;
+    private long lastFrameNanos;
+    private boolean running;
+
+    /**
+     * Clears the histograms and starts recording frames.
+     */
+    void start() {
+        tapToCommit.reset();
+        tapToFrame.reset();
+        frameIntervals.reset();
+        pendingCount = 0;
+        lastFrameNanos = 0;
+        if (!running) {
+            running = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Stops recording frames, the histograms keep their values.
+     */
+    void stop() {
+        running = false;
+        pendingCount = 0;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    /**
+     * Stops recording frames while the screen is hidden, keeping the histograms.
+     */
+    void pause() {
+        if (!running) return;
+        Choreographer.getInstance().removeFrameCallback(this);
+        pendingCount = 0;
+        lastFrameNanos = 0; // the time away isn't a frame
+    }
+
+    /**
+     * Records frames again after pause().
+     */
+    void resume() {
+        if (!running) return;
+        Choreographer.getInstance().removeFrameCallback(this);
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Records a tap whose hit has just been applied to the game.
+     * @param eventTime When the finger went down ( MotionEvent.getEventTime() ).
+     */
+    void onHitCommitted(long eventTime) {
+        if (!running) return;
+        // event times and System.nanoTime() share the monotonic clock
+        long tapNanos = eventTime * NANOS_PER_MILLI;
+        tapToCommit.record((System.nanoTime() - tapNanos) / 1000);
+        if (pendingCount < MAX_PENDING_TAPS) pendingTaps[pendingCount++] = tapNanos;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) return;
+        if (lastFrameNanos != 0) frameIntervals.record((frameTimeNanos - lastFrameNanos) / 1000);
+        lastFrameNanos = frameTimeNanos;
+
+        // this frame starts the hide animations of the hits committed since the last one
+        for (int i = 0; i < pendingCount; i++) {
+            tapToFrame.record((frameTimeNanos - pendingTaps[i]) / 1000);
+        }
+        pendingCount = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Returns p50/p95/p99 of each histogram, one line each.
+     * @return The summary, in milliseconds.
+     */
+    String summary() {
+        return line("Tap to commit", tapToCommit) + "\n"
+                + line("Tap to frame", tapToFrame) + "\n"
+                + line("Frame time", frameIntervals);
+    }
+
+    private static String line(String name, LatencyHistogram histogram) {
+        return String.format(Locale.US, "%s p50/p95/p99: %.1f / %.1f / %.1f ms ( n=%d )",
+                name,
+                histogram.percentile(50) / 1000.0,
+                histogram.percentile(95) / 1000.0,
+                histogram.percentile(99) / 1000.0,
+                histogram.count());
+    }
+
+    /**
+     * Writes the raw buckets of every histogram as CSV: histogram,low_us,high_us,count.
+     * @param out Where to write.
+     * @throws IOException If out fails.
+     */
+    void writeCsv(Appendable out) throws IOException {
+        out.append("histogram,low_us,high_us,count\n");
+        tapToCommit.writeCsv("tap_to_commit", out);
+        tapToFrame.writeCsv("tap_to_frame", out);
+        frameIntervals.writeCsv("frame_interval", out);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.stopwatchsample;
+
+import java.util.Arrays;
+
+/**
+ * The pop / hide animation of every hole, kept in primitive arrays.
+ *
+ * Each hole has one linear progress value ( 0 = down, 1 = up ) that the
+ * renderers ease and turn into both the rise and the clip. Flipping a hole
+ * mid-animation continues from where it is, so a hit during a pop simply
+ * reverses it. Only the holes that are moving are visited, and nothing
+ * here allocates after construction.
+ */
+final class MoleAnimations {
+
+    /** How long a full pop ( or hide ) takes, in milliseconds. */
+    static final long DURATION = 100;
+
+    /**
+     * Receives the new progress of each hole that moved in step().
+     */
+    interface ProgressListener {
+        void onProgress(int index, float progress);
+    }
+
+    private final boolean[] shown;
+    private final float[] progress;
+    private final float[] from;
+    private final long[] start;
+    private final long[] duration;
+
+    // the holes that are moving, and where each hole sits in that list ( -1 = not moving )
+    private final int[] moving;
+    private final int[] movingAt;
+    private int movingCount;
+
+    MoleAnimations(int numHoles) {
+        shown = new boolean[numHoles];
+        progress = new float[numHoles];
+        from = new float[numHoles];
+        start = new long[numHoles];
+        duration = new long[numHoles];
+        moving = new int[numHoles];
+        movingAt = new int[numHoles];
+        Arrays.fill(movingAt, -1);
+    }
+
+    /**
+     * Returns whether the hole's mole is up or on its way up.
+     * @param index The index of the hole.
+     * @return True if it is shown.
+     */
+    boolean isShown(int index) {
+        return shown[index];
+    }
+
+    /**
+     * Returns the hole's progress as of the last step().
+     * @param index The index of the hole.
+     * @return 0 ( down ) to 1 ( up ), not eased.
+     */
+    float progress(int index) {
+        return progress[index];
+    }
+
+    /**
+     * Returns the number of holes that are still moving.
+     * @return The moving hole count.
+     */
+    int movingCount() {
+        return movingCount;
+    }
+
+    /**
+     * Starts moving the hole's mole up or down from wherever it is now.
+     *
+     * @param index The index of the hole.
+     * @param show True to pop it up, false to hide it.
+     * @param now The current time, in milliseconds.
+     */
+    void animate(int index, boolean show, long now) {
+        if (shown[index] == show) return;
+        shown[index] = show;
+        from[index] = progress[index];
+        start[index] = now;
+        // a reversal only has to cover the distance already travelled
+        float distance = show ? 1f - progress[index] : progress[index];
+        duration[index] = Math.max(1, (long) (DURATION * distance));
+        if (movingAt[index] < 0) {
+            movingAt[index] = movingCount;
+            moving[movingCount++] = index;
+        }
+    }
+
+    /**
+     * Moves every animating hole to the given time.
+     *
+     * @param now The current time, in milliseconds.
+     * @param listener Told the new progress of each hole that moved ( may be null ).
+     * @return True if some holes are still moving.
+     */
+    boolean step(long now, ProgressListener listener) {
+        for (int k = movingCount - 1; k >= 0; k--) {
+            int index = moving[k];
+            float target = shown[index] ? 1f : 0f;
+            float t = Math.min(1f, (now - start[index]) / (float) duration[index]);
+            progress[index] = t >= 1f ? target : from[index] + (target - from[index]) * t;
+            if (t >= 1f) {
+                // swap the last moving hole into this spot
+                int last = moving[--movingCount];
+                moving[k] = last;
+                movingAt[last] = k;
+                movingAt[index] = -1;
+            }
+            if (listener != null) listener.onProgress(index, progress[index]);
+        }
+        return movingCount > 0;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.stopwatchsample;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.Random;
+
+/**
+ * Plays the "ow" sounds of whacked moles.
+ *
+ * The samples load on a background thread and only the ones SoundPool
+ * reports as loaded are played, so early taps are silent instead of
+ * stalling. Every sound is cut off after a fixed time by one reusable
+ * stop task, and VoiceTable decides which sound to cut short when too
+ * many play at once. Playing a sound allocates nothing.
+ * Use it from the main thread only.
+ */
+final class MoleAudioEngine {
+
+    private static final int VOICES = 6;
+    private static final int VOICES_PER_HOLE = 1;
+
+    private final SoundPool soundPool;
+    private final VoiceTable voices = new VoiceTable(VOICES, VOICES_PER_HOLE);
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable stopDue = this::stopDue;
+    private final Random random = new Random();
+    private final long playMillis;
+
+    // the sample ids that finished loading
+    private final int[] ready;
+    private int readyCount;
+    private long stopScheduledAt = Long.MAX_VALUE;
+    private volatile boolean released; // read by the loader thread
+
+    /**
+     * Creates the engine and starts loading the samples.
+     *
+     * @param context Any context, only the application context is kept.
+     * @param rawIds The sound resources ( R.raw.* ).
+     * @param playMillis How long a sound may play before it is stopped.
+     */
+    MoleAudioEngine(Context context, int[] rawIds, long playMillis) {
+        this.playMillis = playMillis;
+        this.ready = new int[rawIds.length];
+
+        AudioAttributes audioAttributes = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_GAME)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .build();
+        // one more stream than voices, so SoundPool never drops a sound we've just made room for
+        soundPool = new SoundPool.Builder()
+                .setMaxStreams(VOICES + 1)
+                .setAudioAttributes(audioAttributes)
+                .build();
+        // called on the main thread ( SoundPool was built here )
+        soundPool.setOnLoadCompleteListener((pool, sampleId, status) -> {
+            if (status == 0 && !released && readyCount < ready.length) ready[readyCount++] = sampleId;
+        });
+
+        Context app = context.getApplicationContext();
+        new Thread(() -> {
+            for (int rawId : rawIds) {
+                if (released) return;
+                soundPool.load(app, rawId, 1);
+            }
+        }, "mole-audio-load").start();
+    }
+
+    /**
+     * Returns whether every sample has loaded.
+     * @return True once all sounds can play.
+     */
+    boolean isReady() {
+        return readyCount == ready.length;
+    }
+
+    /**
+     * Plays a random sound for a whacked mole, cutting an older sound short if needed.
+     * Does nothing until at least one sample has loaded.
+     *
+     * @param hole The index of the hole that was whacked.
+     */
+    void playHit(int hole) {
+        if (readyCount == 0 || released) return;
+
+        int voice = voices.pick(hole);
+        if (voices.stream(voice) != VoiceTable.FREE) soundPool.stop(voices.stream(voice));
+
+        int sampleId = ready[random.nextInt(readyCount)];
+        int streamId = soundPool.play(sampleId, 1f, 1f, 1, 0, 1f);
+        long now = SystemClock.uptimeMillis();
+        voices.start(voice, hole, streamId, now + playMillis);
+        if (streamId == VoiceTable.FREE) return;
+
+        // the new sound stops last, so only an idle stop task needs posting
+        if (stopScheduledAt == Long.MAX_VALUE) scheduleStop(now + playMillis);
+    }
+
+    // stop every sound whose time is up, then wait for the next one
+    private void stopDue() {
+        stopScheduledAt = Long.MAX_VALUE;
+        long now = SystemClock.uptimeMillis();
+        for (int voice = voices.due(now); voice >= 0; voice = voices.due(now)) {
+            soundPool.stop(voices.stream(voice));
+            voices.free(voice);
+        }
+        long next = voices.nextStopAt();
+        if (next != Long.MAX_VALUE) scheduleStop(next);
+    }
+
+    private void scheduleStop(long at) {
+        stopScheduledAt = at;
+        handler.postAtTime(stopDue, at);
+    }
+
+    /**
+     * Stops every sound and frees the samples. The engine can't be used afterwards.
+     */
+    void release() {
+        released = true;
+        handler.removeCallbacks(stopDue);
+        soundPool.release();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.HideReason;
+import com.example.stopwatchsample.game.HoleTimerWheel;
+import com.example.stopwatchsample.game.InputQueue;
+import com.example.stopwatchsample.game.MoleBoard;
+import com.example.stopwatchsample.game.MoleSnapshot;
+import com.example.stopwatchsample.game.MoleType;
+import com.example.stopwatchsample.game.WhackmoleGame;
+
+/**
+ * Carries what happens to the moles on the game thread ( a mole shown, a
+ * mole hidden and why, a tap that hit ) to the main thread, in order,
+ * through an InputQueue, so the renderer sees the same events it would
+ * w/o a game thread.
+ *
+ * If the main thread falls a whole queue behind, the game thread drops
+ * events until it can send a resync: every mole up at that point, which
+ * replaces whatever the main thread has shown.
+ */
+final class MoleFeed {
+
+    // event kinds, in the low bits of the code ( the hole is in the rest )
+    private static final int SHOWN = 0;
+    private static final int HIDDEN = 1;
+    private static final int HIT = 2;
+    private static final int RESYNC = 3;
+    private static final int KIND_BITS = 2;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+
+    private static final HideReason[] REASONS = HideReason.values();
+
+    private final int capacity;
+    private final InputQueue queue;
+    // game thread only: events were dropped, a resync is owed
+    private boolean overflowed;
+    // main thread only: the moles the renderer was told about
+    private MoleBoard shown;
+    private byte[] shownTypes;
+
+    /**
+     * Creates an empty feed.
+     * @param capacity The most events in flight, a power of two above the number of holes.
+     * @param numHoles The number of holes on the board, which starts out empty.
+     */
+    MoleFeed(int capacity, int numHoles) {
+        this.capacity = capacity;
+        this.queue = new InputQueue(capacity);
+        this.shown = new MoleBoard(numHoles);
+        this.shownTypes = new byte[numHoles];
+    }
+
+    /**
+     * Sends a mole that popped up ( game thread ).
+     * @param index The index of the hole.
+     * @param type What kind of mole it is.
+     */
+    void moleShown(int index, MoleType type) {
+        send(index, SHOWN, type.ordinal());
+    }
+
+    /**
+     * Sends a mole that went down ( game thread ).
+     * @param index The index of the hole.
+     * @param reason Why it went down.
+     */
+    void moleHidden(int index, HideReason reason) {
+        send(index, HIDDEN, reason.ordinal());
+    }
+
+    /**
+     * Sends a tap that whacked a mole ( game thread ).
+     * @param index The index of the hole.
+     * @param tapTime When the tap landed.
+     */
+    void tapHit(int index, long tapTime) {
+        send(index, HIT, tapTime);
+    }
+
+    /**
+     * Sends every mole on the board, replacing what the main thread has
+     * shown ( game thread ). Call it for a new board, and before publishing
+     * a state, where it only sends anything if events were dropped.
+     * @param game The game.
+     * @param force Whether to send it even if nothing was dropped.
+     */
+    void resync(WhackmoleGame game, boolean force) {
+        if (!force && !overflowed) return;
+        MoleSnapshot moles = game.getMoles();
+        // all or nothing, half a resync is no better than none
+        if (capacity - queue.size() < moles.size() + 1) {
+            overflowed = true;
+            return;
+        }
+        overflowed = false;
+        queue.offer(RESYNC, moles.numHoles());
+        for (int i = moles.nextActive(0); i >= 0; i = moles.nextActive(i + 1)) {
+            queue.offer(i << KIND_BITS | SHOWN, game.getMoleType(i).ordinal());
+        }
+    }
+
+    /**
+     * Hands everything sent so far to the listener, in order ( main thread ).
+     * @param listener Who gets the events, or null to only keep track of the moles.
+     */
+    void deliver(WhackmoleViewModel.MoleListener listener) {
+        while (queue.poll()) {
+            int index = queue.code() >>> KIND_BITS;
+            long value = queue.value();
+            switch (queue.code() & KIND_MASK) {
+                case SHOWN:
+                    if (index >= shown.numHoles()) break; // for a board that's gone
+                    shown.set(index);
+                    shownTypes[index] = (byte) value;
+                    if (listener != null) listener.onMoleShown(index, HoleTimerWheel.NOT_ARMED, MoleType.of((int) value));
+                    break;
+                case HIDDEN:
+                    if (index >= shown.numHoles() || !shown.clear(index)) break;
+                    if (listener != null) listener.onMoleHidden(index, REASONS[(int) value]);
+                    break;
+                case HIT:
+                    if (listener != null) listener.onTapHit(index, value);
+                    break;
+                default:
+                    for (int i = shown.nextActive(0); i >= 0; i = shown.nextActive(i + 1)) {
+                        if (listener != null) listener.onMoleHidden(i, HideReason.RESET);
+                    }
+                    if (value == shown.numHoles()) {
+                        shown.clearAll();
+                    } else {
+                        shown = new MoleBoard((int) value);
+                        shownTypes = new byte[(int) value];
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reports the moles the main thread knows to be up, to a new listener ( main thread ).
+     * @param listener The listener.
+     */
+    void replay(WhackmoleViewModel.MoleListener listener) {
+        for (int i = shown.nextActive(0); i >= 0; i = shown.nextActive(i + 1)) {
+            listener.onMoleShown(i, HoleTimerWheel.NOT_ARMED, MoleType.of(shownTypes[i]));
+        }
+    }
+
+    private void send(int index, int kind, long value) {
+        if (overflowed) return; // the resync covers it
+        if (!queue.offer(index << KIND_BITS | kind, value)) overflowed = true;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.stopwatchsample;
+
+import android.graphics.ColorFilter;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+
+import com.example.stopwatchsample.game.MoleType;
+
+/**
+ * How each MoleType is told apart on the board: one shared color filter per
+ * type, multiplied over the mole bitmap. Created once, so showing a mole of
+ * any type allocates nothing.
+ */
+final class MoleTints {
+
+    // indexed by MoleType ordinal, null = drawn as is
+    private static final ColorFilter[] FILTERS = new ColorFilter[MoleType.count()];
+
+    static {
+        FILTERS[MoleType.TOUGH.ordinal()] = new PorterDuffColorFilter(0xFF8D9BA8, PorterDuff.Mode.MULTIPLY);
+        FILTERS[MoleType.BONUS.ordinal()] = new PorterDuffColorFilter(0xFFFFD54F, PorterDuff.Mode.MULTIPLY);
+        FILTERS[MoleType.DECOY.ordinal()] = new PorterDuffColorFilter(0xFFE57373, PorterDuff.Mode.MULTIPLY);
+    }
+
+    private MoleTints() {
+    }
+
+    /**
+     * Returns the filter that marks the given type.
+     * @param type The mole's type.
+     * @return The color filter, or null for a normal mole.
+     */
+    static ColorFilter of(MoleType type) {
+        return FILTERS[type.ordinal()];
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.stopwatchsample;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.stopwatchsample.game.GameRecord;
+import com.example.stopwatchsample.game.HttpScoreTransport;
+import com.example.stopwatchsample.game.ScoreLog;
+import com.example.stopwatchsample.game.ScoreUploader;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps every finished game in a ScoreLog, w/o touching the disk on the main thread.
+ *
+ * Every call runs in order on one background thread and reports back on
+ * the main thread. There's one history per process ( see get() ): an
+ * activity recreated on rotation must not open the files a second time
+ * while the old instance's writes are still queued. The high score that
+ * used to live in SharedPreferences still counts as a personal best, so
+ * it isn't lost on upgrade.
+ * When BuildConfig.LEADERBOARD_URL is set, every game is also handed to
+ * a ScoreUploader, which posts it to the shared leaderboard when it can.
+ */
+final class ScoreHistory {
+
+    /**
+     * Receives the history's view of a game, on the main thread.
+     */
+    interface Callback {
+        /**
+         * @param rank Where the game ranks ( 1 = best ), or 0 when only the best was asked for.
+         * @param games The number of games played.
+         * @param best The personal best.
+         */
+        void onResult(int rank, int games, int best);
+    }
+
+    /** The old SharedPreferences key of the high score. */
+    static final String KEY_HIGH_SCORE = "high_score";
+
+    private static final String PREFS_NAME = "WhackMolePrefs";
+    private static final String FILE_NAME = "scores.bin";
+    private static final String OUTBOX_NAME = "score_outbox.bin";
+    private static final int UPLOAD_TIMEOUT_MS = 15_000;
+    private static final long RETRY_BASE_MS = 5_000;
+    private static final long RETRY_MAX_MS = 10 * 60_000;
+    private static final int TOP_SIZE = 10;
+
+    private static ScoreHistory instance;
+
+    private final File file;
+    private final SharedPreferences prefs;
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "score-history"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ScoreUploader uploader;
+
+    // opened on the executor
+    private ScoreLog log;
+    private int legacyBest;
+
+    /**
+     * Creates the history, nothing is read until the first call.
+     *
+     * @param filesDir Where the log lives.
+     * @param prefs The preferences that may hold an old high score.
+     */
+    private ScoreHistory(File filesDir, SharedPreferences prefs) {
+        this.file = new File(filesDir, FILE_NAME);
+        this.prefs = prefs;
+        this.uploader = createUploader(filesDir, BuildConfig.LEADERBOARD_URL);
+    }
+
+    /**
+     * Returns the app's history, opening it on first use.
+     * @param context Any context ( main thread ).
+     * @return The shared history.
+     */
+    static ScoreHistory get(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new ScoreHistory(app.getFilesDir(),
+                    app.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+        }
+        return instance;
+    }
+
+    /**
+     * Looks up the personal best.
+     * @param callback Told the best ( rank = 0 ).
+     */
+    void loadBest(Callback callback) {
+        // games left in the outbox by an earlier run
+        if (uploader != null) uploader.flushPending();
+        executor.execute(() -> {
+            try {
+                ScoreLog log = open();
+                post(callback, 0, log.size(), Math.max(log.bestScore(), legacyBest));
+            } catch (IOException e) {
+                Log.w("WMA", "reading score history failed", e);
+            }
+        });
+    }
+
+    /**
+     * Adds a finished game to the history.
+     *
+     * @param game The game.
+     * @param callback Told the game's rank and the personal best ( may be null ).
+     */
+    void record(GameRecord game, Callback callback) {
+        if (uploader != null) uploader.submit(game);
+        executor.execute(() -> {
+            try {
+                ScoreLog log = open();
+                log.append(game);
+                if (callback == null) return;
+                int rank = log.rank(game.score);
+                if (game.score < legacyBest) rank++; // the old high score is a game too
+                post(callback, rank, log.size(), Math.max(log.bestScore(), legacyBest));
+            } catch (IOException e) {
+                Log.w("WMA", "writing score history failed", e);
+            }
+        });
+    }
+
+    private static ScoreUploader createUploader(File filesDir, String url) {
+        if (url.isEmpty()) return null;
+        try {
+            return new ScoreUploader(new File(filesDir, OUTBOX_NAME),
+                    new HttpScoreTransport(new URL(url), UPLOAD_TIMEOUT_MS), RETRY_BASE_MS, RETRY_MAX_MS);
+        } catch (MalformedURLException e) {
+            Log.w("WMA", "bad leaderboard url " + url, e);
+            return null;
+        }
+    }
+
+    private ScoreLog open() throws IOException {
+        if (log == null) {
+            legacyBest = prefs.getInt(KEY_HIGH_SCORE, 0);
+            log = new ScoreLog(file, TOP_SIZE);
+        }
+        return log;
+    }
+
+    private void post(Callback callback, int rank, int games, int best) {
+        mainHandler.post(() -> callback.onResult(rank, games, best));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.stopwatchsample;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.example.stopwatchsample.game.GameSummary;
+
+/**
+ * Carries a GameSummary in a Bundle: its ten ints, nothing else.
+ */
+final class SummaryParcel implements Parcelable {
+
+    final GameSummary summary;
+
+    /**
+     * Wraps a summary.
+     * @param summary The summary to carry.
+     */
+    SummaryParcel(GameSummary summary) {
+        this.summary = summary;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(summary.hits);
+        dest.writeInt(summary.misses);
+        dest.writeInt(summary.longestStreak);
+        dest.writeInt(summary.reactions);
+        dest.writeInt(summary.reactionMedian);
+        dest.writeInt(summary.reactionP90);
+        dest.writeInt(summary.reactionMean);
+        dest.writeInt(summary.reactionStdDev);
+        dest.writeInt(summary.molesDown);
+        dest.writeInt(summary.meanLifetime);
+    }
+
+    public static final Creator<SummaryParcel> CREATOR = new Creator<SummaryParcel>() {
+        @Override
+        public SummaryParcel createFromParcel(Parcel in) {
+            // in the order writeToParcel wrote them
+            return new SummaryParcel(new GameSummary(in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                    in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+        }
+
+        @Override
+        public SummaryParcel[] newArray(int size) {
+            return new SummaryParcel[size];
+        }
+    };
+}
@@ -0,0 +1,90 @@
+package com.example.stopwatchsample;
+
+/**
+ * The taps of one input batch ( everything the touch handlers got in one
+ * frame ), applied to the game together. Fixed size, nothing is allocated
+ * per tap; taps past the capacity are dropped.
+ */
+final class TapBatch {
+
+    private final int[] holes;
+    private final long[] times;
+    private final boolean[] hits;
+    private int size;
+
+    /**
+     * Creates an empty batch.
+     * @param capacity The most taps it holds.
+     */
+    TapBatch(int capacity) {
+        holes = new int[capacity];
+        times = new long[capacity];
+        hits = new boolean[capacity];
+    }
+
+    /**
+     * Adds a tap.
+     * @param hole The hole that was tapped.
+     * @param eventTime When the finger went down ( MotionEvent.getEventTime() ).
+     * @return False if the batch is full and the tap was dropped.
+     */
+    boolean add(int hole, long eventTime) {
+        if (size == holes.length) return false;
+        holes[size] = hole;
+        times[size] = eventTime;
+        hits[size] = false;
+        size++;
+        return true;
+    }
+
+    /**
+     * Returns how many taps the batch holds.
+     * @return The number of taps.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the hole the i-th tap landed on.
+     * @param i The tap, in the order they came in.
+     * @return The index of the hole.
+     */
+    int hole(int i) {
+        return holes[i];
+    }
+
+    /**
+     * Returns when the i-th tap landed.
+     * @param i The tap, in the order they came in.
+     * @return When the finger went down ( MotionEvent.getEventTime() ).
+     */
+    long time(int i) {
+        return times[i];
+    }
+
+    /**
+     * Returns whether the i-th tap whacked a mole, once the batch is applied.
+     * @param i The tap, in the order they came in.
+     * @return True if it did.
+     */
+    boolean isHit(int i) {
+        return hits[i];
+    }
+
+    /**
+     * Records whether the i-th tap whacked a mole.
+     * @param i The tap.
+     * @param hit True if it did.
+     */
+    void setHit(int i, boolean hit) {
+        hits[i] = hit;
+    }
+
+    /**
+     * Empties the batch.
+     */
+    void clear() {
+        size = 0;
+    }
+}
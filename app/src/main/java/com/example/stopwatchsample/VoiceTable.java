@@ -0,0 +1,137 @@
+package com.example.stopwatchsample;
+
+/**
+ * The playing sounds ( voices ) of MoleAudioEngine, kept in primitive arrays.
+ *
+ * There is a fixed number of voices. A new sound takes a free voice, unless
+ * its hole already has perHoleLimit voices, in which case it takes that
+ * hole's oldest one; when every voice is busy it takes the oldest voice
+ * overall. So rapid tapping cuts old sounds short instead of dropping new
+ * ones. Nothing here allocates after construction.
+ */
+final class VoiceTable {
+
+    /** The stream id of a free voice ( SoundPool never returns 0 for a playing stream ). */
+    static final int FREE = 0;
+
+    private final int perHoleLimit;
+    private final int[] streams;
+    private final int[] holes;
+    private final long[] stopAt;
+    private final long[] order; // when each voice started, as a sequence number
+    private long nextOrder;
+
+    /**
+     * Creates a table w/ every voice free.
+     * @param voices The number of sounds that can play at once.
+     * @param perHoleLimit The number of sounds one hole can play at once.
+     */
+    VoiceTable(int voices, int perHoleLimit) {
+        if (voices <= 0 || perHoleLimit <= 0) throw new IllegalArgumentException("limits must be positive");
+        this.perHoleLimit = perHoleLimit;
+        streams = new int[voices];
+        holes = new int[voices];
+        stopAt = new long[voices];
+        order = new long[voices];
+    }
+
+    /**
+     * Returns the number of voices.
+     * @return The voice count.
+     */
+    int size() {
+        return streams.length;
+    }
+
+    /**
+     * Returns the stream playing on a voice.
+     * @param voice The voice.
+     * @return The stream id, or FREE.
+     */
+    int stream(int voice) {
+        return streams[voice];
+    }
+
+    /**
+     * Returns the hole a voice plays for.
+     * @param voice A busy voice.
+     * @return The index of the hole.
+     */
+    int hole(int voice) {
+        return holes[voice];
+    }
+
+    /**
+     * Picks the voice a new sound for the hole should use. If it is busy
+     * ( stream() != FREE ) the caller must stop that stream first.
+     *
+     * @param hole The index of the hole.
+     * @return The voice to use.
+     */
+    int pick(int hole) {
+        int free = -1;
+        int oldest = 0;
+        int holeOldest = -1;
+        int holeCount = 0;
+        for (int v = 0; v < streams.length; v++) {
+            if (streams[v] == FREE) {
+                if (free < 0) free = v;
+                continue;
+            }
+            if (order[v] < order[oldest] || streams[oldest] == FREE) oldest = v;
+            if (holes[v] == hole) {
+                holeCount++;
+                if (holeOldest < 0 || order[v] < order[holeOldest]) holeOldest = v;
+            }
+        }
+        if (holeCount >= perHoleLimit) return holeOldest;
+        return free >= 0 ? free : oldest;
+    }
+
+    /**
+     * Records that a sound started on a voice.
+     *
+     * @param voice The voice from pick().
+     * @param hole The index of the hole.
+     * @param stream The stream id ( FREE if the sound didn't play ).
+     * @param stopAt When the sound should be stopped.
+     */
+    void start(int voice, int hole, int stream, long stopAt) {
+        streams[voice] = stream;
+        holes[voice] = hole;
+        this.stopAt[voice] = stopAt;
+        order[voice] = nextOrder++;
+    }
+
+    /**
+     * Frees a voice.
+     * @param voice The voice.
+     */
+    void free(int voice) {
+        streams[voice] = FREE;
+    }
+
+    /**
+     * Returns a busy voice that is due to stop.
+     * @param now The current time.
+     * @return The voice, or -1 if none is due.
+     */
+    int due(long now) {
+        for (int v = 0; v < streams.length; v++) {
+            if (streams[v] != FREE && stopAt[v] <= now) return v;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns when the next busy voice should stop.
+     * @return The time, or Long.MAX_VALUE if every voice is free.
+     */
+    long nextStopAt() {
+        long next = Long.MAX_VALUE;
+        for (int v = 0; v < streams.length; v++) {
+            if (streams[v] != FREE && stopAt[v] < next) next = stopAt[v];
+        }
+        return next;
+    }
+}
@@ -1,50 +1,59 @@
  package com.example.stopwatchsample;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
-import android.animation.ValueAnimator;
-import android.content.SharedPreferences;
-import android.graphics.Rect;
-import android.media.AudioAttributes;
-import android.media.SoundPool;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
-import android.view.View;
-import android.view.animation.PathInterpolator;
+import android.view.Choreographer;
+import android.view.ViewGroup;
 import android.widget.Button;
-import android.widget.FrameLayout;
 import android.widget.GridLayout;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.lifecycle.LiveData;
-import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.example.stopwatchsample.game.GameConfig;
+import com.example.stopwatchsample.game.GameRecord;
+import com.example.stopwatchsample.game.GameState;
+import com.example.stopwatchsample.game.GameSummary;
+import com.example.stopwatchsample.game.GameTrace;
+import com.example.stopwatchsample.game.HideReason;
+import com.example.stopwatchsample.game.MoleType;
+
  /**
   * The Whack-A-Mole activity ( game-screen ).
   */
  public class WhackmoleActivity extends AppCompatActivity implements GameOverFragment.GameOverListener {
 
+    /** Intent extra w/ the number of rows ( and columns ) of holes, 1 to 64. */
+    public static final String EXTRA_GRID_SIZE = "grid_size";
+    /** Intent extra, true to draw the board w/ BoardView instead of a grid of ImageViews. */
+    public static final String EXTRA_CANVAS_BOARD = "canvas_board";
+    /** Intent extra, true to run the game on its own thread ( the main thread only renders ). */
+    public static final String EXTRA_GAME_THREAD = "game_thread";
+
     // Storage stuff
-    private static final String PREFS_NAME = "WhackMolePrefs";
-    private static final String KEY_HIGH_SCORE = "high_score";
+    private static final String TRACE_FILE = "game_trace.txt";
+    private static final String LATENCY_FILE = "latency_histograms.csv";
+    private static final String SESSION_FILE = "last_game.wmr";
 
     // Mole stuff
-    private SoundPool soundPool;
+    private MoleAudioEngine audio;
     private int mole_dur = 1000;
-    private int[] moleSounds;
-    private Random random = new Random();
 
     // Grid layouts
     private GridLayout gridHoles;
-    private ImageView[] imgMoles;
+    private BoardRenderer board;
     private int[] holeDrawables = {
             R.drawable.hole0,
             R.drawable.hole1,
@@ -57,7 +66,7 @@ import androidx.lifecycle.ViewModelProvider;
             R.drawable.hole8,
             R.drawable.hole9
     };
-    private int gridSize = 3;
+    private int gridSize = GameConfig.DEFAULT_GRID_SIZE;
 
     private LinearLayout livesContainer;
     private List<ImageView> hearts = new ArrayList<>();
@@ -65,8 +74,35 @@ import androidx.lifecycle.ViewModelProvider;
 
     private TextView tvScore;
     private Button btnStartStop;
+    // the state on screen, null until the first one arrives
+    private GameState shown;
 
     private WhackmoleViewModel viewModel;
+    private ScoreHistory history;
+    private int personalBest;
+    // the taps of this frame's input, applied together once it's all in
+    private final TapBatch taps = new TapBatch(32);
+    private final Choreographer.FrameCallback applyTaps = frameTimeNanos -> applyTaps();
+    private boolean tapsPending;
+    // debug builds only
+    private final LatencyMonitor latency = BuildConfig.GAME_TRACE ? new LatencyMonitor() : null;
+
+    private final WhackmoleViewModel.MoleListener moleListener = new WhackmoleViewModel.MoleListener() {
+        @Override
+        public void onMoleShown(int index, long deadline, MoleType type) {
+            board.showMole(index, type);
+        }
+
+        @Override
+        public void onMoleHidden(int index, HideReason reason) {
+            board.hideMole(index);
+        }
+
+        @Override
+        public void onTapHit(int index, long tapTime) {
+            if (latency != null) latency.onHitCommitted(tapTime);
+        }
+    };
 
 
     @Override
@@ -80,24 +116,32 @@ import androidx.lifecycle.ViewModelProvider;
         btnStartStop = findViewById(R.id.btnStartStop);
         livesContainer = findViewById(R.id.livesContainer);
 
-        // get high score
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        int highScore = prefs.getInt(KEY_HIGH_SCORE, 0); // default 0 if not set
-
+        // get high score ( read in the background )
+        history = ScoreHistory.get(this);
+        history.loadBest((rank, games, best) -> personalBest = Math.max(personalBest, best));
 
         // setup lives container
         setupLives(numLives);
 
         // setup the model
+        gridSize = Math.max(1, Math.min(GameConfig.MAX_GRID_SIZE,
+                getIntent().getIntExtra(EXTRA_GRID_SIZE, GameConfig.DEFAULT_GRID_SIZE)));
         viewModel = new ViewModelProvider(this).get(WhackmoleViewModel.class);
-
-        // watch the score
-        viewModel.getScore().observe(this, num ->
-                tvScore.setText(String.format("Score: %d", num))
-        );
-
-        // watch the lives
-        viewModel.getLives().observe(this, lives -> updateHearts( lives ) );
+        if (getIntent().getBooleanExtra(EXTRA_GAME_THREAD, false)) viewModel.useGameThread();
+        viewModel.setGridSize(gridSize);
+
+        // watch the score and lives ( one update per frame at most )
+        viewModel.getState().observe(this, this::render);
+
+        // debug builds: record each game ( for SessionReplay ),
+        // and long-press the score to dump the game trace
+        if (BuildConfig.GAME_TRACE) {
+            viewModel.setRecordingFile(new File(getFilesDir(), SESSION_FILE));
+            tvScore.setOnLongClickListener(v -> {
+                dumpTrace();
+                return true;
+            });
+        }
 
         // setup the start/stop button
         btnStartStop.setOnClickListener(v -> {
@@ -108,150 +152,125 @@ import androidx.lifecycle.ViewModelProvider;
             }
         });
 
-        // setup mole sounds
-        AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                .setUsage(AudioAttributes.USAGE_GAME)
-                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                .build();
-        soundPool = new SoundPool.Builder()
-                .setMaxStreams(5)
-                .setAudioAttributes(audioAttributes)
-                .build();
-
-        moleSounds = new int[]{
-                soundPool.load(this, R.raw.ow0, 1),
-                soundPool.load(this, R.raw.ow1, 1),
-                soundPool.load(this, R.raw.ow2, 1),
-                soundPool.load(this, R.raw.ow3, 1),
-                soundPool.load(this, R.raw.ow4, 1),
-                soundPool.load(this, R.raw.ow5, 1),
-                soundPool.load(this, R.raw.ow6, 1),
-                soundPool.load(this, R.raw.ow7, 1),
-                soundPool.load(this, R.raw.ow8, 1),
-                soundPool.load(this, R.raw.ow9, 1),
-                soundPool.load(this, R.raw.ow10, 1),
-                soundPool.load(this, R.raw.ow11, 1),
-                soundPool.load(this, R.raw.ow12, 1),
-                soundPool.load(this, R.raw.ow13, 1)
-        };
-
-        // setup the grid ( once its ready )
-        gridHoles.post( () -> {
-            int parentWidth = gridHoles.getWidth();
-            int holeCellSize = parentWidth / gridSize;
-
-            imgMoles = new ImageView[gridSize * gridSize];
-
-            for (int i = 0; i < gridSize * gridSize; i++) {
-                FrameLayout frame = new FrameLayout(this);
-
-                int holeRes = holeDrawables[ random.nextInt(holeDrawables.length)];
-                ImageView holeImg = new ImageView(this);
-                holeImg.setImageResource(holeRes);
-                holeImg.setScaleType(ImageView.ScaleType.FIT_CENTER);
-
-                ImageView imgMole = new ImageView(this);
-                imgMole.setImageResource(R.drawable.mole);
-                imgMole.setScaleType(ImageView.ScaleType.FIT_CENTER);
-                imgMole.setVisibility(View.INVISIBLE);
-                imgMoles[i] = imgMole;
-
-                frame.addView(holeImg);
-                frame.addView(imgMole);
-
-                GridLayout.LayoutParams params = new GridLayout.LayoutParams();
-                params.width = holeCellSize;
-                params.height = holeCellSize;
-                frame.setLayoutParams(params);
-
-                int finalI = i;
-                frame.setOnClickListener(v -> {
-                        viewModel.hitHole(finalI);
-
-                        // pick a random sound
-                        int soundId = moleSounds[random.nextInt(moleSounds.length)];
-                        int streamId = soundPool.play(soundId, 1f, 1f, 1, 0, 1f);
-
-                        // stop sound after mole_dur
-                        new Handler(Looper.getMainLooper()).postDelayed(() -> {
-                            soundPool.stop(streamId);
-                        }, mole_dur);
-                });
+        // setup mole sounds ( they load in the background )
+        audio = new MoleAudioEngine(this, new int[]{
+                R.raw.ow0, R.raw.ow1, R.raw.ow2, R.raw.ow3, R.raw.ow4,
+                R.raw.ow5, R.raw.ow6, R.raw.ow7, R.raw.ow8, R.raw.ow9,
+                R.raw.ow10, R.raw.ow11, R.raw.ow12, R.raw.ow13
+        }, mole_dur);
+
+        // pick each cell's hole drawable, the same ones every time this screen is recreated
+        Random random = new Random(viewModel.getBoardSeed());
+        int[] cellDrawables = new int[gridSize * gridSize];
+        for (int i = 0; i < cellDrawables.length; i++) {
+            cellDrawables[i] = holeDrawables[ random.nextInt(holeDrawables.length)];
+        }
 
-                gridHoles.addView(frame);
+        // setup the board ( once the grid is ready )
+        boolean useCanvas = getIntent().getBooleanExtra(EXTRA_CANVAS_BOARD, false);
+        gridHoles.post( () -> {
+            if (useCanvas) {
+                // swap the grid for a single view that draws every cell
+                BoardView boardView = new BoardView(this, gridSize, cellDrawables);
+                ViewGroup parent = (ViewGroup) gridHoles.getParent();
+                int at = parent.indexOfChild(gridHoles);
+                parent.removeView(gridHoles);
+                parent.addView(boardView, at, gridHoles.getLayoutParams());
+                board = boardView;
+            } else {
+                board = new GridBoardRenderer(this, gridHoles, gridSize, cellDrawables);
+            }
+            board.setOnHoleHitListener(this::onHoleHit);
+            if (BuildConfig.GAME_TRACE) {
+                BitmapCache bitmaps = BitmapCache.get(this);
+                Log.d("WMA", "bitmap cache: " + bitmaps.size() + " bitmaps, " + bitmaps.bytes() / 1024 + " KB");
             }
 
-            // Now that grid is ready, watch mole index
-            viewModel.getActiveMoles().observe(this, activeList -> {
-                for (int i = 0; i < imgMoles.length; i++) {
-                    boolean shouldBeVisible = activeList.contains(i);
-                    boolean isEnabled = imgMoles[i].isEnabled();
-
-                    if (shouldBeVisible && !isEnabled) {
-                        Log.d("WMA", "show mole " + i );
-                        animateMolePop(imgMoles[i]);
-                    } else if (!shouldBeVisible && isEnabled) {
-                        Log.d("WMA", "hide mole " + i );
-                        animateMoleHide(imgMoles[i]);
-                    }
-
-                    Log.d("WMA", "Mole visibility @ " + i + " is: " + imgMoles[ i ].getVisibility() );
-                }
-            });
+            // Now that board is ready, follow the moles one hole at a time
+            viewModel.setMoleListener(moleListener);
         } );
     }
 
-    private void animateMole( ImageView moleImg, boolean show ) {
-        int width = moleImg.getWidth();
-        int height = moleImg.getHeight();
-        int dur = 100; // ( dur / 1000 ) seconds
-
-        if( show ){
-            moleImg.setVisibility(View.VISIBLE);
-            moleImg.setEnabled( true );
-        } else {
-            moleImg.setEnabled( false );
-        }
+    @Override
+    protected void onStart() {
+        super.onStart();
+        viewModel.resume();
+        if (latency != null) latency.resume();
+    }
 
-        int hiddenY = (int) (height * 0.6f);
+    @Override
+    protected void onStop() {
+        // freeze the game while it can't be seen ( it resumes where it was )
+        viewModel.pause();
+        if (latency != null) latency.pause();
+        super.onStop();
+    }
 
-        // Start at appropriate Y
-        moleImg.setTranslationY(show ? hiddenY : 0);
+    @Override
+    protected void onDestroy() {
+        // the view model outlives this activity on rotation
+        viewModel.setMoleListener(null);
+        if (tapsPending) Choreographer.getInstance().removeFrameCallback(applyTaps);
+        if (latency != null) latency.stop();
+        audio.release();
+        super.onDestroy();
+    }
 
-        // Start clip depending on direction
-        final Rect clip = new Rect(0, 0, width, show ? 0 : height / 2);
-        moleImg.setClipBounds(clip);
+    // the player tapped a hole: collect it w/ the rest of this frame's input
+    private void onHoleHit(int index, long eventTime) {
+        taps.add(index, eventTime);
+        if (!tapsPending) {
+            tapsPending = true;
+            // input is handled before the frame's animation callbacks, so this runs in the same frame
+            Choreographer.getInstance().postFrameCallback(applyTaps);
+        }
+    }
 
-        ValueAnimator animator = ValueAnimator.ofInt(
-                show ? 0 : height / 2, // from
-                show ? height / 2 : 0 // to
-        );
-        animator.setDuration(dur);
-        animator.addUpdateListener(animation -> {
-            int clipBottom = (int) animation.getAnimatedValue();
-            clip.bottom = clipBottom;
-            moleImg.setClipBounds(clip);
-        });
+    private void applyTaps() {
+        tapsPending = false;
+        viewModel.hitHoles(taps);
+        for (int i = 0; i < taps.size(); i++) {
+            audio.playHit(taps.hole(i));
+        }
+        taps.clear();
+    }
 
-        moleImg.animate()
-                .translationY(show ? 0 : hiddenY)
-                .setDuration(dur)
-                .setInterpolator(new PathInterpolator(0.5f, 0, 0.5f, 1f))
-                .withEndAction(() -> {
-                    if (!show) moleImg.setVisibility(View.INVISIBLE); // fully hide after retract
-                })
-                .start();
+    // write the trace to a file ( the text is built here, the disk write happens off the main thread )
+    private void dumpTrace() {
+        GameTrace trace = viewModel.getTrace();
+        if (trace == null) return;
 
-        animator.start();
+        StringBuilder text = new StringBuilder();
+        try {
+            trace.dump(text);
+        } catch (IOException e) {
+            return; // StringBuilder doesn't throw
+        }
+        File file = new File(getFilesDir(), TRACE_FILE);
+        writeInBackground(file, text.toString());
+        Toast.makeText(this, "Trace: " + file.getPath(), Toast.LENGTH_SHORT).show();
     }
 
-    // wrappers
-    private void animateMolePop(ImageView moleImg) {
-        animateMole(moleImg, true);
+    // export the raw latency buckets, returns the p50/p95/p99 summary
+    private String dumpLatency() {
+        StringBuilder csv = new StringBuilder();
+        try {
+            latency.writeCsv(csv);
+        } catch (IOException e) {
+            return null; // StringBuilder doesn't throw
+        }
+        writeInBackground(new File(getFilesDir(), LATENCY_FILE), csv.toString());
+        return latency.summary();
     }
 
-    private void animateMoleHide(ImageView moleImg) {
-        animateMole(moleImg, false);
+    private static void writeInBackground(File file, String text) {
+        new Thread(() -> {
+            try (Writer out = new FileWriter(file)) {
+                out.write(text);
+            } catch (IOException e) {
+                Log.w("WMA", "writing " + file.getName() + " failed", e);
+            }
+        }, "debug-dump").start();
     }
 
     private void setupLives(int count) {
@@ -275,6 +294,26 @@ import androidx.lifecycle.ViewModelProvider;
         }
     }
 
+    // show a new state, touching only what changed
+    private void render(GameState state) {
+        GameState last = shown;
+        shown = state;
+        if (last == null || last.score != state.score) {
+            tvScore.setText(String.format("Score: %d", state.score));
+        }
+        if (last == null || last.lives != state.lives) {
+            updateHearts(state.lives);
+        }
+        // a game that outlived the last screen ( rotation, or restored after process death ) is running
+        if (last == null && state.running) {
+            btnStartStop.setText("Stop");
+        }
+        // only a game that ends while we watch ( a restored game over keeps its dialog )
+        if (last != null && !last.isOver() && state.isOver()) {
+            endGame();
+        }
+    }
+
     private void updateHearts(int lives) {
         // Update the heart images based on lives
         for (int i = 0; i < hearts.size(); i++) {
@@ -284,34 +323,44 @@ import androidx.lifecycle.ViewModelProvider;
                 hearts.get(i).setImageResource(R.drawable.heart_broken);
             }
         }
-
-        if (lives == 0) {
-            endGame();
-        }
     }
 
     private void endGame(){
-        viewModel.stop();
-
         btnStartStop.setText("Restart");
-        int finalScore = viewModel.getScore().getValue() != null ? viewModel.getScore().getValue() : 0;
-
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        int highScore = prefs.getInt(KEY_HIGH_SCORE, 0);
+        // the dialog waits for the final record, a game stopping twice is reported once
+        viewModel.stop(this::showGameOver);
+    }
 
-        if (finalScore > highScore) {
-            // Save new high score
-            prefs.edit().putInt( KEY_HIGH_SCORE, finalScore ).apply();
-            highScore = finalScore;
+    // the stopped game's outcome, from the view model once the game has really stopped
+    private void showGameOver(GameRecord game, GameSummary summary) {
+        // a frame late, the screen may have been recreated since: save the game all the same
+        if (isDestroyed()) {
+            history.record(game, (rank, games, best) -> { });
+            return;
+        }
+        String latencySummary = null;
+        if (latency != null) {
+            latency.stop();
+            latencySummary = dumpLatency();
         }
 
-        GameOverFragment fragment = GameOverFragment.newInstance( finalScore, highScore );
+        personalBest = Math.max(personalBest, game.score);
+
+        GameOverFragment fragment = GameOverFragment.newInstance( game.score, personalBest, latencySummary,
+                summary );
         fragment.show(getSupportFragmentManager(), "GameOverDialog");
+
+        // save the game, the rank shows up once the history has it
+        history.record(game, (rank, games, best) -> {
+            personalBest = Math.max(personalBest, best);
+            fragment.showHistory(rank, games, best);
+        });
     }
 
     private void startGame() {
         btnStartStop.setText("Stop");
         viewModel.start();
+        if (latency != null) latency.start();
     }
 
      /**
@@ -1,150 +1,382 @@
 package com.example.stopwatchsample;
 
+import android.os.Bundle;
 import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
 import android.util.Log;
+import android.view.Choreographer;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.SavedStateHandle;
 import androidx.lifecycle.ViewModel;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import com.example.stopwatchsample.game.GameConfig;
+import com.example.stopwatchsample.game.GameEventBus;
+import com.example.stopwatchsample.game.GameRandom;
+import com.example.stopwatchsample.game.GameRecord;
+import com.example.stopwatchsample.game.GameState;
+import com.example.stopwatchsample.game.GameSummary;
+import com.example.stopwatchsample.game.GameTrace;
+import com.example.stopwatchsample.game.HideReason;
+import com.example.stopwatchsample.game.HoleTimerWheel;
+import com.example.stopwatchsample.game.InputQueue;
+import com.example.stopwatchsample.game.MoleSnapshot;
+import com.example.stopwatchsample.game.MoleType;
+import com.example.stopwatchsample.game.SessionWriter;
+import com.example.stopwatchsample.game.WhackmoleGame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Contains the Whack-A-Mole game logic.
+ * Exposes the Whack-A-Mole game ( see WhackmoleGame ) to the activity.
+ *
+ * Score, lives and moles are published together as one GameState, at most
+ * once per frame: a hit changes the score, hides a mole and spawns the next
+ * one, and the UI should see all of that at once, not three half-done states.
+ *
+ * By default the game runs on the main looper. After useGameThread() it
+ * runs on its own thread instead and the main thread only renders: taps and
+ * commands reach the game through a lock-free InputQueue, and the game hands
+ * back each new GameState through an atomic reference and what happened to
+ * the moles, hide reasons and hits included, through a MoleFeed.
+ *
+ * A game in progress survives the process being killed in the background:
+ * its snapshot ( see WhackmoleGame.saveState() ) goes into the
+ * SavedStateHandle and is restored, paused, once the grid size is set. The
+ * seed of the board's look is kept there too, so the holes look the same.
  */
 public class WhackmoleViewModel extends ViewModel {
 
-    private final int numHoles = 9;
-    public final long moleDur = 5000;
-    private final long spawnInterval = 1000;
-    private final double rate = 0.9;
+    /**
+     * Receives moles popping up and going down, one hole at a time.
+     */
+    public interface MoleListener {
+        /**
+         * A mole popped up.
+         * @param index The index of the hole.
+         * @param deadline When it times out, or HoleTimerWheel.NOT_ARMED w/ a game thread.
+         * @param type What kind of mole it is.
+         */
+        void onMoleShown(int index, long deadline, MoleType type);
+        void onMoleHidden(int index, HideReason reason);
+
+        /**
+         * A tap whacked a mole. W/ a game thread it's told once the main
+         * thread hears back, the same frame the mole is seen going down.
+         * @param index The index of the hole.
+         * @param tapTime When the tap landed.
+         */
+        void onTapHit(int index, long tapTime);
+    }
 
+    /**
+     * Receives the outcome of a game once it has stopped.
+     */
+    public interface GameEndListener {
+        /**
+         * The game stopped. W/ a game thread it's told on the main thread,
+         * after the game thread has applied the stop.
+         * @param record The final score, duration, hits and misses, stamped w/ the time it stopped.
+         * @param summary The final reaction times, accuracy and streaks.
+         */
+        void onGameEnded(GameRecord record, GameSummary summary);
+    }
 
-    private boolean running = false;
-    private final Random rand = new Random();
+    // input codes besides taps ( a tap's code is its hole )
+    private static final int START = -1;
+    private static final int STOP = -2;
+    private static final int RESET = -3;
+    private static final int GRID = -4;
+    private static final int PAUSE = -5;
+    private static final int RESUME = -6;
+    // taps reach the game a frame or two after they land, moles wait that long past their deadline
+    private static final long TAP_GRACE_MILLIS = 48;
+    // SavedStateHandle keys
+    private static final String KEY_BOARD_SEED = "board_seed";
+    private static final String KEY_GAME = "game";
+    private static final String KEY_SNAPSHOT = "snapshot";
+    // w/ a game thread, how stale the snapshot of a running game may get ( saving can come before the pause )
+    private static final long SNAPSHOT_INTERVAL_MS = 1000;
+    // mole events in flight from the game thread, room for a resync of the largest board
+    private static final int FEED_CAPACITY = 2 * GameConfig.MAX_GRID_SIZE * GameConfig.MAX_GRID_SIZE;
+
+    private GameConfig config = configFor(GameConfig.DEFAULT_GRID_SIZE);
+    public final long moleDur = config.moleDur;
+
+    private final MutableLiveData<GameState> state = new MutableLiveData<>();
+    // every change in a frame marks the state dirty, the next frame publishes it once
+    private boolean statePending;
+    private final Choreographer.FrameCallback publishState = frameTimeNanos -> publishState();
+
+    private HandlerScheduler scheduler = new HandlerScheduler();
+    private final WhackmoleGame.Listener listener = new WhackmoleGame.Listener() {
+        @Override
+        public void onScoreChanged(int value) {
+            invalidateState();
+        }
 
-    private final MutableLiveData<Integer> score = new MutableLiveData<>(0);
-    private final MutableLiveData<Integer> lives = new MutableLiveData<>(3);
-    private final MutableLiveData<List<Integer>> activeMoles = new MutableLiveData<>(new ArrayList<>());
+        @Override
+        public void onLivesChanged(int value) {
+            invalidateState();
+            if (value < livesSeen && !restoring) {
+                events.offer(GameEventBus.LIFE_LOST, scheduler.now(), -1, value);
+                if (value <= 0) events.offer(GameEventBus.GAME_OVER, scheduler.now(), -1, game.getScore());
+            }
+            livesSeen = value;
+        }
 
-    private final Handler moleHandler = new Handler();
-    private final java.util.Map<Integer, Runnable> moleRunnables = new java.util.HashMap<>();
+        @Override
+        public void onMolesChanged() {
+            invalidateState();
+        }
 
+        @Override
+        public void onMoleShown(int index, long deadline, MoleType type) {
+            events.offer(GameEventBus.SPAWN, scheduler.now(), index, type.ordinal());
+            if (gameThread != null) {
+                feed.moleShown(index, type);
+            } else if (moleListener != null) {
+                moleListener.onMoleShown(index, deadline, type);
+            }
+        }
 
-    private final Runnable spawnRunnable = new Runnable() {
         @Override
-        public void run() {
-            if (!running) return;
+        public void onMoleHidden(int index, HideReason reason) {
+            if (reason == HideReason.TIMEOUT) {
+                // told before the life is taken
+                int lives = game.getLives() - (game.getMoleType(index).timeoutCostsLife ? 1 : 0);
+                events.offer(GameEventBus.TIMEOUT, scheduler.now(), index, lives);
+            }
+            if (gameThread != null) {
+                feed.moleHidden(index, reason);
+            } else if (moleListener != null) {
+                moleListener.onMoleHidden(index, reason);
+            }
+        }
+    };
 
-            List<Integer> list = activeMoles.getValue() != null ?
-                    new ArrayList<>(activeMoles.getValue()) :
-                    new ArrayList<>();
+    // game events for readers off the UI ( sound, logging, analytics ), published by the game's thread
+    private final GameEventBus events = new GameEventBus(1024);
+    private int livesSeen;
+    // a restored game's lives aren't lost lives
+    private boolean restoring;
+
+    private final long boardSeed;
+    // the game saved before the process died, until the grid size is set and it's restored
+    private volatile byte[] savedGame;
+    // w/ a game thread: a recent snapshot of the game, taken there for saveGame() to hand over
+    private volatile byte[] recentGame;
+    private long recentGameAt;
+
+    // seeded once, every game's starting state is in its recording
+    private final GameRandom random = new GameRandom(System.nanoTime());
+    private WhackmoleGame game;
+    private MoleListener moleListener;
+    // null in builds w/o tracing
+    private final GameTrace trace = BuildConfig.GAME_TRACE ? new GameTrace(4096) : null;
+    // where each game is recorded ( see SessionReplay ), null = don't record
+    private volatile File recordingFile;
+    private SessionWriter recording;
+
+    // the game thread and its plumbing, all null until useGameThread()
+    private HandlerThread gameThread;
+    private Handler gameHandler;
+    private Handler mainHandler;
+    private InputQueue input;
+    private MoleFeed feed;
+    // the newest state, set on the game thread, read on the main thread
+    private final AtomicReference<GameState> latest = new AtomicReference<>();
+    private final AtomicBoolean drainPending = new AtomicBoolean();
+    private final AtomicBoolean wakePending = new AtomicBoolean();
+    // who gets the outcome of the game being stopped, taken by the STOP that ends it
+    private final AtomicReference<GameEndListener> endListener = new AtomicReference<>();
+    // main thread only: a stop was asked for since the last start
+    private boolean stopping;
+    // game thread only
+    private boolean publishPending;
+
+    private final Runnable drainInput = this::drainInput;
+    private final Runnable publishLatest = this::publishLatest;
+    private final Runnable wakeUi = () -> {
+        wakePending.set(false);
+        scheduleFrame();
+    };
 
+    public WhackmoleViewModel(SavedStateHandle handle) {
+        Long seed = handle.get(KEY_BOARD_SEED);
+        boardSeed = seed != null ? seed : System.nanoTime();
+        handle.set(KEY_BOARD_SEED, boardSeed);
+        Bundle saved = handle.get(KEY_GAME);
+        savedGame = saved != null ? saved.getByteArray(KEY_SNAPSHOT) : null;
+        handle.setSavedStateProvider(KEY_GAME, this::saveGame);
 
-            int targetMoles = 1 + (score.getValue() == null ? 0 : score.getValue() / 10 );
-            targetMoles = Math.min(targetMoles, numHoles);
+        game = newGame();
+        state.setValue(game.getState());
+    }
 
-            if (list.size() < targetMoles) {
-                addMole( targetMoles );
-            }
+    /**
+     * Moves the game to its own thread, so game logic never competes w/
+     * layout, animation and input on the main thread. Call it before the
+     * first game; calling it again does nothing.
+     */
+    public void useGameThread() {
+        if (gameThread != null) return;
+        game.stop();
+        gameThread = new HandlerThread("game-loop", Process.THREAD_PRIORITY_DISPLAY);
+        gameThread.start();
+        Looper looper = gameThread.getLooper();
+        gameHandler = new Handler(looper);
+        mainHandler = new Handler(Looper.getMainLooper());
+        input = new InputQueue(256);
+        feed = new MoleFeed(FEED_CAPACITY, config.numHoles);
+        scheduler = new HandlerScheduler(looper);
+        game = newGame();
+        latest.set(game.getState());
+    }
 
-            int level = ( score.getValue() == null ? 0 : score.getValue() ) / 10;
-            if( level <= 0 ){
-                moleHandler.post( this );
-            } else {
-                moleHandler.postDelayed(this, (long)( spawnInterval * Math.pow( rate, level ) ) );
-            }
-        }
-    };
+    // mostly normal moles, w/ a few of each other kind mixed in
+    private static GameConfig configFor(int gridSize) {
+        return GameConfig.forGrid(gridSize).withMoleWeights(80, 8, 6, 6);
+    }
+
+    private WhackmoleGame newGame() {
+        WhackmoleGame g = new WhackmoleGame(config, scheduler, scheduler, random, listener);
+        g.setTrace(trace);
+        g.setTapGrace(TAP_GRACE_MILLIS);
+        return g;
+    }
+
+    /**
+     * Returns the seed the board's hole drawables are picked w/. It's the
+     * same for the life of the game screen, across rotations and process death.
+     * @return The seed.
+     */
+    public long getBoardSeed() {
+        return boardSeed;
+    }
 
     /**
-     * Returns the positions of the moles.
-     * @return The indexes of the holes that contain moles.
+     * Returns the recent game events and counters, for debugging.
+     * W/ a game thread, read it while the game is stopped.
+     * @return The trace, or null if this build doesn't trace.
      */
-    public LiveData<List<Integer>> getActiveMoles() {
-        return activeMoles;
+    public GameTrace getTrace() {
+        return trace;
     }
 
     /**
-     * Returns the number of points that have accumulated in the current game.
-     * @return The score.
+     * Records every game from now on, each one replacing the last.
+     * @param file The recording, or null to stop recording.
      */
-    public LiveData<Integer> getScore() {
-        return score;
+    public void setRecordingFile(File file) {
+        recordingFile = file;
     }
 
     /**
-     * Returns the number of lives the player has remaining before the game ends.
-     * @return The number of lives remaining.
+     * Sets the size of the board. Changing it stops the current game.
+     * @param gridSize The number of rows ( and columns ) of holes.
      */
-    public LiveData<Integer> getLives() {
-        return lives;
+    public void setGridSize(int gridSize) {
+        submit(GRID, gridSize);
+    }
+
+    /**
+     * Sets who gets told about each mole that pops up or goes down.
+     * The moles that are already up are reported right away.
+     * @param listener The listener, or null to stop listening ( do this in onDestroy ).
+     */
+    public void setMoleListener(MoleListener listener) {
+        moleListener = listener;
+        if (listener == null) return;
+
+        if (gameThread != null) {
+            feed.replay(listener);
+            return;
+        }
+        MoleSnapshot moles = game.getMoles();
+        for (int i = moles.nextActive(0); i >= 0; i = moles.nextActive(i + 1)) {
+            listener.onMoleShown(i, game.getMoleDeadline(i), game.getMoleType(i));
+        }
+    }
+
+    /**
+     * Returns the score, lives, moles and running flag, updated at most once per frame.
+     * @return The latest state.
+     */
+    public LiveData<GameState> getState() {
+        return state;
+    }
+
+    /**
+     * Returns the game's event bus: spawns, hits, misses, timeouts, lost
+     * lives and game overs. Take a reader and drain it on any thread, at
+     * any pace; events a reader falls a full ring behind on are dropped
+     * rather than holding up the game. Close the reader when done.
+     * @return The bus.
+     */
+    public GameEventBus getEvents() {
+        return events;
     }
 
     /**
      * Starts the game.
      */
     public void start() {
-        Log.d("WMVM", "Start() called");
-        reset();
-        Log.d("WMVM", "reset() success");
-        running = true;
-        moleHandler.post(spawnRunnable);
+        stopping = false;
+        submit(START, 0);
     }
 
     /**
      * Stops the game.
      */
     public void stop() {
-        running = false;
-        moleHandler.removeCallbacksAndMessages(null);
-        moleRunnables.clear();
-        activeMoles.setValue(new ArrayList<>());
+        stop(null);
     }
 
+    /**
+     * Stops the game and reports its outcome, once. Stopping again before
+     * the next start does nothing, so a game that ends while it's being
+     * stopped isn't reported twice.
+     * @param listener Who gets the final record, or null for nobody.
+     */
+    public void stop(GameEndListener listener) {
+        if (stopping) return;
+        stopping = true;
+        endListener.set(listener);
+        submit(STOP, 0);
+    }
 
     /**
-     * Returns whether the game is active.
+     * Returns whether the game is active. W/ a game thread it's as of the
+     * newest published state, and false as soon as stop() is called.
      * @return The running boolean.
      */
     public boolean is_running() {
-        return running;
+        if (stopping) return false;
+        return gameThread != null ? latest.get().running : game.isRunning();
     }
 
     /**
-     * Hit the hole w/ the given index.
-     * @param index  The index of the hole to hit.
+     * Applies one input batch of taps, in order, each judged by when it landed.
+     * The state they produce is published once, and each tap that whacks a
+     * mole is told to the MoleListener.
+     * @param taps The taps; each one's hit flag is set to whether it whacked a mole
+     *             ( always false w/ a game thread, the hits land there later ).
      */
-    public void hitHole(int index) {
-        List<Integer> list = new ArrayList<>();
-        if (activeMoles.getValue() != null) {
-            list.addAll(activeMoles.getValue());
-        }
-
-        if (list.contains(index)) {
-            Integer val = score.getValue();
-            score.setValue(val != null ? val + 1 : 1);
-            list.remove(Integer.valueOf(index));
-            activeMoles.setValue(list);
-
-            // cancel the timeout runnable for this mole
-            Runnable toCancel = moleRunnables.remove(index);
-            if (toCancel != null) {
-                moleHandler.removeCallbacks(toCancel);
+    public void hitHoles(TapBatch taps) {
+        for (int i = 0; i < taps.size(); i++) {
+            if (gameThread != null) {
+                submit(taps.hole(i), taps.time(i));
+                taps.setHit(i, false);
+            } else {
+                taps.setHit(i, hitHole(taps.hole(i), taps.time(i)));
             }
-
-            spawnMoles();
-        }
-    }
-
-    // remove a life
-    private void loseLife() {
-        if (lives.getValue() != null) {
-            int newLives = lives.getValue() - 1;
-            lives.setValue(newLives);
-            if (newLives <= 0) stop();
         }
     }
 
@@ -152,82 +384,227 @@ public class WhackmoleViewModel extends ViewModel {
      * Resets the game.
      */
     public void reset() {
-        stop();
-        score.setValue(0);
-        lives.setValue(3);
-        activeMoles.setValue( new ArrayList<>() );
+        stopping = false;
+        submit(RESET, 0);
+    }
 
+    /**
+     * Freezes the running game while the screen is hidden: the moles keep
+     * the time they have left and nothing stays posted ( see WhackmoleGame.pause() ).
+     */
+    public void pause() {
+        submit(PAUSE, 0);
     }
 
-    // add a mole with timer
-    private void addMole(int targetMoles) {
-        Log.d("WMVM", "addMole() called");
+    /**
+     * Picks a paused game up exactly where it left off.
+     */
+    public void resume() {
+        submit(RESUME, 0);
+    }
 
-        if (!running) {
-            Log.d("WMVM", "not running in addMole");
-            return;
+    @Override
+    protected void onCleared() {
+        submit(STOP, 0);
+        if (gameThread != null) {
+            gameThread.quitSafely(); // runs the stop first
+            mainHandler.removeCallbacks(wakeUi);
         }
-
-        List<Integer> list = new ArrayList<>();
-        if (activeMoles.getValue() != null) {
-            list.addAll(activeMoles.getValue());
+        if (statePending) {
+            Choreographer.getInstance().removeFrameCallback(publishState);
+            statePending = false;
         }
+    }
 
-        if (list.size() >= targetMoles) return;
-        if (list.size() >= numHoles) {
-            stop();
-            Log.d("WMVM", "addMole() too many moles");
+    // run the input now, or hand it to the game thread
+    private void submit(int code, long value) {
+        if (gameThread == null) {
+            apply(code, value);
+            return;
+        }
+        if (!input.offer(code, value)) {
+            Log.w("WMA", "game input queue full, dropped " + code);
             return;
         }
+        if (!drainPending.getAndSet(true)) gameHandler.post(drainInput);
+    }
 
-        int moleIdx = rand.nextInt(numHoles);
-        while (list.contains(moleIdx)) {
-            moleIdx = rand.nextInt(numHoles);
+    // game thread: run everything queued so far
+    private void drainInput() {
+        drainPending.set(false);
+        while (input.poll()) {
+            apply(input.code(), input.value());
         }
+    }
 
-        final int finalMoleIdx = moleIdx;
+    // runs on the thread that owns the game
+    private void apply(int code, long value) {
+        switch (code) {
+            case START:
+                startRecording();
+                game.start();
+                break;
+            case STOP:
+                game.stop();
+                stopRecording();
+                reportEnd(endListener.getAndSet(null));
+                break;
+            case RESET:
+                game.reset();
+                stopRecording();
+                break;
+            case PAUSE:
+                game.pause();
+                // the process may die in the background, keep what's recorded so far
+                if (recording != null) recording.flush();
+                break;
+            case RESUME:
+                game.resume();
+                break;
+            case GRID:
+                if (value * value != config.numHoles) {
+                    game.stop();
+                    config = configFor((int) value);
+                    game = newGame();
+                    if (gameThread != null) feed.resync(game, true);
+                    invalidateState();
+                }
+                restoreGame();
+                break;
+            default:
+                hitHole(code, value);
+                return;
+        }
+        if (gameThread != null) keepSnapshot();
+    }
 
-        // add to active list
-        list.add(finalMoleIdx);
-        activeMoles.setValue(list);
+    // on the thread that owns the game, right after the stop: the final outcome, handed to the main thread
+    private void reportEnd(GameEndListener listener) {
+        if (listener == null) return;
+        GameState s = game.getState();
+        GameRecord record = new GameRecord(s.score, s.elapsedMillis, s.hits, s.misses, System.currentTimeMillis());
+        if (gameThread == null) {
+            listener.onGameEnded(record, s.summary);
+        } else {
+            mainHandler.post(() -> listener.onGameEnded(record, s.summary));
+        }
+    }
 
-        Runnable moleTimeout = () -> {
-            List<Integer> timeoutList = new ArrayList<>();
-            if (activeMoles.getValue() != null) {
-                timeoutList.addAll(activeMoles.getValue());
-            }
+    // game thread: after each command ( the pause, when the screen goes away ) and now and then while it runs
+    private void keepSnapshot() {
+        recentGame = game.isRunning() ? game.saveState() : null;
+        recentGameAt = scheduler.now();
+    }
 
-            if (timeoutList.contains(finalMoleIdx)) {
-                timeoutList.remove(Integer.valueOf(finalMoleIdx));
-                activeMoles.setValue(timeoutList);
-                loseLife();
+    // on the thread that owns the game: bring back the game saved before the process died, once
+    private void restoreGame() {
+        byte[] snapshot = savedGame;
+        if (snapshot == null) return;
+        savedGame = null;
+        restoring = true;
+        try {
+            game.restoreState(snapshot);
+        } catch (IllegalArgumentException e) {
+            Log.w("WMA", "can't restore the saved game", e); // another board size
+        } finally {
+            restoring = false;
+        }
+        livesSeen = game.getLives();
+    }
 
-                spawnMoles();
-            }
+    // main thread, when the activity saves its state
+    private Bundle saveGame() {
+        Bundle bundle = new Bundle();
+        byte[] snapshot = savedGame != null ? savedGame : snapshotGame();
+        if (snapshot != null) bundle.putByteArray(KEY_SNAPSHOT, snapshot);
+        return bundle;
+    }
 
-            moleRunnables.remove(finalMoleIdx);
-        };
+    // the running game's snapshot, w/o waiting on the game thread; null if there's no game to keep
+    private byte[] snapshotGame() {
+        if (gameThread == null) return game.isRunning() ? game.saveState() : null;
+        // taken when the game paused, or about SNAPSHOT_INTERVAL_MS ago at most
+        return recentGame;
+    }
 
-        moleRunnables.put(finalMoleIdx, moleTimeout);
+    // a tap, on the thread that owns the game
+    private boolean hitHole(int hole, long tapTime) {
+        boolean hit = game.hitHole(hole, tapTime);
+        if (hit) {
+            events.offer(GameEventBus.HIT, scheduler.now(), hole, game.getScore());
+            if (gameThread != null) {
+                feed.tapHit(hole, tapTime);
+                invalidateState(); // so the main thread hears of it
+            } else if (moleListener != null) {
+                moleListener.onTapHit(hole, tapTime);
+            }
+        } else if (game.isRunning() && !game.isPaused()) {
+            events.offer(GameEventBus.MISS, scheduler.now(), hole, 0);
+        }
+        return hit;
+    }
 
-        int level = (score.getValue() == null ? 0 : score.getValue() ) / 5;
-        moleHandler.postDelayed(moleTimeout, (long)(moleDur * Math.pow(rate, level)));
+    // the game changed ( on the thread that owns it )
+    private void invalidateState() {
+        if (gameThread == null) {
+            scheduleFrame();
+        } else if (!publishPending) {
+            // snapshot once the work queued on the game thread so far is done
+            publishPending = true;
+            gameHandler.post(publishLatest);
+        }
     }
 
-    // spawn moles until there are enough
-    private void spawnMoles() {
-        Log.d("WMVM", "spawnMoles() called");
+    // game thread: hand the newest state to the UI, and wake it once
+    private void publishLatest() {
+        publishPending = false;
+        feed.resync(game, false);
+        // a game that just ended has nothing left to save
+        boolean stale = game.isRunning() ? scheduler.now() - recentGameAt >= SNAPSHOT_INTERVAL_MS : recentGame != null;
+        if (stale) keepSnapshot();
+        latest.set(game.getState());
+        if (!wakePending.getAndSet(true)) mainHandler.post(wakeUi);
+    }
 
-        if (!running) return;
+    // publish the state on the next frame, once however many changes come before it
+    private void scheduleFrame() {
+        if (statePending) return;
+        statePending = true;
+        Choreographer.getInstance().postFrameCallback(publishState);
+    }
 
-        List<Integer> list = activeMoles.getValue() != null ? new ArrayList<>(activeMoles.getValue()) : new ArrayList<>();
+    private void publishState() {
+        statePending = false;
+        if (gameThread == null) {
+            state.setValue(game.getState());
+            return;
+        }
+        // the events sent before this state, and maybe a few after it
+        GameState next = latest.get();
+        feed.deliver(moleListener);
+        state.setValue(next);
+    }
 
-        int targetMoles = 1 + (score.getValue() == null ? 0 : score.getValue() / 10 );
-        targetMoles = Math.min(targetMoles, numHoles);
-        Log.d("WMVM", "targetMoles value set");
+    private void startRecording() {
+        stopRecording();
+        File file = recordingFile;
+        if (file == null) return;
+        try {
+            recording = new SessionWriter(new BackgroundFileStream(file), config, game.getTapGrace());
+            game.setRecorder(recording);
+        } catch (IOException e) {
+            Log.w("WMA", "can't record the game", e); // the stream never throws, but the API can
+        }
+    }
 
-        if (list.size() < targetMoles) {
-            addMole( targetMoles );
+    private void stopRecording() {
+        if (recording == null) return;
+        game.setRecorder(null);
+        try {
+            recording.close();
+        } catch (IOException e) {
+            Log.w("WMA", "recording failed", e);
         }
+        recording = null;
     }
 }
@@ -0,0 +1,56 @@
+package com.example.stopwatchsample;
+
+import java.lang.reflect.Method;
+
+/**
+ * Reads how many bytes the current thread has allocated ( HotSpot only ).
+ * Looked up reflectively since the unit tests compile against android.jar.
+ */
+final class AllocationCounter {
+
+    private static final Object BEAN;
+    private static final Method ALLOCATED;
+
+    static {
+        try {
+            Object bean = Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getThreadMXBean").invoke(null);
+            Method allocated = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getThreadAllocatedBytes", long.class);
+            BEAN = bean;
+            ALLOCATED = allocated;
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private AllocationCounter() {
+    }
+
+    /**
+     * Returns the bytes allocated by the calling thread so far.
+     * @return The allocated byte count.
+     */
+    static long allocatedBytes() {
+        try {
+            return (Long) ALLOCATED.invoke(BEAN, Thread.currentThread().getId());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Runs the task once to warm it up, then again while counting.
+     * The reflective read itself boxes a couple of Longs, so callers
+     * should compare against a small slack rather than exactly 0.
+     *
+     * @param task The work to measure.
+     * @return The bytes allocated by the second run.
+     */
+    static long measure(Runnable task) {
+        task.run();
+        long before = allocatedBytes();
+        task.run();
+        return allocatedBytes() - before;
+    }
+}
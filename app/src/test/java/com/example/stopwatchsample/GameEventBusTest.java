@@ -0,0 +1,131 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.GameEventBus;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class GameEventBusTest {
+
+    // checks that events arrive in order, w/ every field intact
+    private static class InOrder implements GameEventBus.EventHandler {
+        long expected;
+
+        @Override
+        public void onEvent(int type, long time, int hole, int value) {
+            assertEquals(expected % 6, type);
+            assertEquals(expected * 3, time);
+            assertEquals((int) (expected % 64), hole);
+            assertEquals((int) expected, value);
+            expected++;
+        }
+    }
+
+    private static void publish(GameEventBus bus, long n) {
+        bus.publish((int) (n % 6), n * 3, (int) (n % 64), (int) n);
+    }
+
+    @Test
+    public void everyReaderGetsEveryEvent() {
+        GameEventBus bus = new GameEventBus(8);
+        GameEventBus.Reader first = bus.newReader();
+        GameEventBus.Reader second = bus.newReader();
+        InOrder a = new InOrder();
+        InOrder b = new InOrder();
+
+        // wrap around the ring a few times, the second reader a step behind
+        for (long n = 0; n < 40; n++) {
+            publish(bus, n);
+            assertEquals(1, first.drain(a));
+            if (n % 2 == 1) assertEquals(2, second.drain(b));
+        }
+        assertEquals(40, a.expected);
+        assertEquals(40, b.expected);
+        assertEquals(0, first.drain(a));
+        assertEquals(40, second.position());
+    }
+
+    @Test
+    public void slowestReaderHoldsTheProducerBack() {
+        GameEventBus bus = new GameEventBus(4);
+        GameEventBus.Reader fast = bus.newReader();
+        GameEventBus.Reader slow = bus.newReader();
+        InOrder handler = new InOrder();
+
+        for (int n = 0; n < 4; n++) {
+            assertTrue(bus.offer(n % 6, n * 3L, n % 64, n));
+            fast.drain(handler);
+        }
+        assertFalse(bus.offer(4, 12, 4, 4));
+        assertEquals(1, bus.droppedCount());
+
+        // once the slow reader catches up ( or goes away ) there's room again
+        slow.drain(new InOrder());
+        assertTrue(bus.offer(4, 12, 4, 4));
+        slow.close();
+        fast.drain(handler);
+        for (int n = 5; n < 9; n++) {
+            assertTrue(bus.offer(n % 6, n * 3L, n % 64, n));
+        }
+        assertFalse(bus.offer(9, 27, 9, 9));
+    }
+
+    @Test
+    public void lateReaderStartsAtTheCursor() {
+        GameEventBus bus = new GameEventBus(4);
+        // no readers, nothing to wait for
+        for (int n = 0; n < 10; n++) {
+            assertTrue(bus.offer(0, 0, 0, 0));
+        }
+        GameEventBus.Reader reader = bus.newReader();
+        assertEquals(10, reader.position());
+        assertEquals(0, reader.drain(new InOrder()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBeAPowerOfTwo() {
+        new GameEventBus(100);
+    }
+
+    @Test
+    public void readersOnTheirOwnThreadsSeeEveryEventInOrder() throws InterruptedException {
+        // how fast is EventBusBenchmark's business, this only checks what arrives
+        int count = 2_000_000;
+        GameEventBus bus = new GameEventBus(1024);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        InOrder[] handlers = new InOrder[readers.length];
+        for (int r = 0; r < readers.length; r++) {
+            GameEventBus.Reader reader = bus.newReader();
+            InOrder handler = new InOrder();
+            handlers[r] = handler;
+            readers[r] = new Thread(() -> {
+                try {
+                    while (handler.expected < count) {
+                        if (reader.drain(handler) == 0) Thread.yield();
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                } finally {
+                    reader.close();
+                }
+            });
+            readers[r].start();
+        }
+
+        for (long n = 0; n < count; n++) {
+            publish(bus, n);
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        for (InOrder handler : handlers) {
+            assertEquals(count, handler.expected);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.GameStats;
+import com.example.stopwatchsample.game.GameSummary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GameStatsTest {
+
+    @Test
+    public void streakEndsOnAMissOrAnEscape() {
+        GameStats stats = new GameStats();
+        for (int i = 0; i < 3; i++) stats.onHit();
+        stats.onMiss();
+        for (int i = 0; i < 5; i++) stats.onHit();
+        stats.onEscaped();
+        stats.onHit();
+
+        GameSummary summary = stats.summary();
+        assertEquals(9, summary.hits);
+        assertEquals(1, summary.misses);
+        assertEquals(5, summary.longestStreak);
+        assertEquals(0.9f, summary.accuracy(), 1e-6f);
+    }
+
+    @Test
+    public void summaryHasTheTimes() {
+        GameStats stats = new GameStats();
+        long[] reactions = {300, 400, 500, 600, 700};
+        for (long reaction : reactions) {
+            stats.onHit();
+            stats.onWhacked(reaction);
+            stats.onMoleDown(reaction + 20);
+        }
+        stats.onMoleDown(5000);
+
+        GameSummary summary = stats.summary();
+        assertEquals(5, summary.reactions);
+        assertEquals(500, summary.reactionMedian);
+        assertEquals(500, summary.reactionMean);
+        assertEquals(158, summary.reactionStdDev);
+        assertEquals(6, summary.molesDown);
+        // ( 2500 + 100 + 5000 ) / 6, rounded
+        assertEquals(1267, summary.meanLifetime);
+    }
+
+    @Test
+    public void summaryIsKeptUntilSomethingChanges() {
+        GameStats stats = new GameStats();
+        GameSummary empty = stats.summary();
+        assertEquals(0, empty.reactionMedian);
+        assertEquals(0, empty.accuracy(), 0);
+        assertSame(empty, stats.summary());
+
+        stats.onHit();
+        GameSummary one = stats.summary();
+        assertNotSame(empty, one);
+        assertSame(one, stats.summary());
+
+        stats.reset();
+        assertEquals(empty, stats.summary());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.GameConfig;
+import com.example.stopwatchsample.game.GameRandom;
+import com.example.stopwatchsample.game.GameTrace;
+import com.example.stopwatchsample.game.VirtualScheduler;
+import com.example.stopwatchsample.game.WhackmoleGame;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class GameTraceTest {
+
+    // a few boxed Longs from the reflective counter, nothing per operation
+    private static final long SLACK_BYTES = 1024;
+
+    @Test
+    public void keepsTheLatestEventsAndCountsThemAll() throws IOException {
+        GameTrace trace = new GameTrace(4);
+        for (int i = 0; i < 10; i++) {
+            trace.record(GameTrace.SPAWN, i, i, 100);
+        }
+        trace.record(GameTrace.HIT, 10, 9, 1);
+
+        assertEquals(4, trace.size());
+        assertEquals(10, trace.count(GameTrace.SPAWN));
+        assertEquals(1, trace.count(GameTrace.HIT));
+
+        StringBuilder out = new StringBuilder();
+        trace.dump(out);
+        String[] lines = out.toString().split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].contains("spawn=10"));
+        assertEquals("7 spawn 7 100", lines[1]);
+        assertEquals("10 hit 9 1", lines[4]);
+    }
+
+    @Test
+    public void gameRecordsItsEvents() {
+        VirtualScheduler time = new VirtualScheduler();
+        GameTrace trace = new GameTrace(256);
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time, new GameRandom(2),
+                new WhackmoleGame.Listener() {
+                    @Override
+                    public void onScoreChanged(int score) {
+                    }
+
+                    @Override
+                    public void onLivesChanged(int lives) {
+                    }
+
+                    @Override
+                    public void onMolesChanged() {
+                    }
+                });
+        game.setTrace(trace);
+
+        game.start();
+        time.advanceBy(100);
+        int mole = game.getMoles().nextActive(0);
+        game.hitHole((mole + 1) % 9); // miss
+        game.hitHole(mole);
+        time.advanceBy(60_000); // let every life time out
+
+        assertEquals(1, trace.count(GameTrace.START));
+        assertEquals(1, trace.count(GameTrace.HIT));
+        assertEquals(1, trace.count(GameTrace.MISS));
+        assertEquals(3, trace.count(GameTrace.TIMEOUT));
+        assertEquals(1, trace.count(GameTrace.STOP));
+        assertEquals(game.getWakeups(), trace.count(GameTrace.WAKEUP));
+        assertEquals(4, trace.count(GameTrace.SPAWN));
+    }
+
+    @Test
+    public void recordingDoesNotAllocate() {
+        final GameTrace trace = new GameTrace(1024);
+        long allocated = AllocationCounter.measure(() -> {
+            for (int i = 0; i < 100_000; i++) {
+                trace.record(i % 7, i, i & 63, i);
+            }
+        });
+        assertTrue("allocated " + allocated + " bytes", allocated < SLACK_BYTES);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.HoleTimerWheel;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HoleTimerWheelTest {
+
+    // a few boxed Longs from the reflective counter, nothing per operation
+    private static final long SLACK_BYTES = 1024;
+
+    @Test
+    public void expiresInDeadlineOrder() {
+        HoleTimerWheel wheel = new HoleTimerWheel(4, 5000);
+        wheel.start(1000);
+        wheel.arm(0, 4000);
+        wheel.arm(1, 1500);
+        wheel.arm(2, 9000); // more than one span ahead
+        wheel.arm(3, 2500);
+        assertEquals(1500, wheel.nextDeadline());
+
+        final StringBuilder order = new StringBuilder();
+        wheel.advance(4000, (hole, deadline) -> order.append(hole).append('@').append(deadline).append(' '));
+        assertEquals("1@1500 3@2500 0@4000 ", order.toString());
+        assertEquals(9000, wheel.nextDeadline());
+        assertEquals(9000, wheel.deadline(2));
+
+        wheel.advance(8999, (hole, deadline) -> fail("expired early"));
+        wheel.advance(9000, (hole, deadline) -> order.append(hole));
+        assertEquals(0, wheel.armedCount());
+        assertTrue(order.toString().endsWith("2"));
+    }
+
+    @Test
+    public void cancelledTimersNeverFire() {
+        HoleTimerWheel wheel = new HoleTimerWheel(3, 5000);
+        wheel.arm(0, 100);
+        wheel.arm(1, 100);
+        wheel.arm(2, 100);
+        assertTrue(wheel.cancel(1));
+        assertFalse(wheel.cancel(1));
+        assertEquals(HoleTimerWheel.NOT_ARMED, wheel.deadline(1));
+
+        final int[] fired = new int[3];
+        wheel.advance(200, (hole, deadline) -> fired[hole]++);
+        assertArrayEquals(new int[]{1, 0, 1}, fired);
+    }
+
+    @Test
+    public void armCancelExpireDoNotAllocate() {
+        final HoleTimerWheel wheel = new HoleTimerWheel(64, 5000);
+        final HoleTimerWheel.ExpiryListener rearm = (hole, deadline) -> wheel.arm(hole, deadline + 700);
+        final long[] now = {0};
+        long allocated = AllocationCounter.measure(() -> {
+            for (int i = 0; i < 100_000; i++) {
+                int hole = i & 63;
+                wheel.arm(hole, now[0] + 1 + (i % 4000));
+                if ((i & 3) == 0) wheel.cancel(hole);
+                now[0] += 3;
+                wheel.advance(now[0], rearm);
+            }
+        });
+        assertTrue("allocated " + allocated + " bytes", allocated < SLACK_BYTES);
+    }
+}
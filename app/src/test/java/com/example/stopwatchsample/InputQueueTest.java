@@ -0,0 +1,80 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.InputQueue;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InputQueueTest {
+
+    @Test
+    public void entriesComeOutInOrder() {
+        InputQueue queue = new InputQueue(4);
+        assertFalse(queue.poll());
+
+        // wrap around the ring a few times
+        for (int round = 0; round < 5; round++) {
+            assertTrue(queue.offer(round, round * 10L));
+            assertTrue(queue.offer(-1, round * 10L + 1));
+            assertEquals(2, queue.size());
+
+            assertTrue(queue.poll());
+            assertEquals(round, queue.code());
+            assertEquals(round * 10L, queue.value());
+            assertTrue(queue.poll());
+            assertEquals(-1, queue.code());
+            assertEquals(round * 10L + 1, queue.value());
+            assertFalse(queue.poll());
+        }
+    }
+
+    @Test
+    public void fullQueueDropsNewEntries() {
+        InputQueue queue = new InputQueue(2);
+        assertTrue(queue.offer(1, 0));
+        assertTrue(queue.offer(2, 0));
+        assertFalse(queue.offer(3, 0));
+
+        assertTrue(queue.poll());
+        assertEquals(1, queue.code());
+        assertTrue(queue.offer(4, 0));
+        assertTrue(queue.poll());
+        assertEquals(2, queue.code());
+        assertTrue(queue.poll());
+        assertEquals(4, queue.code());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBeAPowerOfTwo() {
+        new InputQueue(6);
+    }
+
+    @Test
+    public void handsEntriesBetweenThreads() throws InterruptedException {
+        int count = 1_000_000;
+        InputQueue queue = new InputQueue(64);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!queue.offer(i, i * 3L)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        // every entry arrives once, in order, w/ its value
+        int expected = 0;
+        while (expected < count) {
+            if (!queue.poll()) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(expected, queue.code());
+            assertEquals(expected * 3L, queue.value());
+            expected++;
+        }
+        producer.join();
+        assertEquals(0, queue.size());
+    }
+}
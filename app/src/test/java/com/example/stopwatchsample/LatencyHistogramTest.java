@@ -0,0 +1,72 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.LatencyHistogram;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    // a few boxed Longs from the reflective counter, nothing per operation
+    private static final long SLACK_BYTES = 1024;
+
+    @Test
+    public void bucketsCoverEveryValueOnce() {
+        LatencyHistogram histogram = new LatencyHistogram(1L << 30);
+        long expectedLow = 0;
+        for (int i = 0; i < histogram.bucketCount(); i++) {
+            assertEquals(expectedLow, LatencyHistogram.bucketLow(i));
+            assertTrue(LatencyHistogram.bucketHigh(i) >= LatencyHistogram.bucketLow(i));
+            expectedLow = LatencyHistogram.bucketHigh(i) + 1;
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram(10_000_000);
+        for (int v = 1; v <= 100_000; v++) {
+            histogram.record(v);
+        }
+        assertEquals(100_000, histogram.count());
+        assertEquals(50_000, histogram.percentile(50), 50_000 * 0.03);
+        assertEquals(95_000, histogram.percentile(95), 95_000 * 0.03);
+        assertEquals(99_000, histogram.percentile(99), 99_000 * 0.03);
+        assertEquals(100_000, histogram.percentile(100));
+        assertEquals(50_000.5, histogram.mean(), 1e-9);
+        assertEquals(1, histogram.min());
+    }
+
+    @Test
+    public void outOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        histogram.record(-5);
+        histogram.record(1_000_000);
+        assertEquals(0, histogram.min());
+        assertEquals(1000, histogram.max());
+    }
+
+    @Test
+    public void csvListsOnlyUsedBuckets() throws IOException {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        histogram.record(3);
+        histogram.record(3);
+        histogram.record(500);
+        StringBuilder out = new StringBuilder();
+        histogram.writeCsv("tap", out);
+        assertEquals("tap,3,3,2\ntap,496,503,1\n", out.toString());
+    }
+
+    @Test
+    public void recordingDoesNotAllocate() {
+        final LatencyHistogram histogram = new LatencyHistogram(60_000_000);
+        long allocated = AllocationCounter.measure(() -> {
+            for (int i = 0; i < 100_000; i++) {
+                histogram.record(i * 997L);
+            }
+        });
+        assertTrue("allocated " + allocated + " bytes", allocated < SLACK_BYTES);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.ScoreBatch;
+import com.example.stopwatchsample.game.ScoreOutbox;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A leaderboard server on localhost, for the upload tests: takes POSTed
+ * ScoreBatches over keep-alive HTTP/1.1 and stores each ( install id,
+ * sequence ) once. It can be told to fail requests or to drop the
+ * connection after storing a batch, as a flaky network would.
+ * Plain sockets, since the unit tests compile against android.jar.
+ */
+final class LeaderboardStandIn implements Closeable {
+
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final List<Socket> sockets = new ArrayList<>();
+
+    // guarded by this
+    private final Set<String> stored = new HashSet<>();
+    private final List<Integer> scores = new ArrayList<>();
+    private int requests;
+    private int batches;
+    private int duplicates;
+    private int failNext;
+    private int dropNext;
+
+    LeaderboardStandIn() throws IOException {
+        server = new ServerSocket(0, 16, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::accept, "leaderboard-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    URL url() throws IOException {
+        return new URL("http", server.getInetAddress().getHostAddress(), server.getLocalPort(), "/scores");
+    }
+
+    /** Answers the next count requests w/ a 503, w/o storing anything. */
+    synchronized void failNext(int count) {
+        failNext = count;
+    }
+
+    /** Stores the next count batches, then hangs up instead of answering. */
+    synchronized void dropNext(int count) {
+        dropNext = count;
+    }
+
+    /** Every request, answered or not. */
+    synchronized int requests() {
+        return requests;
+    }
+
+    /** Batches that were stored and answered w/ a 200. */
+    synchronized int batches() {
+        return batches;
+    }
+
+    /** Games that were sent again after being stored. */
+    synchronized int duplicates() {
+        return duplicates;
+    }
+
+    /** Games stored, each once. */
+    synchronized int stored() {
+        return stored.size();
+    }
+
+    /** The scores stored, in arrival order. */
+    synchronized List<Integer> scores() {
+        return new ArrayList<>(scores);
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        synchronized (sockets) {
+            for (Socket socket : sockets) socket.close();
+        }
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                synchronized (sockets) {
+                    sockets.add(socket);
+                }
+                Thread handler = new Thread(() -> serve(socket), "leaderboard-conn");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return; // closed
+            }
+        }
+    }
+
+    // one connection, any number of requests on it
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            OutputStream out = s.getOutputStream();
+            while (true) {
+                String requestLine = readLine(in);
+                if (requestLine == null || requestLine.isEmpty()) return;
+                int length = 0;
+                boolean close = false;
+                for (String header = readLine(in); header != null && !header.isEmpty(); header = readLine(in)) {
+                    String lower = header.toLowerCase(Locale.ROOT);
+                    if (lower.startsWith("content-length:")) {
+                        length = Integer.parseInt(lower.substring(15).trim());
+                    } else if (lower.startsWith("connection:") && lower.contains("close")) {
+                        close = true;
+                    }
+                }
+                byte[] body = new byte[length];
+                in.readFully(body);
+                int status = handle(requestLine, body);
+                if (status < 0) return; // hang up w/o answering
+                respond(out, status);
+                if (close) return;
+            }
+        } catch (IOException e) {
+            // the client went away
+        }
+    }
+
+    // returns the status to answer, or -1 to drop the connection
+    private synchronized int handle(String requestLine, byte[] body) {
+        requests++;
+        if (!requestLine.startsWith("POST ")) return 405;
+        if (failNext > 0) {
+            failNext--;
+            return 503;
+        }
+        ScoreBatch batch;
+        try {
+            batch = ScoreBatch.decode(body);
+        } catch (IOException e) {
+            return 400;
+        }
+        for (ScoreOutbox.Entry entry : batch.entries) {
+            if (stored.add(batch.installId + ":" + entry.sequence)) {
+                scores.add(entry.game.score);
+            } else {
+                duplicates++;
+            }
+        }
+        if (dropNext > 0) {
+            dropNext--;
+            return -1;
+        }
+        batches++;
+        return 200;
+    }
+
+    private static void respond(OutputStream out, int status) throws IOException {
+        String response = "HTTP/1.1 " + status + " " + (status == 200 ? "OK" : "Error") + "\r\n"
+                + "Content-Length: 0\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b < 0) return line.size() == 0 ? null : line.toString("US-ASCII");
+            if (b != '\r') line.write(b);
+        }
+        return line.toString("US-ASCII");
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.stopwatchsample;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MoleAnimationsTest {
+
+    // a few boxed Longs from the reflective counter, nothing per operation
+    private static final long SLACK_BYTES = 1024;
+
+    @Test
+    public void popRunsForTheFullDuration() {
+        MoleAnimations animations = new MoleAnimations(4);
+        animations.animate(2, true, 1000);
+        assertTrue(animations.isShown(2));
+
+        assertTrue(animations.step(1050, null));
+        assertEquals(0.5f, animations.progress(2), 1e-6);
+        assertFalse(animations.step(1000 + MoleAnimations.DURATION, null));
+        assertEquals(1f, animations.progress(2), 0);
+        assertEquals(0, animations.movingCount());
+    }
+
+    @Test
+    public void hitMidPopReversesFromTheCurrentPosition() {
+        MoleAnimations animations = new MoleAnimations(4);
+        animations.animate(0, true, 0);
+        animations.step(30, null);
+        assertEquals(0.3f, animations.progress(0), 1e-6);
+
+        animations.animate(0, false, 30);
+        assertEquals(1, animations.movingCount());
+        animations.step(45, null);
+        assertEquals(0.15f, animations.progress(0), 1e-6);
+        // going back down only takes as long as it took to come up
+        assertFalse(animations.step(60, null));
+        assertEquals(0f, animations.progress(0), 0);
+    }
+
+    @Test
+    public void onlyMovingHolesAreReported() {
+        MoleAnimations animations = new MoleAnimations(64);
+        animations.animate(7, true, 0);
+        animations.animate(40, true, 50);
+        final int[] reported = new int[64];
+        animations.step(120, (index, progress) -> reported[index]++);
+        animations.step(140, (index, progress) -> reported[index]++);
+
+        assertEquals(1, reported[7]);
+        assertEquals(2, reported[40]);
+        assertEquals(1, animations.movingCount());
+    }
+
+    @Test
+    public void hitStormDoesNotAllocate() {
+        final MoleAnimations animations = new MoleAnimations(64);
+        final float[] sink = new float[1];
+        final MoleAnimations.ProgressListener listener = (index, progress) -> sink[0] += progress;
+        final long[] now = {0};
+        long allocated = AllocationCounter.measure(() -> {
+            for (int i = 0; i < 100_000; i++) {
+                int hole = (i * 31) & 63;
+                // pop, then hit it a few ms later while it's still rising
+                animations.animate(hole, true, now[0]);
+                now[0] += 4;
+                animations.step(now[0], listener);
+                animations.animate(hole, false, now[0]);
+                animations.step(now[0], listener);
+            }
+        });
+        assertTrue("allocated " + allocated + " bytes", allocated < SLACK_BYTES);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.GameConfig;
+import com.example.stopwatchsample.game.MoleBoard;
+import com.example.stopwatchsample.game.MoleSnapshot;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MoleBoardTest {
+
+    // a few boxed Longs from the reflective counter, nothing per operation
+    private static final long SLACK_BYTES = 1024;
+
+    @Test
+    public void setClearAndSnapshot() {
+        MoleBoard board = new MoleBoard(9);
+        assertTrue(board.set(4));
+        assertFalse(board.set(4));
+        assertTrue(board.set(8));
+        assertEquals(2, board.count());
+
+        MoleSnapshot snapshot = board.snapshot();
+        assertTrue(board.clear(4));
+        assertFalse(board.clear(4));
+
+        // the snapshot must not see later changes
+        assertTrue(snapshot.contains(4));
+        assertEquals(2, snapshot.size());
+        assertEquals(4, snapshot.nextActive(0));
+        assertEquals(8, snapshot.nextActive(5));
+        assertEquals(-1, snapshot.nextActive(9));
+    }
+
+    @Test
+    public void emptyHolesAreExactlyTheFreeOnes() {
+        MoleBoard board = new MoleBoard(70);
+        for (int i = 0; i < 70; i += 2) {
+            board.set(i);
+        }
+        board.clear(10);
+        assertEquals(34, board.count());
+        assertEquals(36, board.emptyCount());
+
+        boolean[] seen = new boolean[70];
+        for (int n = 0; n < board.emptyCount(); n++) {
+            int hole = board.emptyHole(n);
+            assertFalse(board.contains(hole));
+            assertFalse(seen[hole]);
+            seen[hole] = true;
+        }
+        assertTrue(seen[10]);
+    }
+
+    @Test
+    public void emptyHolesStayExactOnANearlyFullBoard() {
+        // its cost at each occupancy is GameBenchmark.spawn
+        int holes = GameConfig.MAX_GRID_SIZE * GameConfig.MAX_GRID_SIZE;
+        MoleBoard board = new MoleBoard(holes);
+        Random rand = new Random(11);
+        while (board.count() < holes * 95 / 100) {
+            int hole = board.emptyHole(rand.nextInt(board.emptyCount()));
+            assertTrue(board.set(hole));
+            // and a few moles leave, as they do in a game
+            if (rand.nextInt(4) == 0) {
+                int mole = board.nextActive(rand.nextInt(holes));
+                if (mole >= 0) assertTrue(board.clear(mole));
+            }
+        }
+
+        boolean[] seen = new boolean[holes];
+        for (int n = 0; n < board.emptyCount(); n++) {
+            int hole = board.emptyHole(n);
+            assertFalse(board.contains(hole));
+            assertFalse(seen[hole]);
+            seen[hole] = true;
+        }
+        for (int i = 0; i < holes; i++) {
+            assertEquals("hole " + i, !board.contains(i), seen[i]);
+        }
+    }
+
+    @Test
+    public void hitSpawnTimeoutDoNotAllocate() {
+        final MoleBoard board = new MoleBoard(9);
+        long allocated = AllocationCounter.measure(() -> {
+            for (int i = 0; i < 100_000; i++) {
+                // spawn
+                int idx = board.emptyHole(i % board.emptyCount());
+                board.set(idx);
+                // hit or timeout
+                if (board.contains(idx)) board.clear(idx);
+            }
+        });
+        assertTrue("allocated " + allocated + " bytes", allocated < SLACK_BYTES);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.GameConfig;
+import com.example.stopwatchsample.game.GameRandom;
+import com.example.stopwatchsample.game.HideReason;
+import com.example.stopwatchsample.game.MoleType;
+import com.example.stopwatchsample.game.VirtualScheduler;
+import com.example.stopwatchsample.game.WhackmoleGame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MoleFeedTest {
+
+    // the game's side: sends every mole event, as the view model does on the game thread
+    private static class Sender implements WhackmoleGame.Listener {
+        final MoleFeed feed;
+
+        Sender(MoleFeed feed) {
+            this.feed = feed;
+        }
+
+        @Override
+        public void onScoreChanged(int score) {
+        }
+
+        @Override
+        public void onLivesChanged(int lives) {
+        }
+
+        @Override
+        public void onMolesChanged() {
+        }
+
+        @Override
+        public void onMoleShown(int index, long deadline, MoleType type) {
+            feed.moleShown(index, type);
+        }
+
+        @Override
+        public void onMoleHidden(int index, HideReason reason) {
+            feed.moleHidden(index, reason);
+        }
+    }
+
+    // the renderer's side: the moles it shows, and every event in order
+    private static class Renderer implements WhackmoleViewModel.MoleListener {
+        final boolean[] up;
+        final List<String> events = new ArrayList<>();
+
+        Renderer(int numHoles) {
+            up = new boolean[numHoles];
+        }
+
+        @Override
+        public void onMoleShown(int index, long deadline, MoleType type) {
+            up[index] = true;
+            events.add("shown " + index + " " + type);
+        }
+
+        @Override
+        public void onMoleHidden(int index, HideReason reason) {
+            up[index] = false;
+            events.add("hidden " + index + " " + reason);
+        }
+
+        @Override
+        public void onTapHit(int index, long tapTime) {
+            events.add("hit " + index + " at " + tapTime);
+        }
+    }
+
+    @Test
+    public void hideReasonsArriveAsTheGameSawThem() {
+        GameConfig decoys = GameConfig.defaults().withMoleWeights(0, 0, 0, 1);
+        MoleFeed feed = new MoleFeed(64, decoys.numHoles);
+        VirtualScheduler time = new VirtualScheduler();
+        Sender sender = new Sender(feed);
+        WhackmoleGame game = new WhackmoleGame(decoys, time, time, new GameRandom(8), sender);
+        Renderer renderer = new Renderer(decoys.numHoles);
+
+        game.start();
+        time.advanceBy(1);
+        int decoy = game.getMoles().nextActive(0);
+        // whacking a decoy scores nothing and costs a life, but it's still a hit
+        assertTrue(game.hitHole(decoy, time.now()));
+        feed.tapHit(decoy, time.now());
+        time.advanceBy(decoys.moleDur * 3);
+        // the hit and the timeouts after it reach the renderer in one go
+        feed.deliver(renderer);
+
+        List<String> events = renderer.events;
+        assertEquals("shown " + decoy + " DECOY", events.get(0));
+        assertEquals("hidden " + decoy + " HIT", events.get(1));
+        assertTrue(events.indexOf("hit " + decoy + " at 1") > 1);
+        int timeouts = 0;
+        for (String event : events.subList(2, events.size())) {
+            if (!event.startsWith("hidden")) continue;
+            assertTrue(event, event.endsWith(" TIMEOUT"));
+            timeouts++;
+        }
+        assertTrue(events.toString(), timeouts > 0);
+    }
+
+    @Test
+    public void droppedEventsAreMadeUpByAResync() {
+        GameConfig config = new GameConfig(16, 3, 5000, 1000, 1.0, 10, 5);
+        MoleFeed feed = new MoleFeed(8, config.numHoles);
+        VirtualScheduler time = new VirtualScheduler();
+        Sender sender = new Sender(feed);
+        WhackmoleGame game = new WhackmoleGame(config, time, time, new GameRandom(11), sender);
+        Renderer renderer = new Renderer(config.numHoles);
+
+        game.start();
+        // far more events than the feed holds, w/ nobody draining it
+        for (int i = 0; i < 40; i++) {
+            time.advanceBy(100);
+            int mole = game.getMoles().nextActive(0);
+            if (mole >= 0) game.hitHole(mole, time.now());
+        }
+        feed.deliver(renderer);
+        feed.resync(game, false);
+        feed.deliver(renderer);
+
+        for (int i = 0; i < config.numHoles; i++) {
+            assertEquals("hole " + i, game.getMoles().contains(i), renderer.up[i]);
+        }
+        // and it's back to plain events
+        for (int i = 0; i < 20; i++) {
+            time.advanceBy(100);
+            feed.deliver(renderer);
+        }
+        for (int i = 0; i < config.numHoles; i++) {
+            assertEquals("hole " + i, game.getMoles().contains(i), renderer.up[i]);
+        }
+    }
+
+    @Test
+    public void newListenerSeesTheMolesAlreadyShown() {
+        GameConfig config = GameConfig.defaults();
+        MoleFeed feed = new MoleFeed(64, config.numHoles);
+        VirtualScheduler time = new VirtualScheduler();
+        Sender sender = new Sender(feed);
+        WhackmoleGame game = new WhackmoleGame(config, time, time, new GameRandom(2), sender);
+
+        game.start();
+        time.advanceBy(1500);
+        // delivered while the screen was being recreated
+        feed.deliver(null);
+        Renderer renderer = new Renderer(config.numHoles);
+        feed.replay(renderer);
+
+        assertTrue(game.getMoles().size() > 0);
+        for (int i = 0; i < config.numHoles; i++) {
+            assertEquals("hole " + i, game.getMoles().contains(i), renderer.up[i]);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.P2Quantile;
+import com.example.stopwatchsample.game.RunningStats;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class P2QuantileTest {
+
+    @Test
+    public void fewSamplesAreExact() {
+        P2Quantile median = new P2Quantile(0.5);
+        assertTrue(Double.isNaN(median.get()));
+        median.add(30);
+        assertEquals(30, median.get(), 0);
+        median.add(10);
+        median.add(20);
+        assertEquals(20, median.get(), 0);
+    }
+
+    @Test
+    public void tracksQuantilesOfSkewedData() {
+        // log-normal, like reaction times
+        Random random = new Random(7);
+        int count = 100_000;
+        double[] samples = new double[count];
+        P2Quantile median = new P2Quantile(0.5);
+        P2Quantile p90 = new P2Quantile(0.9);
+        for (int i = 0; i < count; i++) {
+            samples[i] = 450 * Math.exp(0.35 * random.nextGaussian());
+            median.add(samples[i]);
+            p90.add(samples[i]);
+        }
+        Arrays.sort(samples);
+
+        assertEquals(count, median.count());
+        assertEquals(samples[count / 2], median.get(), samples[count / 2] * 0.01);
+        assertEquals(samples[count * 9 / 10], p90.get(), samples[count * 9 / 10] * 0.01);
+    }
+
+    @Test
+    public void sortedInputDoesNotThrowItOff() {
+        P2Quantile median = new P2Quantile(0.5);
+        for (int i = 1; i <= 10_001; i++) {
+            median.add(i);
+        }
+        assertEquals(5001, median.get(), 50);
+
+        median.reset();
+        assertTrue(Double.isNaN(median.get()));
+    }
+
+    @Test
+    public void runningStatsMatchTwoPasses() {
+        Random random = new Random(3);
+        double[] samples = new double[10_000];
+        RunningStats stats = new RunningStats();
+        for (int i = 0; i < samples.length; i++) {
+            // a large offset, where a naive sum of squares loses its digits
+            samples[i] = 1e9 + random.nextGaussian() * 20;
+            stats.add(samples[i]);
+        }
+
+        double mean = 0;
+        for (double x : samples) mean += x / samples.length;
+        double squares = 0;
+        for (double x : samples) squares += (x - mean) * (x - mean);
+
+        assertEquals(mean, stats.mean(), 1e-4);
+        assertEquals(squares / (samples.length - 1), stats.variance(), 1e-3);
+        assertEquals(0, new RunningStats().stdDev(), 0);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.GameRecord;
+import com.example.stopwatchsample.game.ScoreLog;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ScoreLogTest {
+
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("scores", ".bin");
+        file.delete();
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static GameRecord game(int score, long timestamp) {
+        return new GameRecord(score, score * 1000L, score, 2, timestamp);
+    }
+
+    @Test
+    public void recordsSurviveReopening() throws IOException {
+        File file = tempFile();
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            log.append(game(5, 1));
+            log.append(game(12, 2));
+        }
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            assertEquals(2, log.size());
+            List<GameRecord> all = log.readAll();
+            assertEquals(game(5, 1), all.get(0));
+            assertEquals(game(12, 2), all.get(1));
+            assertEquals(12, log.bestScore());
+        }
+    }
+
+    @Test
+    public void ranksAndTopFollowAppends() throws IOException {
+        try (ScoreLog log = new ScoreLog(tempFile(), 3)) {
+            assertEquals(0, log.bestScore());
+            assertEquals(1, log.rank(0));
+
+            int[] scores = {7, 3, 9, 9, 1, 4};
+            for (int i = 0; i < scores.length; i++) {
+                log.append(game(scores[i], i));
+            }
+            assertEquals(1, log.rank(9));
+            assertEquals(3, log.rank(7));
+            assertEquals(6, log.rank(1));
+            assertEquals(1, log.rank(100));
+
+            List<GameRecord> top = log.top();
+            assertEquals(3, top.size());
+            assertEquals(game(9, 2), top.get(0)); // ties: oldest first
+            assertEquals(game(9, 3), top.get(1));
+            assertEquals(game(7, 0), top.get(2));
+        }
+    }
+
+    @Test
+    public void indexMatchesAFreshRebuild() throws IOException {
+        File file = tempFile();
+        Random random = new Random(42);
+        try (ScoreLog log = new ScoreLog(file, 10)) {
+            log.bestScore(); // build the index up front, so it's updated by every append
+            for (int i = 0; i < 20_000; i++) {
+                log.append(game(random.nextInt(500), i));
+            }
+            try (ScoreLog fresh = new ScoreLog(file, 10)) {
+                assertEquals(fresh.top(), log.top());
+                for (int score = 0; score < 500; score += 37) {
+                    assertEquals(fresh.rank(score), log.rank(score));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void truncatedRecordIsDropped() throws IOException {
+        File file = tempFile();
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            log.append(game(5, 1));
+            log.append(game(6, 2));
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 3);
+        }
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            assertEquals(1, log.size());
+            log.append(game(8, 3));
+        }
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            assertEquals(2, log.size());
+            assertEquals(8, log.bestScore());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFilesAreRejected() throws IOException {
+        File file = tempFile();
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.writeLong(1234);
+        }
+        new ScoreLog(file, 3).close();
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.GameRecord;
+import com.example.stopwatchsample.game.ScoreBatch;
+import com.example.stopwatchsample.game.ScoreOutbox;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ScoreOutboxTest {
+
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("outbox", ".bin");
+        file.delete();
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static GameRecord game(int score) {
+        return new GameRecord(score, score * 1000L, score, 1, 100L + score);
+    }
+
+    @Test
+    public void pendingGamesSurviveReopening() throws IOException {
+        File file = tempFile();
+        long installId;
+        try (ScoreOutbox outbox = new ScoreOutbox(file)) {
+            installId = outbox.installId();
+            assertEquals(1, outbox.append(game(4)));
+            assertEquals(2, outbox.append(game(9)));
+            assertEquals(3, outbox.append(game(1)));
+            outbox.acknowledge(1);
+        }
+        try (ScoreOutbox outbox = new ScoreOutbox(file)) {
+            assertEquals(installId, outbox.installId());
+            assertEquals(2, outbox.pending());
+            List<ScoreOutbox.Entry> entries = outbox.peek(10);
+            assertEquals(2, entries.size());
+            assertEquals(2, entries.get(0).sequence);
+            assertEquals(game(9), entries.get(0).game);
+            assertEquals(3, entries.get(1).sequence);
+            assertEquals(4, outbox.append(game(6)));
+        }
+    }
+
+    @Test
+    public void peekIsBoundedAndAcknowledgeMovesOn() throws IOException {
+        try (ScoreOutbox outbox = new ScoreOutbox(tempFile())) {
+            for (int i = 0; i < 7; i++) {
+                outbox.append(game(i));
+            }
+            List<ScoreOutbox.Entry> first = outbox.peek(3);
+            assertEquals(3, first.size());
+            assertEquals(1, first.get(0).sequence);
+            outbox.acknowledge(first.get(2).sequence);
+            outbox.acknowledge(2); // late, changes nothing
+            assertEquals(4, outbox.pending());
+            assertEquals(4, outbox.peek(3).get(0).sequence);
+        }
+    }
+
+    @Test
+    public void fullyAcknowledgedOutboxShrinksButKeepsCounting() throws IOException {
+        File file = tempFile();
+        try (ScoreOutbox outbox = new ScoreOutbox(file)) {
+            long headerOnly = file.length();
+            for (int i = 0; i < 5; i++) {
+                outbox.append(game(i));
+            }
+            outbox.acknowledge(5);
+            assertEquals(0, outbox.pending());
+            assertTrue(outbox.peek(10).isEmpty());
+            assertEquals(headerOnly, file.length());
+            assertEquals(6, outbox.append(game(8)));
+        }
+        try (ScoreOutbox outbox = new ScoreOutbox(file)) {
+            // sequences are never reused, or the server would take new games for old ones
+            assertEquals(6, outbox.peek(10).get(0).sequence);
+            assertEquals(7, outbox.append(game(2)));
+        }
+    }
+
+    @Test
+    public void recordCutShortIsDropped() throws IOException {
+        File file = tempFile();
+        try (ScoreOutbox outbox = new ScoreOutbox(file)) {
+            outbox.append(game(3));
+            outbox.append(game(5));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 7);
+        }
+        try (ScoreOutbox outbox = new ScoreOutbox(file)) {
+            assertEquals(1, outbox.pending());
+            assertEquals(game(3), outbox.peek(10).get(0).game);
+            assertEquals(2, outbox.append(game(7)));
+            assertEquals(game(7), outbox.peek(10).get(1).game);
+        }
+    }
+
+    @Test
+    public void secondOpenIsRefused() throws IOException {
+        File file = tempFile();
+        try (ScoreOutbox outbox = new ScoreOutbox(file)) {
+            outbox.append(game(1));
+            try {
+                new ScoreOutbox(file).close();
+                fail("opened an outbox twice");
+            } catch (IOException expected) {
+                // the first one still owns the file
+            }
+            assertEquals(2, outbox.append(game(2)));
+        }
+        try (ScoreOutbox outbox = new ScoreOutbox(file)) {
+            assertEquals(2, outbox.pending());
+        }
+    }
+
+    @Test
+    public void batchRoundTrips() throws IOException {
+        try (ScoreOutbox outbox = new ScoreOutbox(tempFile())) {
+            for (int i = 0; i < 250; i++) {
+                outbox.append(game(i % 40));
+            }
+            List<ScoreOutbox.Entry> entries = outbox.peek(250);
+            byte[] body = new ScoreBatch(outbox.installId(), entries).encode();
+            // runs of similar games compress well
+            assertTrue(body.length < 250 * ScoreOutbox.RECORD_BYTES / 2);
+
+            ScoreBatch batch = ScoreBatch.decode(body);
+            assertEquals(outbox.installId(), batch.installId);
+            assertEquals(250, batch.lastSequence());
+            for (int i = 0; i < 250; i++) {
+                assertEquals(entries.get(i).sequence, batch.entries.get(i).sequence);
+                assertEquals(entries.get(i).game, batch.entries.get(i).game);
+            }
+        }
+    }
+}
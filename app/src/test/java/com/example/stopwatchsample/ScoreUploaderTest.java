@@ -0,0 +1,186 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.GameRecord;
+import com.example.stopwatchsample.game.HttpScoreTransport;
+import com.example.stopwatchsample.game.ScoreOutbox;
+import com.example.stopwatchsample.game.ScoreUploader;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class ScoreUploaderTest {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("outbox", ".bin");
+        file.delete();
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static GameRecord game(int score) {
+        return new GameRecord(score, 30_000L, score, 3, 1_000L + score);
+    }
+
+    private static ScoreUploader uploader(File file, LeaderboardStandIn server, long baseDelayMillis)
+            throws IOException {
+        return new ScoreUploader(file, new HttpScoreTransport(server.url(), 5_000),
+                baseDelayMillis, baseDelayMillis * 8);
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end) fail("timed out waiting for " + what);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void gamesGoOutInBatchesInOrder() throws Exception {
+        try (LeaderboardStandIn server = new LeaderboardStandIn()) {
+            ScoreUploader uploader = uploader(tempFile(), server, 20);
+            for (int i = 0; i < 250; i++) {
+                uploader.submit(game(i));
+            }
+            await("250 games", () -> server.stored() == 250);
+            await("an empty outbox", () -> uploader.getPending() == 0);
+            uploader.close();
+
+            // back to back submissions share requests, and no request is over MAX_BATCH
+            assertTrue(server.batches() >= 3);
+            assertTrue(server.batches() < 250);
+            assertEquals(0, server.duplicates());
+            List<Integer> scores = server.scores();
+            for (int i = 0; i < 250; i++) {
+                assertEquals(i, (int) scores.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void failedFlushIsRetriedWithBackoff() throws Exception {
+        try (LeaderboardStandIn server = new LeaderboardStandIn()) {
+            server.failNext(3);
+            ScoreUploader uploader = uploader(tempFile(), server, 20);
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < 5; i++) {
+                uploader.submit(game(i));
+            }
+            await("5 games", () -> server.stored() == 5);
+            long took = System.currentTimeMillis() - start;
+            uploader.close();
+
+            assertEquals(3, uploader.getFailedAttempts());
+            assertEquals(4, server.requests());
+            assertEquals(0, server.duplicates());
+            // waited at least half of 20 + 40 + 80 ms
+            assertTrue("retried after " + took + " ms", took >= 70);
+        }
+    }
+
+    @Test
+    public void lostReplyIsResentWithoutDoubleCounting() throws Exception {
+        try (LeaderboardStandIn server = new LeaderboardStandIn()) {
+            server.dropNext(1);
+            ScoreUploader uploader = uploader(tempFile(), server, 20);
+            for (int i = 0; i < 10; i++) {
+                uploader.submit(game(i));
+            }
+            await("an empty outbox", () -> uploader.getPending() == 0);
+            uploader.close();
+
+            assertEquals(10, server.stored());
+            assertTrue(server.duplicates() > 0);
+            assertTrue(uploader.getFailedAttempts() >= 1);
+        }
+    }
+
+    @Test
+    public void offlineGamesAreCoalesced() throws Exception {
+        try (LeaderboardStandIn server = new LeaderboardStandIn()) {
+            server.failNext(1);
+            ScoreUploader uploader = uploader(tempFile(), server, 500);
+            uploader.submit(game(0));
+            await("the first failure", () -> uploader.getFailedAttempts() == 1);
+            // the retry is at least 250 ms off, everything submitted until then waits for it
+            for (int i = 1; i <= 30; i++) {
+                uploader.submit(game(i));
+            }
+            await("31 games", () -> server.stored() == 31);
+            uploader.close();
+
+            assertEquals(2, server.requests());
+            assertEquals(1, server.batches());
+        }
+    }
+
+    @Test
+    public void outboxOutlivesTheUploader() throws Exception {
+        File file = tempFile();
+        try (LeaderboardStandIn server = new LeaderboardStandIn()) {
+            server.failNext(Integer.MAX_VALUE);
+            ScoreUploader offline = uploader(file, server, 10_000);
+            for (int i = 0; i < 12; i++) {
+                offline.submit(game(i));
+            }
+            await("the first failure", () -> offline.getFailedAttempts() == 1);
+            offline.close();
+
+            server.failNext(0);
+            ScoreUploader online = uploader(file, server, 20);
+            online.flushPending();
+            await("12 games", () -> server.stored() == 12);
+            online.close();
+            assertEquals(0, server.duplicates());
+        }
+    }
+
+    @Test
+    public void throughputOverLoopback() throws Exception {
+        int games = 5_000;
+        try (LeaderboardStandIn server = new LeaderboardStandIn()) {
+            ScoreUploader uploader = uploader(tempFile(), server, 20);
+            long start = System.nanoTime();
+            for (int i = 0; i < games; i++) {
+                uploader.submit(game(i % 200));
+            }
+            await(games + " games", () -> server.stored() == games);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            uploader.close();
+
+            // every game is an fsync'd append, but batching keeps requests well under one per game
+            assertTrue(server.requests() < games / 2);
+            assertTrue("took " + millis + " ms", millis < TIMEOUT_MS);
+        }
+    }
+
+    @Test
+    public void uploadersBackToBackShareOneOutbox() throws IOException {
+        // as when the screen is recreated: one owner closes, the next opens the same file
+        File file = tempFile();
+        int score = 0;
+        for (int owner = 0; owner < 2; owner++) {
+            ScoreUploader uploader = new ScoreUploader(file, body -> 503, 60_000, 60_000);
+            for (int i = 0; i < 25; i++) {
+                uploader.submit(game(score++));
+            }
+            uploader.close();
+        }
+        try (ScoreOutbox outbox = new ScoreOutbox(file)) {
+            List<ScoreOutbox.Entry> entries = outbox.peek(100);
+            assertEquals(50, entries.size());
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i + 1, entries.get(i).sequence);
+                assertEquals(game(i), entries.get(i).game);
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.GameConfig;
+import com.example.stopwatchsample.game.GameRandom;
+import com.example.stopwatchsample.game.GameRecorder;
+import com.example.stopwatchsample.game.MoleSnapshot;
+import com.example.stopwatchsample.game.Scheduler;
+import com.example.stopwatchsample.game.SessionReader;
+import com.example.stopwatchsample.game.SessionReplay;
+import com.example.stopwatchsample.game.SessionWriter;
+import com.example.stopwatchsample.game.VirtualScheduler;
+import com.example.stopwatchsample.game.WhackmoleGame;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SessionReplayTest {
+
+    // nothing to do here, the bots read the board from the game
+    private static class Quiet implements WhackmoleGame.Listener {
+        @Override
+        public void onScoreChanged(int score) {
+        }
+
+        @Override
+        public void onLivesChanged(int lives) {
+        }
+
+        @Override
+        public void onMolesChanged() {
+        }
+    }
+
+    // wakes the game up to 20 ms late, like a busy main thread
+    private static class LateScheduler implements Scheduler {
+        private final Scheduler inner;
+        private final Random jitter = new Random(99);
+
+        LateScheduler(Scheduler inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public void postDelayed(Runnable task, long delayMillis) {
+            inner.postDelayed(task, delayMillis + jitter.nextInt(20));
+        }
+
+        @Override
+        public void removeCallbacks(Runnable task) {
+            inner.removeCallbacks(task);
+        }
+
+        @Override
+        public void removeAll() {
+            inner.removeAll();
+        }
+    }
+
+    // plays games w/ a sloppy bot, recording them all; returns the recording
+    private static byte[] record(GameConfig config, long seed, int games, long maxMillis) throws IOException {
+        VirtualScheduler time = new VirtualScheduler(1_000_000);
+        Quiet quiet = new Quiet();
+        WhackmoleGame game = new WhackmoleGame(config, time, new LateScheduler(time), new GameRandom(seed), quiet);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SessionWriter writer = new SessionWriter(out, config);
+        game.setRecorder(writer);
+
+        Random bot = new Random(seed);
+        for (int g = 0; g < games; g++) {
+            long end = time.now() + maxMillis;
+            game.start();
+            while (game.isRunning() && time.now() < end) {
+                time.advanceBy(50 + bot.nextInt(200));
+                MoleSnapshot moles = game.getMoles();
+                for (int i = moles.nextActive(0); i >= 0; i = moles.nextActive(i + 1)) {
+                    if (bot.nextInt(10) < 8) game.hitHole(i);
+                }
+                if (bot.nextInt(4) == 0) game.hitHole(bot.nextInt(config.numHoles)); // a miss, mostly
+            }
+            game.stop();
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void replayMatchesTheRecordedGames() throws IOException {
+        GameConfig config = GameConfig.defaults();
+        byte[] recording = record(config, 5, 3, 120_000);
+
+        SessionReplay.Result result = SessionReplay.run(new ByteArrayInputStream(recording));
+        assertTrue(result.mismatch, result.matches());
+        assertTrue(result.events > 100);
+    }
+
+    @Test
+    public void moleMixReplays() throws IOException {
+        GameConfig config = GameConfig.forGrid(4).withMoleWeights(5, 2, 2, 1);
+        byte[] recording = record(config, 17, 3, 120_000);
+
+        SessionReplay.Result result = SessionReplay.run(new ByteArrayInputStream(recording));
+        assertTrue(result.mismatch, result.matches());
+        assertTrue(result.events > 100);
+    }
+
+    @Test
+    public void replayEndsWhereTheGameEnded() throws IOException {
+        GameConfig config = GameConfig.forGrid(4);
+        VirtualScheduler time = new VirtualScheduler();
+        Quiet quiet = new Quiet();
+        WhackmoleGame game = new WhackmoleGame(config, time, time, new GameRandom(17), quiet);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SessionWriter writer = new SessionWriter(out, config);
+        game.setRecorder(writer);
+
+        game.start();
+        for (int step = 0; step < 40 && game.isRunning(); step++) {
+            time.advanceBy(700);
+            int mole = game.getMoles().nextActive(0);
+            if (mole >= 0 && step % 3 != 0) game.hitHole(mole);
+        }
+        writer.close();
+
+        SessionReplay.Result result = SessionReplay.run(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(result.mismatch, result.matches());
+        assertEquals(game.getScore(), result.score);
+        assertEquals(game.getLives(), result.lives);
+    }
+
+    @Test
+    public void pausedGameReplays() throws IOException {
+        GameConfig config = GameConfig.defaults();
+        VirtualScheduler time = new VirtualScheduler();
+        Quiet quiet = new Quiet();
+        WhackmoleGame game = new WhackmoleGame(config, time, time, new GameRandom(23), quiet);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SessionWriter writer = new SessionWriter(out, config);
+        game.setRecorder(writer);
+
+        game.start();
+        for (int step = 0; step < 60 && game.isRunning(); step++) {
+            time.advanceBy(450);
+            int mole = game.getMoles().nextActive(0);
+            if (mole >= 0 && step % 4 != 0) game.hitHole(mole);
+            if (step % 7 == 3) {
+                game.pause();
+                time.advanceBy(30_000);
+                game.resume();
+            }
+        }
+        writer.close();
+
+        SessionReplay.Result result = SessionReplay.run(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(result.mismatch, result.matches());
+        assertEquals(game.getScore(), result.score);
+        assertEquals(game.getLives(), result.lives);
+    }
+
+    @Test
+    public void lateDeliveredTapsReplay() throws IOException {
+        GameConfig config = GameConfig.defaults();
+        VirtualScheduler time = new VirtualScheduler();
+        Quiet quiet = new Quiet();
+        WhackmoleGame game = new WhackmoleGame(config, time, time, new GameRandom(29), quiet);
+        game.setTapGrace(48);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SessionWriter writer = new SessionWriter(out, config, game.getTapGrace());
+        game.setRecorder(writer);
+
+        // taps are delivered 40 ms after they land, some after the mole's deadline
+        Random bot = new Random(29);
+        game.start();
+        for (int step = 0; step < 200 && game.isRunning(); step++) {
+            time.advanceBy(40 + bot.nextInt(400));
+            int mole = game.getMoles().nextActive(0);
+            if (mole >= 0 && bot.nextInt(3) != 0) game.hitHole(mole, time.now() - 40);
+        }
+        writer.close();
+
+        SessionReplay.Result result = SessionReplay.run(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(result.mismatch, result.matches());
+        assertEquals(game.getScore(), result.score);
+        assertEquals(game.getLives(), result.lives);
+    }
+
+    @Test
+    public void changedOutcomeIsCaught() throws IOException {
+        GameConfig config = GameConfig.defaults();
+        byte[] recording = record(config, 8, 1, 60_000);
+
+        // copy the recording, moving the third spawn's deadline by 1 ms
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SessionReader reader = new SessionReader(new ByteArrayInputStream(recording));
+             SessionWriter writer = new SessionWriter(out, reader.config(), reader.tapGrace())) {
+            int spawns = 0;
+            while (reader.next()) {
+                long value = reader.value();
+                if (reader.type() == GameRecorder.SPAWN && ++spawns == 3) value++;
+                writer.record(reader.type(), reader.time(), reader.hole(), value);
+            }
+        }
+
+        SessionReplay.Result result = SessionReplay.run(new ByteArrayInputStream(out.toByteArray()));
+        assertFalse(result.matches());
+    }
+
+    @Test
+    public void cutOffRecordingStillReplays() throws IOException {
+        byte[] recording = record(GameConfig.defaults(), 3, 1, 60_000);
+        // the app died mid-write: drop the tail, leaving half an event
+        byte[] cut = Arrays.copyOf(recording, recording.length * 2 / 3);
+
+        SessionReplay.Result result = SessionReplay.run(new ByteArrayInputStream(cut));
+        assertTrue(result.mismatch == null || result.mismatch.startsWith("recording ended"));
+    }
+
+    @Test
+    public void longSessionIsWrittenAsItGoes() throws IOException {
+        // no speed-up, so the bot lasts the whole ten minutes
+        GameConfig steady = new GameConfig(9, 3, 5000, 1000, 1.0, 10, 5);
+        VirtualScheduler time = new VirtualScheduler();
+        Quiet quiet = new Quiet();
+        WhackmoleGame game = new WhackmoleGame(steady, time, time, new GameRandom(1), quiet);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SessionWriter writer = new SessionWriter(out, steady);
+        game.setRecorder(writer);
+
+        game.start();
+        int sizeAfterOneMinute = -1;
+        while (time.now() < 10 * 60 * 1000) {
+            time.advanceBy(100);
+            MoleSnapshot moles = game.getMoles();
+            for (int i = moles.nextActive(0); i >= 0; i = moles.nextActive(i + 1)) {
+                game.hitHole(i);
+            }
+            if (sizeAfterOneMinute < 0 && time.now() >= 60_000) sizeAfterOneMinute = out.size();
+        }
+        assertTrue(game.isRunning());
+        assertTrue("nothing written after a minute", sizeAfterOneMinute > 0);
+        writer.close();
+
+        SessionReplay.Result result = SessionReplay.run(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(result.mismatch, result.matches());
+        // taps, hits, spawns and wake-ups at a few bytes each
+        double bytesPerEvent = (double) out.size() / result.events;
+        assertTrue(bytesPerEvent + " bytes per event", bytesPerEvent < 6);
+    }
+
+    @Test
+    public void randomStateRestoresTheSequence() {
+        GameRandom random = new GameRandom(123);
+        random.nextInt(10);
+        long state = random.getState();
+        int[] first = new int[20];
+        for (int i = 0; i < first.length; i++) first[i] = random.nextInt(1000);
+
+        random.setState(state);
+        for (int i = 0; i < first.length; i++) assertEquals(first[i], random.nextInt(1000));
+        assertEquals(new GameRandom(5).nextLong(), new GameRandom(5).nextLong());
+    }
+
+    @Test(expected = IOException.class)
+    public void otherStreamsAreRejected() throws IOException {
+        SessionReplay.run(new ByteArrayInputStream(new byte[]{'W', 'M', 'S', 'L', 1}));
+    }
+}
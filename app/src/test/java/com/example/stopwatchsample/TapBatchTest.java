@@ -0,0 +1,36 @@
+package com.example.stopwatchsample;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TapBatchTest {
+
+    @Test
+    public void keepsTapsInOrderUpToItsCapacity() {
+        TapBatch taps = new TapBatch(2);
+        assertTrue(taps.add(4, 100));
+        assertTrue(taps.add(7, 101));
+        assertFalse(taps.add(1, 102));
+
+        assertEquals(2, taps.size());
+        assertEquals(4, taps.hole(0));
+        assertEquals(101, taps.time(1));
+        taps.setHit(1, true);
+        assertFalse(taps.isHit(0));
+        assertTrue(taps.isHit(1));
+    }
+
+    @Test
+    public void clearStartsAFreshBatch() {
+        TapBatch taps = new TapBatch(2);
+        taps.add(3, 10);
+        taps.setHit(0, true);
+        taps.clear();
+
+        assertEquals(0, taps.size());
+        assertTrue(taps.add(5, 20));
+        assertEquals(5, taps.hole(0));
+        assertFalse(taps.isHit(0));
+    }
+}
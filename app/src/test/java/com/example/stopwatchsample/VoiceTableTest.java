@@ -0,0 +1,61 @@
+package com.example.stopwatchsample;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VoiceTableTest {
+
+    @Test
+    public void freeVoicesAreUsedFirst() {
+        VoiceTable voices = new VoiceTable(3, 1);
+        for (int hole = 0; hole < 3; hole++) {
+            int voice = voices.pick(hole);
+            assertEquals(VoiceTable.FREE, voices.stream(voice));
+            voices.start(voice, hole, 10 + hole, 1000);
+        }
+    }
+
+    @Test
+    public void oldestVoiceIsStolenWhenFull() {
+        VoiceTable voices = new VoiceTable(3, 1);
+        voices.start(voices.pick(0), 0, 10, 1000);
+        voices.start(voices.pick(1), 1, 11, 1000);
+        voices.start(voices.pick(2), 2, 12, 1000);
+
+        int voice = voices.pick(5);
+        assertEquals(10, voices.stream(voice));
+        voices.start(voice, 5, 13, 1000);
+        assertEquals(11, voices.stream(voices.pick(6)));
+    }
+
+    @Test
+    public void holeLimitStealsThatHolesOldest() {
+        VoiceTable voices = new VoiceTable(4, 2);
+        voices.start(voices.pick(7), 7, 10, 1000);
+        voices.start(voices.pick(3), 3, 11, 1000);
+        voices.start(voices.pick(7), 7, 12, 1000);
+
+        // hole 7 is at its limit, even though a voice is free
+        int voice = voices.pick(7);
+        assertEquals(10, voices.stream(voice));
+        assertEquals(7, voices.hole(voice));
+        voices.start(voice, 7, 13, 1000);
+        assertEquals(12, voices.stream(voices.pick(7)));
+    }
+
+    @Test
+    public void dueVoicesAreFoundByStopTime() {
+        VoiceTable voices = new VoiceTable(3, 1);
+        voices.start(voices.pick(0), 0, 10, 500);
+        voices.start(voices.pick(1), 1, 11, 300);
+        assertEquals(300, voices.nextStopAt());
+        assertEquals(-1, voices.due(299));
+
+        int voice = voices.due(300);
+        assertEquals(11, voices.stream(voice));
+        voices.free(voice);
+        assertEquals(-1, voices.due(300));
+        assertEquals(500, voices.nextStopAt());
+    }
+}
@@ -0,0 +1,692 @@
+package com.example.stopwatchsample;
+
+import com.example.stopwatchsample.game.GameConfig;
+import com.example.stopwatchsample.game.GameRandom;
+import com.example.stopwatchsample.game.GameState;
+import com.example.stopwatchsample.game.GameSummary;
+import com.example.stopwatchsample.game.HideReason;
+import com.example.stopwatchsample.game.HoleTimerWheel;
+import com.example.stopwatchsample.game.MoleSnapshot;
+import com.example.stopwatchsample.game.MoleType;
+import com.example.stopwatchsample.game.SpawnPacer;
+import com.example.stopwatchsample.game.VirtualScheduler;
+import com.example.stopwatchsample.game.WhackmoleGame;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class WhackmoleGameTest {
+
+    private static final long TEN_MINUTES = 10 * 60 * 1000;
+    private static final long SLACK_BYTES = 1024;
+
+    // records the last state the game reported, and how often the moles changed
+    private static class Recorder implements WhackmoleGame.Listener {
+        int score;
+        int lives;
+        int moleChanges;
+
+        @Override
+        public void onScoreChanged(int score) {
+            this.score = score;
+        }
+
+        @Override
+        public void onLivesChanged(int lives) {
+            this.lives = lives;
+        }
+
+        @Override
+        public void onMolesChanged() {
+            moleChanges++;
+        }
+    }
+
+    @Test
+    public void tenMinuteGameRunsInVirtualTime() {
+        // no speed-up per level, so a quick enough player can last forever
+        GameConfig steady = new GameConfig(9, 3, 5000, 1000, 1.0, 10, 5);
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(steady, time, time, new GameRandom(42), state);
+
+        long wallStart = System.nanoTime();
+        game.start();
+        // a player that checks the board every 100 ms and whacks every mole
+        while (game.isRunning() && time.now() < TEN_MINUTES) {
+            time.advanceBy(100);
+            MoleSnapshot moles = game.getMoles();
+            for (int i = moles.nextActive(0); i >= 0; i = moles.nextActive(i + 1)) {
+                game.hitHole(i);
+            }
+        }
+        long wallMillis = (System.nanoTime() - wallStart) / 1_000_000;
+
+        assertTrue("game ended early at " + time.now(), game.isRunning());
+        assertEquals(TEN_MINUTES, game.getElapsedMillis());
+        assertTrue(state.score > 500);
+        assertEquals(3, state.lives);
+        assertEquals(game.getScore(), state.score);
+        assertTrue("took " + wallMillis + " ms", wallMillis < 5000);
+    }
+
+    @Test
+    public void idlePlayerLosesEveryLife() {
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time,
+                new GameRandom(7), state);
+
+        game.start();
+        time.advanceBy(60_000);
+
+        assertFalse(game.isRunning());
+        assertEquals(0, state.lives);
+        assertEquals(0, game.getMoles().size());
+        // one mole at a time, each times out after 5 s
+        assertEquals(3 * GameConfig.defaults().moleDur, game.getElapsedMillis(), 10);
+    }
+
+    @Test
+    public void hittingAnEmptyHoleDoesNothing() {
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time,
+                new GameRandom(1), state);
+
+        game.start();
+        time.advanceBy(1);
+        int mole = game.getMoles().nextActive(0);
+        game.hitHole((mole + 1) % 9);
+
+        assertEquals(0, state.score);
+        assertTrue(game.getMoles().contains(mole));
+    }
+
+    @Test
+    public void stateAfterAHitHasEveryChange() {
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time,
+                new GameRandom(11), state);
+
+        game.start();
+        time.advanceBy(1);
+        int mole = game.getMoles().nextActive(0);
+        game.hitHole(mole);
+
+        // score, the whacked mole and its replacement, all in one snapshot
+        GameState after = game.getState();
+        assertEquals(1, after.score);
+        assertEquals(3, after.lives);
+        assertEquals(1, after.moles.size());
+        assertTrue(after.running);
+        assertFalse(after.isOver());
+
+        time.advanceBy(60_000);
+        assertTrue(game.getState().isOver());
+        assertFalse(game.getState().running);
+    }
+
+    @Test
+    public void pausedGamePostsNothing() {
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time,
+                new GameRandom(13), state);
+
+        game.start();
+        time.advanceBy(1000);
+        int mole = game.getMoles().nextActive(0);
+        long left = game.getMoleDeadline(mole) - time.now();
+        long elapsed = game.getElapsedMillis();
+        long wakeups = game.getWakeups();
+
+        game.pause();
+        assertTrue(game.isPaused());
+        assertEquals(0, time.pendingCount());
+        // a long time in the background: no wake-ups, no lost lives, no game time
+        time.advanceBy(10 * 60 * 1000);
+        assertEquals(wakeups, game.getWakeups());
+        assertEquals(3, state.lives);
+        assertEquals(elapsed, game.getElapsedMillis());
+        assertFalse(game.hitHole(mole));
+        assertTrue(game.getMoles().contains(mole));
+
+        game.resume();
+        assertFalse(game.isPaused());
+        assertEquals(1, time.pendingCount());
+        assertEquals(time.now() + left, game.getMoleDeadline(mole));
+
+        // and the mole times out exactly when it had left to
+        time.advanceBy(left - 1);
+        assertEquals(3, state.lives);
+        time.advanceBy(1);
+        assertEquals(2, state.lives);
+    }
+
+    @Test
+    public void pausesDontChangeTheGame() {
+        // the same game w/ and w/o pauses, an idle player either way
+        VirtualScheduler plainTime = new VirtualScheduler();
+        WhackmoleGame plain = new WhackmoleGame(GameConfig.defaults(), plainTime, plainTime,
+                new GameRandom(21), new Recorder());
+        VirtualScheduler pausedTime = new VirtualScheduler();
+        WhackmoleGame paused = new WhackmoleGame(GameConfig.defaults(), pausedTime, pausedTime,
+                new GameRandom(21), new Recorder());
+
+        plain.start();
+        plainTime.advanceBy(60_000);
+        paused.start();
+        for (int i = 0; i < 20 && paused.isRunning(); i++) {
+            pausedTime.advanceBy(777);
+            paused.pause();
+            pausedTime.advanceBy(5000);
+            paused.resume();
+        }
+        pausedTime.advanceBy(60_000);
+
+        assertFalse(paused.isRunning());
+        assertEquals(plain.getElapsedMillis(), paused.getElapsedMillis());
+        assertEquals(plain.getWakeups(), paused.getWakeups());
+    }
+
+    @Test
+    public void tapsAreJudgedByWhenTheyLanded() {
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time,
+                new GameRandom(31), state);
+        game.setTapGrace(48);
+
+        game.start();
+        time.advanceBy(1);
+        int mole = game.getMoles().nextActive(0);
+        long deadline = game.getMoleDeadline(mole);
+
+        // past the deadline, but the timeout waits for taps still on their way
+        time.advanceTo(deadline + 30);
+        assertTrue(game.getMoles().contains(mole));
+        assertEquals(3, state.lives);
+        // one that landed at the deadline is too late, one from just before it counts
+        assertFalse(game.hitHole(mole, deadline));
+        assertTrue(game.hitHole(mole, deadline - 1));
+        assertEquals(1, state.score);
+        assertEquals(3, state.lives);
+    }
+
+    @Test
+    public void lateTapsCostALifeAfterTheGrace() {
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time,
+                new GameRandom(31), state);
+        game.setTapGrace(48);
+
+        game.start();
+        time.advanceBy(1);
+        int mole = game.getMoles().nextActive(0);
+        long spawned = time.now();
+        long deadline = game.getMoleDeadline(mole);
+
+        // a tap from before the mole popped up doesn't whack it
+        time.advanceBy(100);
+        assertFalse(game.hitHole(mole, spawned - 1));
+        assertEquals(1, game.getMisses());
+
+        time.advanceTo(deadline + 47);
+        assertEquals(3, state.lives);
+        time.advanceTo(deadline + 48);
+        assertEquals(2, state.lives);
+        assertFalse(game.hitHole(mole, deadline - 1));
+    }
+
+    @Test
+    public void moleDeadlineIsQueryable() {
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time,
+                new GameRandom(3), state);
+
+        game.start();
+        time.advanceBy(1);
+        int mole = game.getMoles().nextActive(0);
+        assertEquals(time.now() + GameConfig.defaults().moleDur, game.getMoleDeadline(mole));
+
+        time.advanceBy(10);
+        game.hitHole(mole);
+        // the replacement mole may land in the same hole
+        long expected = game.getMoles().contains(mole)
+                ? time.now() + GameConfig.defaults().moleDur : HoleTimerWheel.NOT_ARMED;
+        assertEquals(expected, game.getMoleDeadline(mole));
+    }
+
+    @Test
+    public void idleLevelZeroOnlyWakesForDeadlines() {
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time,
+                new GameRandom(5), state);
+
+        game.start();
+        time.advanceBy(12_000);
+
+        // first spawn, then one tick per timeout ( which also spawns the next mole )
+        assertTrue(game.isRunning());
+        assertEquals(3, game.getWakeups());
+        assertTrue(game.getWakeupsPerSecond() < 1);
+    }
+
+    @Test
+    public void fastLevelsAreCappedAtOneSpawnPerFrame() {
+        // spawn delay shrinks to 0 after a few points, mole durations never shrink
+        GameConfig fast = new GameConfig(64, 3, 5000, 1000, 0.1, 1, Integer.MAX_VALUE);
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(fast, time, time, new GameRandom(9), state);
+
+        game.start();
+        // whack everything every 50 ms, so the board always wants more moles
+        while (game.isRunning() && time.now() < 60_000) {
+            time.advanceBy(50);
+            MoleSnapshot moles = game.getMoles();
+            for (int i = moles.nextActive(0); i >= 0; i = moles.nextActive(i + 1)) {
+                game.hitHole(i);
+            }
+        }
+
+        assertTrue(game.isRunning());
+        assertTrue(state.score > 1000);
+        double framesPerSecond = 1000.0 / SpawnPacer.FRAME_MILLIS;
+        // paced spawns, plus at most one early tick per round of hits ( 20 / s )
+        assertTrue("wakeups/s " + game.getWakeupsPerSecond(),
+                game.getWakeupsPerSecond() <= framesPerSecond + 20);
+    }
+
+    @Test
+    public void deltaEventsTrackTheBoard() {
+        final boolean[] up = new boolean[9];
+        final int[] hidden = new int[HideReason.values().length];
+        final WhackmoleGame[] games = new WhackmoleGame[1];
+        Recorder state = new Recorder() {
+            @Override
+            public void onMoleShown(int index, long deadline, MoleType type) {
+                assertFalse(up[index]);
+                up[index] = true;
+            }
+
+            @Override
+            public void onMoleHidden(int index, HideReason reason) {
+                assertTrue(up[index]);
+                up[index] = false;
+                hidden[reason.ordinal()]++;
+            }
+
+            @Override
+            public void onMolesChanged() {
+                super.onMolesChanged();
+                MoleSnapshot moles = games[0].getMoles();
+                for (int i = 0; i < up.length; i++) {
+                    assertEquals(up[i], moles.contains(i));
+                }
+            }
+        };
+        VirtualScheduler time = new VirtualScheduler();
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time,
+                new GameRandom(13), state);
+        games[0] = game;
+
+        game.start();
+        for (int round = 0; round < 40; round++) {
+            time.advanceBy(700);
+            // whack every other mole, let the rest time out
+            int idx = game.getMoles().nextActive(0);
+            if (idx >= 0 && round % 2 == 0) game.hitHole(idx);
+        }
+        game.stop();
+
+        assertTrue(hidden[HideReason.HIT.ordinal()] > 0);
+        assertTrue(hidden[HideReason.TIMEOUT.ordinal()] > 0);
+        for (boolean moleUp : up) {
+            assertFalse(moleUp);
+        }
+    }
+
+    @Test
+    public void toughMoleTakesThreeHits() {
+        GameConfig tough = GameConfig.defaults().withMoleWeights(0, 1, 0, 0);
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(tough, time, time, new GameRandom(3), state);
+
+        game.start();
+        time.advanceBy(1);
+        int mole = game.getMoles().nextActive(0);
+        assertEquals(MoleType.TOUGH, game.getMoleType(mole));
+        assertEquals(MoleType.TOUGH, game.getState().moleType(mole));
+        // stays up half again as long as a normal one
+        assertEquals(tough.moleDur * 3 / 2, game.getMoleDeadline(mole), 1);
+
+        assertTrue(game.hitHole(mole));
+        assertTrue(game.hitHole(mole));
+        assertTrue(game.getMoles().contains(mole));
+        assertEquals(0, state.score);
+        assertTrue(game.hitHole(mole));
+        assertFalse(game.getMoles().contains(mole));
+        assertEquals(MoleType.TOUGH.points, state.score);
+        assertEquals(3, game.getHits());
+    }
+
+    @Test
+    public void toughMoleHitIsReportedBeforeItGoesDown() {
+        GameConfig tough = GameConfig.defaults().withMoleWeights(0, 1, 0, 0);
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(tough, time, time, new GameRandom(3), state);
+
+        game.start();
+        time.advanceBy(1);
+        int mole = game.getMoles().nextActive(0);
+        int before = state.moleChanges;
+        assertTrue(game.hitHole(mole));
+
+        // a listener that republishes on changes sees the hit
+        assertEquals(before + 1, state.moleChanges);
+        GameState s = game.getState();
+        assertEquals(1, s.hits);
+        assertEquals(0, s.score);
+        assertTrue(s.moles.contains(mole));
+        assertEquals(MoleType.TOUGH, s.moleType(mole));
+    }
+
+    @Test
+    public void bonusMoleEscapesForFree() {
+        GameConfig bonus = GameConfig.defaults().withMoleWeights(0, 0, 1, 0);
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(bonus, time, time, new GameRandom(5), state);
+
+        game.start();
+        time.advanceBy(1);
+        game.hitHole(game.getMoles().nextActive(0));
+        assertEquals(MoleType.BONUS.points, state.score);
+
+        // gone in half the time, and nobody minds
+        time.advanceBy(bonus.moleDur / 2);
+        assertEquals(3, game.getLives());
+        time.advanceBy(60_000);
+        assertTrue(game.isRunning());
+        assertEquals(3, game.getLives());
+    }
+
+    @Test
+    public void decoyCostsALifeOnlyWhenHit() {
+        GameConfig decoys = GameConfig.defaults().withMoleWeights(0, 0, 0, 1);
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(decoys, time, time, new GameRandom(8), state);
+
+        game.start();
+        time.advanceBy(60_000);
+        assertEquals(3, game.getLives());
+
+        assertTrue(game.hitHole(game.getMoles().nextActive(0)));
+        assertEquals(2, state.lives);
+        assertEquals(0, state.score);
+        assertEquals(0, game.getHits());
+        assertEquals(1, game.getMisses());
+    }
+
+    @Test
+    public void moleTypesFollowTheWeights() {
+        // no speed-up and a big board, so the bot keeps up and decoys left standing don't fill it
+        GameConfig mix = new GameConfig(64, 3, 5000, 1000, 1.0, 10, 5).withMoleWeights(6, 2, 1, 1);
+        final int[] shown = new int[MoleType.count()];
+        Recorder state = new Recorder() {
+            @Override
+            public void onMoleShown(int index, long deadline, MoleType type) {
+                shown[type.ordinal()]++;
+            }
+        };
+        VirtualScheduler time = new VirtualScheduler();
+        WhackmoleGame game = new WhackmoleGame(mix, time, time, new GameRandom(21), state);
+
+        game.start();
+        // whack everything but decoys, so the game goes on
+        int total = 0;
+        while (game.isRunning() && total < 10_000) {
+            time.advanceBy(50);
+            MoleSnapshot moles = game.getMoles();
+            for (int i = moles.nextActive(0); i >= 0; i = moles.nextActive(i + 1)) {
+                if (game.getMoleType(i) != MoleType.DECOY) game.hitHole(i);
+            }
+            total = 0;
+            for (int count : shown) total += count;
+        }
+
+        assertTrue("game ended after " + total + " moles", game.isRunning());
+        for (MoleType type : MoleType.values()) {
+            double expected = (double) mix.moleWeight(type) / mix.totalMoleWeight();
+            assertEquals(type.name(), expected, (double) shown[type.ordinal()] / total, 0.02);
+        }
+    }
+
+
+    @Test
+    public void summaryTracksReactionsAndLifetimes() {
+        final long[] shownAt = new long[1];
+        final VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder() {
+            @Override
+            public void onMoleShown(int index, long deadline, MoleType type) {
+                shownAt[0] = time.now();
+            }
+        };
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time, new GameRandom(2), state);
+
+        game.start();
+        time.advanceBy(400);
+        // the tap landed 250 ms after the mole popped up, and was applied later
+        long spawned = shownAt[0];
+        assertTrue(game.hitHole(game.getMoles().nextActive(0), spawned + 250));
+        game.hitHole((game.getMoles().nextActive(0) + 1) % 9);
+        // the next mole gets away
+        time.advanceBy(GameConfig.defaults().moleDur + 100);
+
+        GameSummary summary = game.getState().summary;
+        assertEquals(1, summary.reactions);
+        assertEquals(250, summary.reactionMedian);
+        assertEquals(1, summary.hits);
+        assertEquals(1, summary.misses);
+        assertEquals(1, summary.longestStreak);
+        assertEquals(2, summary.molesDown);
+        assertEquals((400 - spawned + GameConfig.defaults().moleDur) / 2, summary.meanLifetime, 1);
+    }
+
+    // one step of a deterministic player: leaves decoys alone, whacks most other moles,
+    // taps a few empty holes
+    private static void play(WhackmoleGame game, VirtualScheduler time, int step) {
+        time.advanceBy(120);
+        MoleSnapshot moles = game.getMoles();
+        for (int i = moles.nextActive(0); i >= 0; i = moles.nextActive(i + 1)) {
+            if (game.getMoleType(i) != MoleType.DECOY && (i + step) % 4 != 0) game.hitHole(i);
+        }
+        if (step % 5 == 0) game.hitHole(step * 7 % game.getConfig().numHoles);
+    }
+
+    private static void assertSameGame(WhackmoleGame expected, VirtualScheduler expectedTime,
+                                       WhackmoleGame actual, VirtualScheduler actualTime) {
+        GameState a = expected.getState();
+        GameState b = actual.getState();
+        assertEquals(a.running, b.running);
+        assertEquals(a.score, b.score);
+        assertEquals(a.lives, b.lives);
+        assertEquals(a.elapsedMillis, b.elapsedMillis);
+        assertEquals(a.summary, b.summary);
+        assertEquals(a.moles.size(), b.moles.size());
+        for (int i = a.moles.nextActive(0); i >= 0; i = a.moles.nextActive(i + 1)) {
+            assertTrue("hole " + i, b.moles.contains(i));
+            assertEquals(expected.getMoleType(i), actual.getMoleType(i));
+            assertEquals(expected.getMoleDeadline(i) - expectedTime.now(),
+                    actual.getMoleDeadline(i) - actualTime.now());
+        }
+    }
+
+    @Test
+    public void restoredGamePicksUpExactlyWhereItWasSaved() {
+        // an 8x8 board keeps its hole order, and no speed-up per level, so the player lasts
+        GameConfig mix = new GameConfig(64, 3, 5000, 1000, 1.0, 10, 5, new int[]{80, 8, 6, 6});
+        VirtualScheduler time = new VirtualScheduler();
+        WhackmoleGame game = new WhackmoleGame(mix, time, time, new GameRandom(77), new Recorder());
+        game.setTapGrace(48);
+        game.start();
+        int step = 0;
+        while (step < 150) {
+            play(game, time, step++);
+        }
+        assertTrue(game.isRunning());
+        game.pause();
+        byte[] snapshot = game.saveState();
+        assertTrue(snapshot.length + " bytes for " + game.getMoles().size() + " moles",
+                snapshot.length < 300 + 64 + 6 * game.getMoles().size());
+
+        // a new process: another clock, a fresh random generator
+        VirtualScheduler restoredTime = new VirtualScheduler(1_000_000);
+        Recorder restoredState = new Recorder();
+        WhackmoleGame restored = new WhackmoleGame(mix, restoredTime, restoredTime, new GameRandom(1),
+                restoredState);
+        restored.setTapGrace(48);
+        restored.restoreState(snapshot);
+        assertTrue(restored.isPaused());
+        assertEquals(game.getScore(), restoredState.score);
+        assertEquals(game.getLives(), restoredState.lives);
+        assertEquals(0, restoredTime.pendingCount());
+
+        time.advanceBy(5000);
+        game.resume();
+        restored.resume();
+        assertSameGame(game, time, restored, restoredTime);
+        // the same spawns, hits and timeouts from here on
+        while (game.isRunning() && step < 600) {
+            play(game, time, step);
+            play(restored, restoredTime, step++);
+            assertSameGame(game, time, restored, restoredTime);
+        }
+    }
+
+    @Test
+    public void largeBoardSnapshotStaysSmall() {
+        GameConfig large = new GameConfig(GameConfig.MAX_GRID_SIZE * GameConfig.MAX_GRID_SIZE, 3, 5000, 1000, 1.0,
+                10, 5, new int[]{80, 8, 6, 6});
+        VirtualScheduler time = new VirtualScheduler();
+        WhackmoleGame game = new WhackmoleGame(large, time, time, new GameRandom(3), new Recorder());
+        game.start();
+        for (int step = 0; step < 200 && game.isRunning(); step++) {
+            play(game, time, step);
+        }
+        assertTrue(game.isRunning());
+        byte[] snapshot = game.saveState();
+        assertTrue(snapshot.length + " bytes for " + game.getMoles().size() + " moles", snapshot.length < 400);
+
+        VirtualScheduler restoredTime = new VirtualScheduler(50);
+        WhackmoleGame restored = new WhackmoleGame(large, restoredTime, restoredTime, new GameRandom(4),
+                new Recorder());
+        restored.restoreState(snapshot);
+        restored.resume();
+        assertSameGame(game, time, restored, restoredTime);
+    }
+
+    @Test
+    public void badSnapshotsAreRejected() {
+        VirtualScheduler time = new VirtualScheduler();
+        WhackmoleGame game = new WhackmoleGame(GameConfig.defaults(), time, time, new GameRandom(5), new Recorder());
+        game.start();
+        time.advanceBy(3000);
+        byte[] snapshot = game.saveState();
+
+        WhackmoleGame bigger = new WhackmoleGame(GameConfig.forGrid(4), time, time, new GameRandom(5), new Recorder());
+        try {
+            bigger.restoreState(snapshot);
+            fail("restored a 3x3 game on a 4x4 board");
+        } catch (IllegalArgumentException expected) {
+            // the board's size is checked first
+        }
+
+        WhackmoleGame same = new WhackmoleGame(GameConfig.defaults(), time, time, new GameRandom(5), new Recorder());
+        try {
+            same.restoreState(Arrays.copyOf(snapshot, snapshot.length - 3));
+            fail("restored a truncated snapshot");
+        } catch (IllegalArgumentException expected) {
+            assertFalse(same.isRunning());
+            assertEquals(0, same.getMoles().size());
+        }
+    }
+
+    @Test
+    public void hitsSpawnsAndTimeoutsDoNotAllocate() {
+        // bonus moles time out for free, so the game goes on
+        GameConfig steady = new GameConfig(9, 3, 5000, 1000, 1.0, 10, 5).withMoleWeights(2, 0, 1, 0);
+        VirtualScheduler time = new VirtualScheduler();
+        // a player that follows the moles through the events, as the renderer does
+        final boolean[] up = new boolean[9];
+        final int[] hidden = new int[HideReason.values().length];
+        Recorder state = new Recorder() {
+            @Override
+            public void onMoleShown(int index, long deadline, MoleType type) {
+                up[index] = true;
+            }
+
+            @Override
+            public void onMoleHidden(int index, HideReason reason) {
+                up[index] = false;
+                hidden[reason.ordinal()]++;
+            }
+        };
+        WhackmoleGame game = new WhackmoleGame(steady, time, time, new GameRandom(42), state);
+        game.start();
+        long allocated = AllocationCounter.measure(() -> {
+            // whack the normal moles, let the bonus ones time out
+            for (int step = 0; step < 5_000; step++) {
+                time.advanceBy(100);
+                for (int i = 0; i < up.length; i++) {
+                    if (up[i] && game.getMoleType(i) == MoleType.NORMAL) game.hitHole(i, time.now());
+                }
+            }
+        });
+
+        assertTrue(game.isRunning());
+        assertTrue(state.moleChanges > 10_000);
+        assertTrue(hidden[HideReason.HIT.ordinal()] > 1000);
+        assertTrue(hidden[HideReason.TIMEOUT.ordinal()] > 1000);
+        // nothing is copied until the state is read
+        assertTrue("allocated " + allocated + " bytes", allocated < SLACK_BYTES);
+    }
+
+    @Test
+    public void unchangedGameSharesItsSnapshots() {
+        GameConfig mixed = GameConfig.defaults().withMoleWeights(1, 1, 1, 0);
+        VirtualScheduler time = new VirtualScheduler();
+        Recorder state = new Recorder();
+        WhackmoleGame game = new WhackmoleGame(mixed, time, time, new GameRandom(4), state);
+        game.start();
+        time.advanceBy(1500);
+
+        GameState first = game.getState();
+        GameState second = game.getState();
+        assertTrue(first.moles.size() > 0);
+        assertSame(first.moles, second.moles);
+        assertSame(first.moles, game.getMoles());
+
+        int mole = first.moles.nextActive(0);
+        MoleType type = first.moleType(mole);
+        game.hitHole(mole, time.now());
+        GameState after = game.getState();
+        assertNotSame(first.moles, after.moles);
+        // an older state doesn't change under its reader
+        assertTrue(first.moles.contains(mole));
+        assertEquals(type, first.moleType(mole));
+    }
+}
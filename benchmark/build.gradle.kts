@@ -0,0 +1,30 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+// JMH benchmarks of the game engine's hot paths, on a plain JVM ( no device needed ).
+// ./gradlew :benchmark:jmh writes build/results/jmh/results.json, diff it between commits.
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    jmh(project(":game-core"))
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    fork.set(1)
+    warmupIterations.set(3)
+    warmup.set("1s")
+    iterations.set(5)
+    timeOnIteration.set("1s")
+    // allocation rate ( gc.alloc.rate.norm, bytes per op ) next to the throughput
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    // -PjmhInclude=GameBenchmark.hit runs just the matching benchmarks
+    providers.gradleProperty("jmhInclude").orNull?.let { includes.add(it) }
+}
@@ -0,0 +1,94 @@
+package com.example.stopwatchsample.bench;
+
+import com.example.stopwatchsample.game.GameEventBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained bursts through the GameEventBus: the benchmark thread
+ * publishes, and each reader drains on its own thread. An operation is one
+ * event that every reader got. The burst waits for the readers before it
+ * ends, so a reader that can't keep up shows as a lower score, not as
+ * events queued past the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EventBusBenchmark {
+
+    private static final int BURST = 64 * 1024;
+
+    @Param({"1", "2", "4"})
+    public int readers;
+
+    @Param({"1024"})
+    public int capacity;
+
+    private GameEventBus bus;
+    private GameEventBus.Reader[] busReaders;
+    private Thread[] threads;
+    private volatile boolean running;
+    // what the readers add up, so draining isn't optimized away
+    private volatile long sink;
+
+    @Setup
+    public void setUp() {
+        bus = new GameEventBus(capacity);
+        running = true;
+        busReaders = new GameEventBus.Reader[readers];
+        threads = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            GameEventBus.Reader reader = bus.newReader();
+            busReaders[r] = reader;
+            threads[r] = new Thread(() -> {
+                long[] sum = new long[1];
+                GameEventBus.EventHandler handler = (type, time, hole, value) -> sum[0] += value;
+                while (running) {
+                    if (reader.drain(handler) == 0) Thread.yield();
+                }
+                sink = sum[0];
+                reader.close();
+            }, "bus-reader-" + r);
+            threads[r].start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Publishes a burst and waits until every reader has it.
+     * @return The bus cursor, so the call isn't optimized away.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long burst() {
+        long start = bus.cursor();
+        for (int n = 0; n < BURST; n++) {
+            bus.publish(GameEventBus.HIT, start + n, n & 63, n);
+        }
+        long end = bus.cursor();
+        for (GameEventBus.Reader reader : busReaders) {
+            while (reader.position() < end) {
+                Thread.yield();
+            }
+        }
+        return end;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.stopwatchsample.bench;
+
+import com.example.stopwatchsample.game.GameConfig;
+import com.example.stopwatchsample.game.GameRandom;
+import com.example.stopwatchsample.game.MoleBoard;
+import com.example.stopwatchsample.game.MoleType;
+import com.example.stopwatchsample.game.SpawnPacer;
+import com.example.stopwatchsample.game.VirtualScheduler;
+import com.example.stopwatchsample.game.WhackmoleGame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The engine's hot paths, each at a low and a high occupancy on several
+ * board sizes. The game runs on a VirtualScheduler, so time only moves when
+ * a benchmark moves it and nothing waits on a real clock or a Looper.
+ *
+ * Occupancy is what a level changes about the work: a higher score means
+ * more moles up at once ( GameConfig.targetMoles ), while the faster
+ * spawns and shorter durations only move deadlines. "low" keeps one mole
+ * up, "high" keeps every hole full. Both are steady states: a whacked or
+ * escaped mole is replaced right away, in the hole it left when the board
+ * is full.
+ *
+ * Every mole is a bonus mole, so letting one escape is free and the game
+ * never ends while it's measured.
+ *
+ * spawn() picks an empty hole on a bare MoleBoard instead, since a full
+ * board has none: there "low" is 5% full and "high" 95%.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameBenchmark {
+
+    // well before any mole pops up, for taps that come too early
+    private static final long EARLY = 0;
+    private static final long START = 1_000_000;
+    private static final long MOLE_DUR = 1000;
+
+    @Param({"3", "8", "16"})
+    public int gridSize;
+
+    @Param({"low", "high"})
+    public String occupancy;
+
+    private VirtualScheduler time;
+    private WhackmoleGame game;
+    private int numHoles;
+    private long lifetime;
+    // the hole of the last mole that popped up ( always still up between operations )
+    private int lastShown;
+    // spawn() only
+    private MoleBoard board;
+    private GameRandom boardRandom;
+
+    private final WhackmoleGame.Listener listener = new WhackmoleGame.Listener() {
+        @Override
+        public void onScoreChanged(int score) {
+        }
+
+        @Override
+        public void onLivesChanged(int lives) {
+        }
+
+        @Override
+        public void onMolesChanged() {
+        }
+
+        @Override
+        public void onMoleShown(int index, long deadline, MoleType type) {
+            lastShown = index;
+        }
+    };
+
+    // a fresh game every iteration, so the score stays far from overflowing
+    @Setup(Level.Iteration)
+    public void setUp() {
+        numHoles = gridSize * gridSize;
+        boolean high = "high".equals(occupancy);
+        // no spawn delay and no speed-up; a point per extra mole, or never an extra one
+        GameConfig config = new GameConfig(numHoles, 3, MOLE_DUR, 0, 1.0,
+                high ? 1 : Integer.MAX_VALUE, Integer.MAX_VALUE).withMoleWeights(0, 0, 1, 0);
+        lifetime = config.moleDuration(0) * MoleType.BONUS.durationPercent / 100;
+        time = new VirtualScheduler(START);
+        game = new WhackmoleGame(config, time, time, new GameRandom(42), listener);
+
+        // whack moles until the score asks for the occupancy, then let the paced spawns fill the board
+        int wanted = high ? numHoles : 1;
+        game.start();
+        while (true) {
+            if (config.targetMoles(game.getScore()) < wanted) {
+                game.hitHole(lastShown);
+            } else if (game.getMoles().size() >= wanted) {
+                break;
+            }
+            time.advanceBy(SpawnPacer.FRAME_MILLIS);
+        }
+        if (!game.isRunning()) throw new IllegalStateException("game ended during setup");
+
+        board = new MoleBoard(numHoles);
+        boardRandom = new GameRandom(11);
+        while (board.count() < numHoles * (high ? 95 : 5) / 100) {
+            board.set(board.emptyHole(boardRandom.nextInt(board.emptyCount())));
+        }
+    }
+
+    /**
+     * A tap that whacks a mole, and the mole that replaces it ( addMole ).
+     * @return Whether it landed, so the call isn't optimized away.
+     */
+    @Benchmark
+    public boolean hit() {
+        return game.hitHole(lastShown);
+    }
+
+    /**
+     * A tap that lands before any mole popped up: an empty hole on a low
+     * board, a mole that's too new on a full one.
+     * @return Whether it landed ( never ).
+     */
+    @Benchmark
+    public boolean miss() {
+        return game.hitHole((lastShown + 1) % numHoles, EARLY);
+    }
+
+    /**
+     * One mole lifetime of game time: every mole up times out once and is
+     * replaced, so an operation handles as many timeouts as there are moles.
+     * @return The game time, so the call isn't optimized away.
+     */
+    @Benchmark
+    public long timeouts() {
+        time.advanceBy(lifetime);
+        return time.now();
+    }
+
+    /**
+     * Picking a random empty hole, putting a mole in it and taking it out
+     * again. It should cost the same at both occupancies, however few
+     * empty holes are left to pick from.
+     * @return The hole, so the call isn't optimized away.
+     */
+    @Benchmark
+    public int spawn() {
+        int hole = board.emptyHole(boardRandom.nextInt(board.emptyCount()));
+        board.set(hole);
+        board.clear(hole);
+        return hole;
+    }
+}
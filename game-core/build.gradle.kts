@@ -0,0 +1,9 @@
+plugins {
+    `java-library`
+}
+
+// Plain Java so the game rules can run ( and be profiled ) on any JVM.
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
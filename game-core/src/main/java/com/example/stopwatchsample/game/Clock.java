@@ -0,0 +1,13 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * A source of monotonic time for the game.
+ */
+public interface Clock {
+
+    /**
+     * Returns the current time.
+     * @return The time in milliseconds ( only differences are meaningful ).
+     */
+    long now();
+}
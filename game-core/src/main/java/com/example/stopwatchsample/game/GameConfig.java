@@ -0,0 +1,186 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * The tunable numbers behind the difficulty curve.
+ */
+public final class GameConfig {
+
+    /** The default board is 3x3. */
+    public static final int DEFAULT_GRID_SIZE = 3;
+    /** The largest supported board is 64x64. */
+    public static final int MAX_GRID_SIZE = 64;
+
+    /** The number of holes on the board. */
+    public final int numHoles;
+    /** The lives a game starts with. */
+    public final int lives;
+    /** How long a mole stays up at level 0, in milliseconds. */
+    public final long moleDur;
+    /** The time between spawns at level 1, in milliseconds. */
+    public final long spawnInterval;
+    /** How much durations shrink per level ( 0.9 = 10% faster ). */
+    public final double rate;
+    /** Points needed for one more mole on the board ( and one spawn level ). */
+    public final int scorePerMole;
+    /** Points needed for moles to time out one level faster. */
+    public final int scorePerTimeoutLevel;
+    // how often each MoleType spawns, relative to the others ( by ordinal )
+    private final int[] moleWeights;
+    private final int totalMoleWeight;
+    private final boolean moleMix;
+
+    /**
+     * Creates a config where every mole is a MoleType.NORMAL one ( the classic game ).
+     */
+    public GameConfig(int numHoles, int lives, long moleDur, long spawnInterval, double rate,
+                      int scorePerMole, int scorePerTimeoutLevel) {
+        this(numHoles, lives, moleDur, spawnInterval, rate, scorePerMole, scorePerTimeoutLevel,
+                new int[]{1, 0, 0, 0});
+    }
+
+    /**
+     * Creates a config w/ a mix of mole types.
+     * @param moleWeights How often each MoleType spawns, by ordinal, relative to the others.
+     */
+    public GameConfig(int numHoles, int lives, long moleDur, long spawnInterval, double rate,
+                      int scorePerMole, int scorePerTimeoutLevel, int[] moleWeights) {
+        if (numHoles <= 0) throw new IllegalArgumentException("numHoles must be positive");
+        if (lives <= 0) throw new IllegalArgumentException("lives must be positive");
+        if (scorePerMole <= 0 || scorePerTimeoutLevel <= 0) {
+            throw new IllegalArgumentException("score steps must be positive");
+        }
+        if (moleWeights.length != MoleType.count()) {
+            throw new IllegalArgumentException("need one weight per mole type");
+        }
+        int total = 0;
+        for (int w : moleWeights) {
+            if (w < 0) throw new IllegalArgumentException("mole weights must not be negative");
+            total += w;
+        }
+        if (total <= 0) throw new IllegalArgumentException("some mole type must have a weight");
+        this.moleWeights = moleWeights.clone();
+        this.totalMoleWeight = total;
+        boolean mix = true;
+        for (int w : moleWeights) {
+            if (w == total) mix = false;
+        }
+        this.moleMix = mix;
+        this.numHoles = numHoles;
+        this.lives = lives;
+        this.moleDur = moleDur;
+        this.spawnInterval = spawnInterval;
+        this.rate = rate;
+        this.scorePerMole = scorePerMole;
+        this.scorePerTimeoutLevel = scorePerTimeoutLevel;
+    }
+
+    /**
+     * Returns the settings the game has always shipped with.
+     * @return The default config.
+     */
+    public static GameConfig defaults() {
+        return forGrid(DEFAULT_GRID_SIZE);
+    }
+
+    /**
+     * Returns the default settings on a square board of the given size.
+     * @param gridSize The number of rows ( and columns ), 1 to MAX_GRID_SIZE.
+     * @return The config.
+     */
+    public static GameConfig forGrid(int gridSize) {
+        if (gridSize < 1 || gridSize > MAX_GRID_SIZE) {
+            throw new IllegalArgumentException("gridSize must be 1.." + MAX_GRID_SIZE);
+        }
+        return new GameConfig(gridSize * gridSize, 3, 5000, 1000, 0.9, 10, 5);
+    }
+
+    /**
+     * Returns a copy of this config w/ the given mix of mole types.
+     *
+     * @param normal The weight of MoleType.NORMAL.
+     * @param tough The weight of MoleType.TOUGH.
+     * @param bonus The weight of MoleType.BONUS.
+     * @param decoy The weight of MoleType.DECOY.
+     * @return The new config.
+     */
+    public GameConfig withMoleWeights(int normal, int tough, int bonus, int decoy) {
+        return new GameConfig(numHoles, lives, moleDur, spawnInterval, rate, scorePerMole, scorePerTimeoutLevel,
+                new int[]{normal, tough, bonus, decoy});
+    }
+
+    /**
+     * Returns how often the given type spawns, relative to the others.
+     * @param type The mole type.
+     * @return Its weight.
+     */
+    public int moleWeight(MoleType type) {
+        return moleWeights[type.ordinal()];
+    }
+
+    /**
+     * Returns the sum of the mole weights.
+     * @return The total weight.
+     */
+    public int totalMoleWeight() {
+        return totalMoleWeight;
+    }
+
+    /**
+     * Returns whether more than one type of mole can spawn.
+     * @return False if every mole is of the same type.
+     */
+    public boolean hasMoleMix() {
+        return moleMix;
+    }
+
+    /**
+     * Maps a random draw to a mole type, each type taking its weight's share of the range.
+     * @param draw A number from 0 to totalMoleWeight() - 1.
+     * @return The type.
+     */
+    public MoleType moleTypeAt(int draw) {
+        for (int i = 0; i < moleWeights.length; i++) {
+            draw -= moleWeights[i];
+            if (draw < 0) return MoleType.of(i);
+        }
+        throw new IllegalArgumentException("draw out of range");
+    }
+
+    /**
+     * Returns how many moles should be up at the given score.
+     * @param score The current score.
+     * @return The target number of moles.
+     */
+    public int targetMoles(int score) {
+        return Math.min(1 + score / scorePerMole, numHoles);
+    }
+
+    /**
+     * Returns the spawn level at the given score.
+     * @param score The current score.
+     * @return The level ( 0 = spawn as soon as there is room ).
+     */
+    public int spawnLevel(int score) {
+        return score / scorePerMole;
+    }
+
+    /**
+     * Returns the time between spawns at the given score.
+     * @param score The current score.
+     * @return The delay in milliseconds ( 0 at level 0 ).
+     */
+    public long spawnDelay(int score) {
+        int level = spawnLevel(score);
+        if (level <= 0) return 0;
+        return (long) (spawnInterval * Math.pow(rate, level));
+    }
+
+    /**
+     * Returns how long a mole spawned at the given score stays up.
+     * @param score The current score.
+     * @return The duration in milliseconds.
+     */
+    public long moleDuration(int score) {
+        return (long) (moleDur * Math.pow(rate, score / scorePerTimeoutLevel));
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.stopwatchsample.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size ring of game events from one producer ( the thread that
+ * owns the game ) to any number of readers, each on its own thread and at
+ * its own pace, in the style of the LMAX Disruptor.
+ *
+ * The slots are preallocated parallel arrays that get overwritten, so
+ * publishing and reading allocate nothing. The producer advances a
+ * sequence, and each reader advances its own. The producer never laps the
+ * slowest reader. When the ring is full, offer() drops the event and
+ * publish() waits, so a slow reader costs events or time, never
+ * correctness.
+ */
+public final class GameEventBus {
+
+    /** A mole popped up. value = its MoleType ordinal. */
+    public static final int SPAWN = 0;
+    /** A tap landed on a mole. value = the score after it. */
+    public static final int HIT = 1;
+    /** A tap missed. */
+    public static final int MISS = 2;
+    /** A mole timed out. value = lives left. */
+    public static final int TIMEOUT = 3;
+    /** A life was lost. value = lives left. */
+    public static final int LIFE_LOST = 4;
+    /** The last life was lost. value = the final score. */
+    public static final int GAME_OVER = 5;
+
+    /**
+     * Gets the events a Reader drains, on the reader's thread.
+     */
+    public interface EventHandler {
+        /**
+         * Called for each event, in order.
+         *
+         * @param type The event type ( SPAWN, HIT, ... ).
+         * @param time When it happened, on the game clock.
+         * @param hole The hole, or -1.
+         * @param value Depends on the type.
+         */
+        void onEvent(int type, long time, int hole, int value);
+    }
+
+    /**
+     * One reader's position in the ring. Use each reader from a single thread.
+     */
+    public final class Reader {
+        // how many events this reader has read ( written by the reader only )
+        private final AtomicLong sequence;
+
+        private Reader(long start) {
+            sequence = new AtomicLong(start);
+        }
+
+        /**
+         * Hands every event published since the last call to the handler,
+         * then frees their slots for the producer.
+         * @param handler Gets the events.
+         * @return How many events it got.
+         */
+        public int drain(EventHandler handler) {
+            long read = sequence.get();
+            long available = cursor.get();
+            for (long s = read; s < available; s++) {
+                int i = (int) s & mask;
+                handler.onEvent(types[i], times[i], holes[i], values[i]);
+            }
+            if (available != read) sequence.lazySet(available);
+            return (int) (available - read);
+        }
+
+        /**
+         * Returns how many events this reader has read so far.
+         * @return The reader's sequence.
+         */
+        public long position() {
+            return sequence.get();
+        }
+
+        /**
+         * Stops holding the producer back. The reader can't be used after this.
+         */
+        public void close() {
+            removeReader(this);
+        }
+    }
+
+    private final int mask;
+    private final int[] types;
+    private final long[] times;
+    private final int[] holes;
+    private final int[] values;
+    // how many events are published ( written by the producer only )
+    private final AtomicLong cursor = new AtomicLong();
+    // replaced, never changed, when readers come and go
+    private volatile Reader[] readers = new Reader[0];
+    // producer side: the slowest reader's sequence when last looked at, and the events offer() dropped
+    private long gate;
+    private long dropped;
+
+    /**
+     * Creates an empty bus w/o readers.
+     * @param capacity The most events that can wait for the slowest reader, a power of two.
+     */
+    public GameEventBus(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        mask = capacity - 1;
+        types = new int[capacity];
+        times = new long[capacity];
+        holes = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Adds a reader that gets every event published from now on.
+     * @return The reader.
+     */
+    public synchronized Reader newReader() {
+        Reader reader = new Reader(cursor.get());
+        Reader[] grown = new Reader[readers.length + 1];
+        System.arraycopy(readers, 0, grown, 0, readers.length);
+        grown[readers.length] = reader;
+        readers = grown;
+        return reader;
+    }
+
+    private synchronized void removeReader(Reader reader) {
+        Reader[] old = readers;
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] != reader) continue;
+            Reader[] shrunk = new Reader[old.length - 1];
+            System.arraycopy(old, 0, shrunk, 0, i);
+            System.arraycopy(old, i + 1, shrunk, i, old.length - i - 1);
+            readers = shrunk;
+            return;
+        }
+    }
+
+    /**
+     * Publishes an event unless the slowest reader is a full ring behind
+     * ( producer thread only ). Never blocks.
+     *
+     * @param type The event type ( SPAWN, HIT, ... ).
+     * @param time When it happened, on the game clock.
+     * @param hole The hole, or -1.
+     * @param value Depends on the type.
+     * @return False if the event was dropped.
+     */
+    public boolean offer(int type, long time, int hole, int value) {
+        long next = cursor.get();
+        if (!hasRoom(next)) {
+            dropped++;
+            return false;
+        }
+        put(next, type, time, hole, value);
+        return true;
+    }
+
+    /**
+     * Publishes an event, waiting for the slowest reader to make room if
+     * it has to ( producer thread only ).
+     *
+     * @param type The event type ( SPAWN, HIT, ... ).
+     * @param time When it happened, on the game clock.
+     * @param hole The hole, or -1.
+     * @param value Depends on the type.
+     */
+    public void publish(int type, long time, int hole, int value) {
+        long next = cursor.get();
+        while (!hasRoom(next)) {
+            Thread.yield();
+        }
+        put(next, type, time, hole, value);
+    }
+
+    // whether slot next is free, looking at the readers only when the cached gate says no
+    private boolean hasRoom(long next) {
+        if (next - gate <= mask) return true;
+        long slowest = next;
+        for (Reader reader : readers) {
+            slowest = Math.min(slowest, reader.sequence.get());
+        }
+        gate = slowest;
+        return next - gate <= mask;
+    }
+
+    private void put(long next, int type, long time, int hole, int value) {
+        int i = (int) next & mask;
+        types[i] = type;
+        times[i] = time;
+        holes[i] = hole;
+        values[i] = value;
+        cursor.lazySet(next + 1);
+    }
+
+    /**
+     * Returns how many events have been published.
+     * @return The producer's sequence.
+     */
+    public long cursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Returns how many events offer() dropped because a reader fell behind
+     * ( exact only on the producer thread ).
+     * @return The dropped count.
+     */
+    public long droppedCount() {
+        return dropped;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.stopwatchsample.game;
+
+import java.util.Random;
+
+/**
+ * The game's random numbers: SplitMix64, w/ its whole state in one long.
+ *
+ * Unlike java.util.Random the state can be read and restored, so a
+ * recording ( or a saved game ) can pick up the exact same sequence.
+ * nextInt(bound) is implemented here too, so the sequence doesn't depend
+ * on the platform's Random. Not thread-safe.
+ */
+public final class GameRandom extends Random {
+
+    // Random is Serializable; the state field is all this class adds
+    private static final long serialVersionUID = 1L;
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    // no initializer: Random's constructor sets it through setSeed()
+    private long state;
+
+    /**
+     * Creates a generator.
+     * @param seed The initial state.
+     */
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Returns the current state.
+     * @return The state, for setState().
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Restores a state from getState().
+     * @param state The state.
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        state = seed;
+    }
+
+    @Override
+    public long nextLong() {
+        long z = (state += GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) throw new IllegalArgumentException("bound must be positive");
+        // the top 31 bits scaled into [0, bound), the bias is below 2^-31 per value
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * The outcome of one finished game, as kept in the ScoreLog.
+ */
+public final class GameRecord {
+
+    public final int score;
+    public final long durationMillis;
+    public final int hits;
+    public final int misses;
+    /** When the game ended, in milliseconds since the epoch. */
+    public final long timestamp;
+
+    /**
+     * Creates a record.
+     *
+     * @param score The final score.
+     * @param durationMillis How long the game lasted.
+     * @param hits The number of moles whacked.
+     * @param misses The number of taps on empty holes.
+     * @param timestamp When the game ended, in milliseconds since the epoch.
+     */
+    public GameRecord(int score, long durationMillis, int hits, int misses, long timestamp) {
+        this.score = score;
+        this.durationMillis = durationMillis;
+        this.hits = hits;
+        this.misses = misses;
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GameRecord)) return false;
+        GameRecord other = (GameRecord) o;
+        return score == other.score && durationMillis == other.durationMillis && hits == other.hits
+                && misses == other.misses && timestamp == other.timestamp;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = score;
+        h = 31 * h + Long.hashCode(durationMillis);
+        h = 31 * h + hits;
+        h = 31 * h + misses;
+        return 31 * h + Long.hashCode(timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return "GameRecord{score=" + score + ", durationMillis=" + durationMillis + ", hits=" + hits
+                + ", misses=" + misses + ", timestamp=" + timestamp + "}";
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * Receives everything needed to replay a game: its inputs ( start, stop,
+ * pauses, taps and wake-ups ) and the outcomes they caused ( spawns, hits, timeouts ).
+ * See SessionWriter and SessionReplay.
+ */
+public interface GameRecorder {
+
+    /** Input: a game started. value = the GameRandom state. */
+    int START = 0;
+    /** Input ( or outcome, when the game ends itself ): the game stopped. value = final score. */
+    int STOP = 1;
+    /** Input: a hole was tapped while the game ran. value = when the tap landed. */
+    int TAP = 2;
+    /** Input: the game's tick ran. */
+    int WAKEUP = 3;
+    /** Outcome: a mole popped up. value = its deadline. */
+    int SPAWN = 4;
+    /** Outcome: a tap landed on a mole ( it may take more ). value = new score. */
+    int HIT = 5;
+    /** Outcome: a mole timed out ( costing a life, unless its type is free to miss ). value = lives left. */
+    int TIMEOUT = 6;
+    /** Input: the game was paused. */
+    int PAUSE = 7;
+    /** Input: the game was resumed, every deadline moved by the pause. */
+    int RESUME = 8;
+
+    /**
+     * Records an event.
+     *
+     * @param type The event type ( START, TAP, ... ).
+     * @param time When it happened, on the game clock.
+     * @param hole The hole involved, or -1.
+     * @param value Extra data, see the event type.
+     */
+    void record(int type, long time, int hole, long value);
+}
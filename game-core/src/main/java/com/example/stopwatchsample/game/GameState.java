@@ -0,0 +1,76 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * An immutable copy of everything the game screen shows: score, lives,
+ * which holes have moles and whether the game is running, plus the counts
+ * and stats the game-over screen shows.
+ *
+ * Taken in one go ( see WhackmoleGame.getState() ), so its fields always
+ * agree w/ each other, unlike separate score, lives and mole updates that
+ * arrive one at a time.
+ */
+public final class GameState {
+
+    public final int score;
+    public final int lives;
+    public final MoleSnapshot moles;
+    public final boolean running;
+    public final int hits;
+    public final int misses;
+    /** How long the game had lasted when the state was taken. */
+    public final long elapsedMillis;
+    /** Reaction times, accuracy and streaks so far. */
+    public final GameSummary summary;
+    // MoleType ordinals by hole, null if every mole is of the same type
+    private final byte[] moleTypes;
+
+    /**
+     * Creates a state.
+     *
+     * @param score The score.
+     * @param lives The number of lives remaining.
+     * @param moles The holes that contain moles.
+     * @param running Whether the game is active.
+     * @param hits The number of moles whacked.
+     * @param misses The number of taps on empty holes.
+     * @param elapsedMillis How long the game had lasted.
+     * @param summary The game's stats so far.
+     * @param moleTypes The MoleType ordinal of each hole's mole ( kept, not copied ),
+     *                  or null if they're all MoleType.NORMAL.
+     */
+    public GameState(int score, int lives, MoleSnapshot moles, boolean running,
+                     int hits, int misses, long elapsedMillis, GameSummary summary, byte[] moleTypes) {
+        this.score = score;
+        this.lives = lives;
+        this.moles = moles;
+        this.running = running;
+        this.hits = hits;
+        this.misses = misses;
+        this.elapsedMillis = elapsedMillis;
+        this.summary = summary;
+        this.moleTypes = moleTypes;
+    }
+
+    /**
+     * Returns the type of the mole in the given hole.
+     * @param hole The hole.
+     * @return The type ( meaningless if the hole is empty ).
+     */
+    public MoleType moleType(int hole) {
+        return moleTypes == null ? MoleType.NORMAL : MoleType.of(moleTypes[hole]);
+    }
+
+    /**
+     * Returns whether the game ran out of lives.
+     * @return True once the last life is gone.
+     */
+    public boolean isOver() {
+        return lives <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "GameState{score=" + score + ", lives=" + lives + ", moles=" + moles.size()
+                + ", running=" + running + "}";
+    }
+}
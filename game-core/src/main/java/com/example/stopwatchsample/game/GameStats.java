@@ -0,0 +1,141 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * The numbers behind a GameSummary, kept up to date as the game plays:
+ * P-square estimates of the reaction-time median and 90th percentile, running
+ * means and variances, and plain counters. Memory stays the same however
+ * long the game runs, and no sample is kept.
+ *
+ * WhackmoleGame feeds it; read it on the game's thread.
+ */
+public final class GameStats {
+
+    private final P2Quantile reactionMedian = new P2Quantile(0.5);
+    private final P2Quantile reactionP90 = new P2Quantile(0.9);
+    private final RunningStats reaction = new RunningStats();
+    private final RunningStats lifetime = new RunningStats();
+    private int hits;
+    private int misses;
+    private int streak;
+    private int longestStreak;
+    // the last summary, until something changes
+    private GameSummary summary;
+
+    /**
+     * A tap landed on a mole.
+     */
+    public void onHit() {
+        hits++;
+        streak++;
+        if (streak > longestStreak) longestStreak = streak;
+        summary = null;
+    }
+
+    /**
+     * A tap missed ( or whacked a decoy ), which ends the streak.
+     */
+    public void onMiss() {
+        misses++;
+        streak = 0;
+        summary = null;
+    }
+
+    /**
+     * A mole was whacked.
+     * @param reactionMillis How long after it popped up the tap came.
+     */
+    public void onWhacked(long reactionMillis) {
+        reactionMedian.add(reactionMillis);
+        reactionP90.add(reactionMillis);
+        reaction.add(reactionMillis);
+        summary = null;
+    }
+
+    /**
+     * A mole that should have been whacked got away, which ends the streak.
+     */
+    public void onEscaped() {
+        streak = 0;
+    }
+
+    /**
+     * A mole went down, whacked or not.
+     * @param lifetimeMillis How long it was up.
+     */
+    public void onMoleDown(long lifetimeMillis) {
+        lifetime.add(lifetimeMillis);
+        summary = null;
+    }
+
+    /**
+     * Returns the number of taps that landed on a mole.
+     * @return The hit count.
+     */
+    public int hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of taps that missed.
+     * @return The miss count.
+     */
+    public int misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the stats so far, as an immutable summary. The same summary is
+     * returned until the stats change, so calling it every frame is cheap.
+     * @return The summary.
+     */
+    public GameSummary summary() {
+        if (summary == null) {
+            int reactions = (int) reaction.count();
+            summary = new GameSummary(hits, misses, longestStreak, reactions,
+                    reactions == 0 ? 0 : (int) Math.round(reactionMedian.get()),
+                    reactions == 0 ? 0 : (int) Math.round(reactionP90.get()),
+                    (int) Math.round(reaction.mean()), (int) Math.round(reaction.stdDev()),
+                    (int) lifetime.count(), (int) Math.round(lifetime.mean()));
+        }
+        return summary;
+    }
+
+    /**
+     * Forgets everything, for a new game.
+     */
+    public void reset() {
+        reactionMedian.reset();
+        reactionP90.reset();
+        reaction.reset();
+        lifetime.reset();
+        hits = 0;
+        misses = 0;
+        streak = 0;
+        longestStreak = 0;
+        summary = null;
+    }
+
+    // everything above, for a game snapshot
+    void save(SnapshotBuffer out) {
+        out.putVarint(hits);
+        out.putVarint(misses);
+        out.putVarint(streak);
+        out.putVarint(longestStreak);
+        reaction.save(out);
+        lifetime.save(out);
+        reactionMedian.save(out);
+        reactionP90.save(out);
+    }
+
+    void restore(SnapshotBuffer in) {
+        hits = in.getInt();
+        misses = in.getInt();
+        streak = in.getInt();
+        longestStreak = in.getInt();
+        reaction.restore(in);
+        lifetime.restore(in);
+        reactionMedian.restore(in);
+        reactionP90.restore(in);
+        summary = null;
+    }
+}
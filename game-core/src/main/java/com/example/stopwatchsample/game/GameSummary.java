@@ -0,0 +1,100 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * How one game went, for the game-over screen: reaction times, accuracy,
+ * the longest streak and how long moles lasted. Times are in whole
+ * milliseconds. Immutable.
+ */
+public final class GameSummary {
+
+    /** Taps that landed on a mole ( not a decoy ). */
+    public final int hits;
+    /** Taps that missed: empty holes, too early or too late, decoys. */
+    public final int misses;
+    /** The most hits in a row w/o a miss or a lost life. */
+    public final int longestStreak;
+    /** How many moles were whacked, and so how many reaction times there are. */
+    public final int reactions;
+    /** The median time from a mole popping up to the tap that whacked it. */
+    public final int reactionMedian;
+    /** The 90th percentile of those reaction times. */
+    public final int reactionP90;
+    /** Their mean. */
+    public final int reactionMean;
+    /** Their standard deviation. */
+    public final int reactionStdDev;
+    /** How many moles went down, whacked or timed out. */
+    public final int molesDown;
+    /** How long those moles were up, on average. */
+    public final int meanLifetime;
+
+    /**
+     * Creates a summary.
+     *
+     * @param hits Taps that landed on a mole.
+     * @param misses Taps that missed.
+     * @param longestStreak The most hits in a row.
+     * @param reactions The number of reaction times.
+     * @param reactionMedian Their median.
+     * @param reactionP90 Their 90th percentile.
+     * @param reactionMean Their mean.
+     * @param reactionStdDev Their standard deviation.
+     * @param molesDown The number of moles that went down.
+     * @param meanLifetime How long they were up, on average.
+     */
+    public GameSummary(int hits, int misses, int longestStreak, int reactions, int reactionMedian,
+                       int reactionP90, int reactionMean, int reactionStdDev, int molesDown, int meanLifetime) {
+        this.hits = hits;
+        this.misses = misses;
+        this.longestStreak = longestStreak;
+        this.reactions = reactions;
+        this.reactionMedian = reactionMedian;
+        this.reactionP90 = reactionP90;
+        this.reactionMean = reactionMean;
+        this.reactionStdDev = reactionStdDev;
+        this.molesDown = molesDown;
+        this.meanLifetime = meanLifetime;
+    }
+
+    /**
+     * Returns the share of taps that landed.
+     * @return Hits over all taps, 0 to 1 ( 0 w/o taps ).
+     */
+    public float accuracy() {
+        int taps = hits + misses;
+        return taps == 0 ? 0 : (float) hits / taps;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GameSummary)) return false;
+        GameSummary other = (GameSummary) o;
+        return hits == other.hits && misses == other.misses && longestStreak == other.longestStreak
+                && reactions == other.reactions && reactionMedian == other.reactionMedian
+                && reactionP90 == other.reactionP90 && reactionMean == other.reactionMean
+                && reactionStdDev == other.reactionStdDev && molesDown == other.molesDown
+                && meanLifetime == other.meanLifetime;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hits;
+        h = 31 * h + misses;
+        h = 31 * h + longestStreak;
+        h = 31 * h + reactions;
+        h = 31 * h + reactionMedian;
+        h = 31 * h + reactionP90;
+        h = 31 * h + reactionMean;
+        h = 31 * h + reactionStdDev;
+        h = 31 * h + molesDown;
+        return 31 * h + meanLifetime;
+    }
+
+    @Override
+    public String toString() {
+        return "GameSummary{hits=" + hits + ", misses=" + misses + ", longestStreak=" + longestStreak
+                + ", reactionMedian=" + reactionMedian + ", reactionP90=" + reactionP90
+                + ", meanLifetime=" + meanLifetime + "}";
+    }
+}
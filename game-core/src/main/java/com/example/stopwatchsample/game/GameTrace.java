@@ -0,0 +1,121 @@
+package com.example.stopwatchsample.game;
+
+import java.io.IOException;
+
+/**
+ * A fixed-size ring buffer of the latest game events, plus a running
+ * count of every event type. Recording is a few array stores, so it can
+ * stay on in the hot paths; dump() turns it into text when a stutter needs
+ * explaining. Not thread-safe, record and dump from the game's thread.
+ */
+public final class GameTrace {
+
+    /** A game started. value = number of holes. */
+    public static final int START = 0;
+    /** A game stopped. value = final score. */
+    public static final int STOP = 1;
+    /** A mole popped up. value = how long it stays up, in ms. */
+    public static final int SPAWN = 2;
+    /** A mole was whacked. value = new score. */
+    public static final int HIT = 3;
+    /** An empty hole was tapped. */
+    public static final int MISS = 4;
+    /** A mole timed out. value = lives left. */
+    public static final int TIMEOUT = 5;
+    /** The game woke up to do timed work. value = how late the wake-up was, in ms. */
+    public static final int WAKEUP = 6;
+    /** The game was paused. */
+    public static final int PAUSE = 7;
+    /** The game was resumed. value = how long it was paused, in ms. */
+    public static final int RESUME = 8;
+
+    private static final String[] NAMES = {
+            "start", "stop", "spawn", "hit", "miss", "timeout", "wakeup", "pause", "resume"
+    };
+
+    private final long[] times;
+    private final byte[] types;
+    private final int[] holes;
+    private final int[] values;
+    private final int mask;
+    private final long[] counters = new long[NAMES.length];
+    private long written;
+
+    /**
+     * Creates an empty trace.
+     * @param capacity How many events to keep, rounded up to a power of 2.
+     */
+    public GameTrace(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        times = new long[size];
+        types = new byte[size];
+        holes = new int[size];
+        values = new int[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Records an event, overwriting the oldest once the buffer is full.
+     *
+     * @param type The event type ( START, SPAWN, ... ).
+     * @param time When it happened, on the game clock.
+     * @param hole The hole involved, or -1.
+     * @param value Extra data, see the event type.
+     */
+    public void record(int type, long time, int hole, int value) {
+        int at = (int) (written++ & mask);
+        times[at] = time;
+        types[at] = (byte) type;
+        holes[at] = hole;
+        values[at] = value;
+        counters[type]++;
+    }
+
+    /**
+     * Returns how many events of the given type were ever recorded.
+     * @param type The event type.
+     * @return The count ( not limited by the buffer size ).
+     */
+    public long count(int type) {
+        return counters[type];
+    }
+
+    /**
+     * Returns how many events the buffer currently holds.
+     * @return The number of events, at most the capacity.
+     */
+    public int size() {
+        return (int) Math.min(written, mask + 1);
+    }
+
+    /**
+     * Returns the name of an event type.
+     * @param type The event type.
+     * @return The name used in dumps.
+     */
+    public static String name(int type) {
+        return NAMES[type];
+    }
+
+    /**
+     * Writes the counters and then the buffered events, oldest first.
+     * One event per line: time, type, hole, value.
+     *
+     * @param out Where to write.
+     * @throws IOException If out fails.
+     */
+    public void dump(Appendable out) throws IOException {
+        out.append("# counters");
+        for (int type = 0; type < NAMES.length; type++) {
+            out.append(' ').append(NAMES[type]).append('=').append(Long.toString(counters[type]));
+        }
+        out.append('\n');
+        for (long seq = written - size(); seq < written; seq++) {
+            int at = (int) (seq & mask);
+            out.append(Long.toString(times[at])).append(' ')
+                    .append(NAMES[types[at]]).append(' ')
+                    .append(Integer.toString(holes[at])).append(' ')
+                    .append(Integer.toString(values[at])).append('\n');
+        }
+    }
+}
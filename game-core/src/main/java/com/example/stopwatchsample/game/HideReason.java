@@ -0,0 +1,13 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * Why a mole went back down its hole.
+ */
+public enum HideReason {
+    /** The player whacked it. */
+    HIT,
+    /** It stayed up too long; whether that costs a life depends on its MoleType. */
+    TIMEOUT,
+    /** The game was stopped or reset. */
+    RESET
+}
@@ -0,0 +1,240 @@
+package com.example.stopwatchsample.game;
+
+import java.util.Arrays;
+
+/**
+ * The mole timeouts, one deadline per hole, kept in a hashed timer wheel.
+ *
+ * Each slot is 1 ms wide and holds an intrusive list of holes threaded
+ * through primitive arrays, so arming, cancelling and expiring are O(1)
+ * and never allocate. A single advance() drains everything that is due.
+ * Expiry order is exact ( by deadline ) as long as deadlines are less than
+ * one wheel span ahead, later ones are still expired correctly.
+ */
+public final class HoleTimerWheel {
+
+    /** The deadline of a hole that has no timer. */
+    public static final long NOT_ARMED = Long.MAX_VALUE;
+
+    private static final int NONE = -1;
+
+    /**
+     * Receives the timers that come due in advance().
+     */
+    public interface ExpiryListener {
+        /**
+         * Called once per expired timer, in deadline order.
+         * @param hole The hole whose timer expired.
+         * @param deadline When it was due.
+         */
+        void onExpired(int hole, long deadline);
+    }
+
+    private final long[] deadlines;
+    private final int[] next;
+    private final int[] prev;
+    private final int[] slotOf;
+    private final int[] heads;
+    private final long[] occupiedSlots;
+    private final int mask;
+    private long cursor;
+    private int armed;
+
+    /**
+     * Creates a wheel w/ no timers.
+     *
+     * @param numHoles The number of holes ( timers ).
+     * @param spanMillis The longest delay that should expire in exact order.
+     */
+    public HoleTimerWheel(int numHoles, long spanMillis) {
+        int slots = 64;
+        while (slots <= spanMillis && slots < (1 << 24)) {
+            slots <<= 1;
+        }
+        this.mask = slots - 1;
+        this.heads = new int[slots];
+        this.occupiedSlots = new long[slots >>> 6];
+        this.deadlines = new long[numHoles];
+        this.next = new int[numHoles];
+        this.prev = new int[numHoles];
+        this.slotOf = new int[numHoles];
+        Arrays.fill(heads, NONE);
+        Arrays.fill(deadlines, NOT_ARMED);
+    }
+
+    /**
+     * Returns when the hole's timer is due.
+     * @param hole The hole.
+     * @return The deadline, or NOT_ARMED.
+     */
+    public long deadline(int hole) {
+        return deadlines[hole];
+    }
+
+    /**
+     * Returns the number of armed timers.
+     * @return The timer count.
+     */
+    public int armedCount() {
+        return armed;
+    }
+
+    /**
+     * Sets the time the wheel has been drained up to, w/o expiring anything.
+     * Call it before arming timers after a long idle gap.
+     * @param now The current time.
+     */
+    public void start(long now) {
+        cursor = now;
+    }
+
+    /**
+     * Arms ( or re-arms ) the hole's timer.
+     * @param hole The hole.
+     * @param deadline When the timer should expire.
+     */
+    public void arm(int hole, long deadline) {
+        if (deadlines[hole] != NOT_ARMED) unlink(hole);
+        // a deadline that is already due goes in the next slot to be drained
+        long at = deadline > cursor ? deadline : cursor + 1;
+        int slot = (int) (at & mask);
+        int head = heads[slot];
+        next[hole] = head;
+        prev[hole] = NONE;
+        if (head != NONE) {
+            prev[head] = hole;
+        } else {
+            occupiedSlots[slot >>> 6] |= 1L << slot;
+        }
+        heads[slot] = hole;
+        slotOf[hole] = slot;
+        deadlines[hole] = deadline;
+        armed++;
+    }
+
+    /**
+     * Cancels the hole's timer.
+     * @param hole The hole.
+     * @return True if a timer was armed.
+     */
+    public boolean cancel(int hole) {
+        if (deadlines[hole] == NOT_ARMED) return false;
+        unlink(hole);
+        return true;
+    }
+
+    /**
+     * Cancels every timer.
+     */
+    public void cancelAll() {
+        for (int hole = 0; hole < deadlines.length; hole++) {
+            if (deadlines[hole] != NOT_ARMED) unlink(hole);
+        }
+    }
+
+    /**
+     * Moves every armed deadline, and the time drained up to, by the same amount
+     * ( a paused game resuming ). Nothing expires.
+     * @param delta How far to move them, in milliseconds.
+     */
+    public void shiftAll(long delta) {
+        cursor += delta;
+        for (int hole = 0; hole < deadlines.length; hole++) {
+            long deadline = deadlines[hole];
+            if (deadline != NOT_ARMED) arm(hole, deadline + delta);
+        }
+    }
+
+    /**
+     * Expires every timer due at or before now.
+     * The listener may arm or cancel timers while being called.
+     *
+     * @param now The current time.
+     * @param listener Told about each expired timer.
+     */
+    public void advance(long now, ExpiryListener listener) {
+        long t = cursor + 1;
+        // past one full turn every slot has been visited once
+        long end = now - cursor > mask ? cursor + mask + 1 : now;
+        while (armed > 0 && t <= end) {
+            int slot = nextOccupiedSlot((int) (t & mask), end - t);
+            if (slot == NONE) break;
+            t += (slot - t) & mask;
+            cursor = t - 1;
+            int hole = heads[slot];
+            while (hole != NONE) {
+                long deadline = deadlines[hole];
+                if (deadline <= now) {
+                    unlink(hole);
+                    listener.onExpired(hole, deadline);
+                    hole = heads[slot]; // the listener may have changed the slot
+                } else {
+                    hole = next[hole];
+                }
+            }
+            t++;
+        }
+        if (now > cursor) cursor = now;
+    }
+
+    /**
+     * Returns when the next timer is due.
+     * @return The earliest deadline, or NOT_ARMED.
+     */
+    public long nextDeadline() {
+        if (armed == 0) return NOT_ARMED;
+        long t = cursor + 1;
+        long best = NOT_ARMED;
+        for (long scanned = 0; scanned <= mask; ) {
+            int slot = nextOccupiedSlot((int) (t & mask), mask - scanned);
+            if (slot == NONE) break;
+            long step = (slot - t) & mask;
+            t += step;
+            scanned += step;
+            for (int hole = heads[slot]; hole != NONE; hole = next[hole]) {
+                best = Math.min(best, deadlines[hole]);
+            }
+            // within one span the first occupied slot holds the earliest timer
+            if (best - cursor <= mask + 1) return best;
+            t++;
+            scanned++;
+        }
+        return best;
+    }
+
+    // the first occupied slot at most maxDistance after start ( wrapping ), or NONE
+    private int nextOccupiedSlot(int start, long maxDistance) {
+        int slots = mask + 1;
+        int distance = 0;
+        int slot = start;
+        while (distance <= maxDistance && distance < slots) {
+            long word = occupiedSlots[slot >>> 6] & (-1L << slot);
+            if (word != 0) {
+                int found = (slot & ~63) + Long.numberOfTrailingZeros(word);
+                distance += found - slot;
+                return distance <= maxDistance ? found : NONE;
+            }
+            int skipped = 64 - (slot & 63);
+            distance += skipped;
+            slot = (slot + skipped) & mask;
+        }
+        return NONE;
+    }
+
+    private void unlink(int hole) {
+        int slot = slotOf[hole];
+        int p = prev[hole];
+        int n = next[hole];
+        if (p != NONE) {
+            next[p] = n;
+        } else {
+            heads[slot] = n;
+            if (n == NONE) occupiedSlots[slot >>> 6] &= ~(1L << slot);
+        }
+        if (n != NONE) prev[n] = p;
+        next[hole] = NONE;
+        prev[hole] = NONE;
+        deadlines[hole] = NOT_ARMED;
+        armed--;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.stopwatchsample.game;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Posts score batches to the leaderboard over HTTP(S) w/ HttpURLConnection,
+ * which keeps the connection alive between batches.
+ */
+public final class HttpScoreTransport implements ScoreUploader.Transport {
+
+    private final URL url;
+    private final int timeoutMillis;
+
+    /**
+     * Creates a transport.
+     * @param url Where batches are posted.
+     * @param timeoutMillis How long connecting and reading may take, each.
+     */
+    public HttpScoreTransport(URL url, int timeoutMillis) {
+        this.url = url;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public int post(byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        connection.setRequestProperty("Content-Type", ScoreBatch.CONTENT_TYPE);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        int status = connection.getResponseCode();
+        // read the reply to the end, so the connection can be reused
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (in != null) {
+            try (InputStream reply = in) {
+                byte[] skip = new byte[512];
+                while (reply.read(skip) >= 0) {
+                    // discard
+                }
+            }
+        }
+        return status;
+    }
+}
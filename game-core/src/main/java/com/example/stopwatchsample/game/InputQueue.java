@@ -0,0 +1,93 @@
+package com.example.stopwatchsample.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size, lock-free queue from one producer thread to one consumer
+ * thread ( taps and commands from the UI to the game thread ). Each entry
+ * is an int code and a long value, stored in parallel arrays, so nothing
+ * is allocated per entry.
+ *
+ * The producer only writes the tail and the consumer only writes the head;
+ * each publishes its side w/ an ordered store, which is all the two threads
+ * need to agree on the entries in between.
+ */
+public final class InputQueue {
+
+    private final int mask;
+    private final int[] codes;
+    private final long[] values;
+    // next entry to read ( written by the consumer ) and to write ( written by the producer )
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    // the entry poll() just took, consumer side only
+    private int code;
+    private long value;
+
+    /**
+     * Creates an empty queue.
+     * @param capacity The most entries it holds, a power of two.
+     */
+    public InputQueue(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        mask = capacity - 1;
+        codes = new int[capacity];
+        values = new long[capacity];
+    }
+
+    /**
+     * Adds an entry ( producer thread only ).
+     * @param code What the entry is.
+     * @param value Its data.
+     * @return False if the queue is full and the entry was dropped.
+     */
+    public boolean offer(int code, long value) {
+        long t = tail.get();
+        if (t - head.get() > mask) return false;
+        int i = (int) t & mask;
+        codes[i] = code;
+        values[i] = value;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Takes the oldest entry ( consumer thread only ), see code() and value().
+     * @return False if the queue is empty.
+     */
+    public boolean poll() {
+        long h = head.get();
+        if (h == tail.get()) return false;
+        int i = (int) h & mask;
+        code = codes[i];
+        value = values[i];
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    /**
+     * Returns the code of the entry poll() took ( consumer thread only ).
+     * @return What the entry is.
+     */
+    public int code() {
+        return code;
+    }
+
+    /**
+     * Returns the value of the entry poll() took ( consumer thread only ).
+     * @return Its data.
+     */
+    public long value() {
+        return value;
+    }
+
+    /**
+     * Returns how many entries are waiting ( exact only on the two queue threads ).
+     * @return The number of entries.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
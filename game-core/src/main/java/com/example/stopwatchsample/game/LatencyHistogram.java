@@ -0,0 +1,168 @@
+package com.example.stopwatchsample.game;
+
+import java.io.IOException;
+
+/**
+ * A fixed-memory histogram of non-negative values ( latencies in
+ * microseconds, say ) w/ log-spaced buckets, in the style of HdrHistogram.
+ *
+ * Every power of two is split into 32 linear sub-buckets, so a value is
+ * kept to within about 3% however large it is. Recording is a couple of
+ * bit operations and an array increment, and never allocates.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private final long[] counts;
+    private final long highest;
+    private long total;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Creates an empty histogram.
+     * @param highestValue The largest value kept exactly, larger ones are clamped to it.
+     */
+    public LatencyHistogram(long highestValue) {
+        this.highest = Math.max(SUB_COUNT * 2, highestValue);
+        this.counts = new long[bucketOf(highest) + 1];
+    }
+
+    // bucket = magnitude * 32 + ( value >>> magnitude ), magnitude = bits beyond the first 6
+    private static int bucketOf(long value) {
+        int magnitude = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - (SUB_BITS + 1));
+        return (magnitude << SUB_BITS) + (int) (value >>> magnitude);
+    }
+
+    /**
+     * Returns the smallest value that lands in the given bucket.
+     * @param bucket The bucket index.
+     * @return The bucket's lower bound.
+     */
+    public static long bucketLow(int bucket) {
+        int magnitude = Math.max(0, (bucket >> SUB_BITS) - 1);
+        return (long) (bucket - (magnitude << SUB_BITS)) << magnitude;
+    }
+
+    /**
+     * Returns the largest value that lands in the given bucket.
+     * @param bucket The bucket index.
+     * @return The bucket's upper bound.
+     */
+    public static long bucketHigh(int bucket) {
+        int magnitude = Math.max(0, (bucket >> SUB_BITS) - 1);
+        return ((long) (bucket - (magnitude << SUB_BITS) + 1) << magnitude) - 1;
+    }
+
+    /**
+     * Adds a value. Negative values count as 0, too large ones as the highest value.
+     * @param value The value.
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        if (value > highest) value = highest;
+        counts[bucketOf(value)]++;
+        total++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * Forgets every value.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        total = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Returns the number of values recorded.
+     * @return The count.
+     */
+    public long count() {
+        return total;
+    }
+
+    /**
+     * Returns the smallest value recorded.
+     * @return The minimum, or 0 if empty.
+     */
+    public long min() {
+        return total == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the largest value recorded.
+     * @return The maximum, or 0 if empty.
+     */
+    public long max() {
+        return max;
+    }
+
+    /**
+     * Returns the exact mean of the recorded values.
+     * @return The mean, or 0 if empty.
+     */
+    public double mean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    /**
+     * Returns the value below which the given share of the values fall.
+     * @param percentile 0 to 100.
+     * @return The upper bound of the bucket holding that value ( capped at max() ), or 0 if empty.
+     */
+    public long percentile(double percentile) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(bucketHigh(i), max);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of buckets.
+     * @return The bucket count.
+     */
+    public int bucketCount() {
+        return counts.length;
+    }
+
+    /**
+     * Returns how many values landed in the given bucket.
+     * @param bucket The bucket index.
+     * @return The count.
+     */
+    public long countAt(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Writes the non-empty buckets as CSV lines: name,low,high,count.
+     *
+     * @param name The first column, to tell histograms apart in one file.
+     * @param out Where to write.
+     * @throws IOException If out fails.
+     */
+    public void writeCsv(String name, Appendable out) throws IOException {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue;
+            out.append(name).append(',')
+                    .append(Long.toString(bucketLow(i))).append(',')
+                    .append(Long.toString(bucketHigh(i))).append(',')
+                    .append(Long.toString(counts[i])).append('\n');
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * The occupancy of the holes, stored as a primitive bitset.
+ * Setting, clearing and querying a hole never allocates.
+ *
+ * The holes are also kept in a permutation whose first count() entries
+ * are the occupied ones, so picking an empty hole is O(1) however full
+ * the board is.
+ *
+ * snapshot() copies the bits on demand: the first call after a change
+ * copies them, asking again before the next set() or clear() returns the
+ * same snapshot. Changes nobody snapshots in between cost nothing.
+ */
+public final class MoleBoard {
+
+    private final int numHoles;
+    private final long[] bits;
+    private final MoleSnapshot empty;
+    // the snapshot of the current bits, null once they change
+    private MoleSnapshot latest;
+    private int count;
+    // order[0 .. count) are occupied, order[count .. numHoles) are empty; pos is the inverse
+    private final int[] order;
+    private final int[] pos;
+
+    /**
+     * Creates an empty board.
+     *
+     * @param numHoles The number of holes on the board.
+     */
+    public MoleBoard(int numHoles) {
+        if (numHoles <= 0) throw new IllegalArgumentException("numHoles must be positive");
+        this.numHoles = numHoles;
+        this.bits = new long[(numHoles + 63) >>> 6];
+        this.empty = new MoleSnapshot(numHoles, new long[bits.length], 0);
+        this.order = new int[numHoles];
+        this.pos = new int[numHoles];
+        for (int i = 0; i < numHoles; i++) {
+            order[i] = i;
+            pos[i] = i;
+        }
+    }
+
+    /**
+     * Returns the number of holes on the board.
+     * @return The number of holes.
+     */
+    public int numHoles() {
+        return numHoles;
+    }
+
+    /**
+     * Returns the number of holes that contain a mole.
+     * @return The number of moles.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of holes w/o a mole.
+     * @return The number of empty holes.
+     */
+    public int emptyCount() {
+        return numHoles - count;
+    }
+
+    /**
+     * Returns whether every hole contains a mole.
+     * @return True if the board is full.
+     */
+    public boolean isFull() {
+        return count == numHoles;
+    }
+
+    /**
+     * Returns whether the hole w/ the given index contains a mole.
+     * @param index The index of the hole.
+     * @return True if there is a mole in the hole.
+     */
+    public boolean contains(int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the index of the next hole w/ a mole, starting at the given index.
+     * @param from The index to start searching at.
+     * @return The index of the hole, or -1 if there are no more moles.
+     */
+    public int nextActive(int from) {
+        if (from >= numHoles) return -1;
+        int word = from >>> 6;
+        long w = bits[word] & (-1L << from);
+        while (true) {
+            if (w != 0) return (word << 6) + Long.numberOfTrailingZeros(w);
+            if (++word == bits.length) return -1;
+            w = bits[word];
+        }
+    }
+
+    /**
+     * Puts a mole in the hole w/ the given index.
+     * @param index The index of the hole.
+     * @return True if the hole was empty before.
+     */
+    public boolean set(int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        if ((bits[word] & mask) != 0) return false;
+        bits[word] |= mask;
+        latest = null;
+        swap(pos[index], count);
+        count++;
+        return true;
+    }
+
+    /**
+     * Removes the mole from the hole w/ the given index.
+     * @param index The index of the hole.
+     * @return True if there was a mole in the hole.
+     */
+    public boolean clear(int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        if ((bits[word] & mask) == 0) return false;
+        bits[word] &= ~mask;
+        latest = null;
+        count--;
+        swap(pos[index], count);
+        return true;
+    }
+
+    /**
+     * Removes every mole from the board.
+     */
+    public void clearAll() {
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = 0;
+        }
+        latest = null;
+        count = 0;
+    }
+
+    /**
+     * Returns the n-th empty hole, in no particular order. O(1).
+     * Pass a uniform random n to pick a uniform random empty hole.
+     *
+     * @param n Which empty hole, must be less than emptyCount().
+     * @return The index of the hole.
+     */
+    public int emptyHole(int n) {
+        if (n < 0 || n >= numHoles - count) throw new IndexOutOfBoundsException("no empty hole " + n);
+        return order[count + n];
+    }
+
+    /**
+     * Copies the current occupancy into an immutable snapshot, unless it
+     * was already copied since the last change.
+     * @return The snapshot ( shared when the board is empty ).
+     */
+    public MoleSnapshot snapshot() {
+        if (count == 0) return empty;
+        if (latest == null) latest = new MoleSnapshot(numHoles, bits.clone(), count);
+        return latest;
+    }
+
+    // for a game snapshot: the permutation, which decides where the next moles go
+    void saveOrder(SnapshotBuffer out) {
+        for (int i = 0; i < numHoles; i++) {
+            out.putVarint(order[i]);
+        }
+    }
+
+    // after the moles are set again; the occupied holes must still come first
+    void restoreOrder(SnapshotBuffer in) {
+        int[] restored = new int[numHoles];
+        boolean[] seen = new boolean[numHoles];
+        for (int i = 0; i < numHoles; i++) {
+            int hole = in.getInt();
+            if (hole >= numHoles || seen[hole] || (i < count) != contains(hole)) {
+                throw new IllegalArgumentException("bad hole order at " + i);
+            }
+            seen[hole] = true;
+            restored[i] = hole;
+        }
+        for (int i = 0; i < numHoles; i++) {
+            order[i] = restored[i];
+            pos[restored[i]] = i;
+        }
+    }
+
+    // swap two positions of the permutation
+    private void swap(int i, int j) {
+        int a = order[i];
+        int b = order[j];
+        order[i] = b;
+        order[j] = a;
+        pos[b] = i;
+        pos[a] = j;
+    }
+}
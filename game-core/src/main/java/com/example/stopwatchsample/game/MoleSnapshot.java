@@ -0,0 +1,63 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * An immutable copy of which holes contain moles.
+ */
+public final class MoleSnapshot {
+
+    private final int numHoles;
+    private final long[] bits;
+    private final int count;
+
+    MoleSnapshot(int numHoles, long[] bits, int count) {
+        this.numHoles = numHoles;
+        this.bits = bits;
+        this.count = count;
+    }
+
+    /**
+     * Returns the number of holes on the board.
+     * @return The number of holes.
+     */
+    public int numHoles() {
+        return numHoles;
+    }
+
+    /**
+     * Returns the number of moles.
+     * @return The number of holes that contain a mole.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns whether the hole w/ the given index contains a mole.
+     * @param index The index of the hole.
+     * @return True if there is a mole in the hole.
+     */
+    public boolean contains(int index) {
+        return index >= 0 && index < numHoles && (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the index of the next hole w/ a mole, starting at the given index.
+     * Use it to walk the moles: for (int i = s.nextActive(0); i >= 0; i = s.nextActive(i + 1))
+     *
+     * @param from The index to start searching at.
+     * @return The index of the hole, or -1 if there are no more moles.
+     */
+    public int nextActive(int from) {
+        if (from >= numHoles) return -1;
+        int word = from >>> 6;
+        long w = bits[word] & (-1L << from);
+        while (true) {
+            if (w != 0) {
+                int idx = (word << 6) + Long.numberOfTrailingZeros(w);
+                return idx < numHoles ? idx : -1;
+            }
+            if (++word == bits.length) return -1;
+            w = bits[word];
+        }
+    }
+}
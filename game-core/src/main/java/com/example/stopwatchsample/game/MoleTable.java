@@ -0,0 +1,141 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * What is known about the mole in each hole, one primitive array per
+ * field ( structure of arrays ): its type, the hits it still takes, when it
+ * popped up, its deadline and what it's worth. A spawn overwrites a hole's
+ * slots, so moles of every type cost nothing to spawn, hit or time out.
+ *
+ * Which holes are occupied is MoleBoard's business; a free hole's slots
+ * just keep their last values.
+ */
+public final class MoleTable {
+
+    private final byte[] types;
+    private final int[] hitPoints;
+    private final long[] spawnedAt;
+    private final long[] deadlines;
+    private final int[] points;
+    // the copy copyTypes() last handed out, null once a type changes
+    private byte[] typesCopy;
+
+    /**
+     * Creates a table for the given number of holes.
+     * @param numHoles The number of holes.
+     */
+    public MoleTable(int numHoles) {
+        types = new byte[numHoles];
+        hitPoints = new int[numHoles];
+        spawnedAt = new long[numHoles];
+        deadlines = new long[numHoles];
+        points = new int[numHoles];
+    }
+
+    /**
+     * Fills a hole's slots for a new mole.
+     *
+     * @param hole The hole.
+     * @param type The mole's type.
+     * @param now When it popped up.
+     * @param deadline When it times out.
+     */
+    public void spawn(int hole, MoleType type, long now, long deadline) {
+        byte ordinal = (byte) type.ordinal();
+        if (types[hole] != ordinal) {
+            types[hole] = ordinal;
+            typesCopy = null;
+        }
+        hitPoints[hole] = type.hitPoints;
+        spawnedAt[hole] = now;
+        deadlines[hole] = deadline;
+        points[hole] = type.points;
+    }
+
+    /**
+     * Refills a hole's slots from a snapshot: a mole that may already have been hit.
+     *
+     * @param hole The hole.
+     * @param type The mole's type.
+     * @param hitPoints The hits it still takes.
+     * @param spawnedAt When it popped up.
+     * @param deadline When it times out.
+     */
+    void restore(int hole, MoleType type, int hitPoints, long spawnedAt, long deadline) {
+        spawn(hole, type, spawnedAt, deadline);
+        this.hitPoints[hole] = hitPoints;
+    }
+
+    /**
+     * Takes one hit point off the hole's mole.
+     * @param hole The hole.
+     * @return The hit points left, 0 when the mole is whacked.
+     */
+    public int hit(int hole) {
+        return --hitPoints[hole];
+    }
+
+    /**
+     * Moves a hole's times by the same amount ( a paused game resuming ).
+     * @param hole The hole.
+     * @param delta How far to move them, in milliseconds.
+     */
+    public void shift(int hole, long delta) {
+        spawnedAt[hole] += delta;
+        deadlines[hole] += delta;
+    }
+
+    /**
+     * Returns the type of the hole's mole.
+     * @param hole The hole.
+     * @return The type ( of the last mole there, if the hole is empty ).
+     */
+    public MoleType type(int hole) {
+        return MoleType.of(types[hole]);
+    }
+
+    /**
+     * Returns how many more hits the hole's mole takes.
+     * @param hole The hole.
+     * @return The hit points left.
+     */
+    public int hitPoints(int hole) {
+        return hitPoints[hole];
+    }
+
+    /**
+     * Returns when the hole's mole popped up.
+     * @param hole The hole.
+     * @return The spawn time, on the game clock.
+     */
+    public long spawnedAt(int hole) {
+        return spawnedAt[hole];
+    }
+
+    /**
+     * Returns when the hole's mole times out.
+     * @param hole The hole.
+     * @return The deadline, on the game clock.
+     */
+    public long deadline(int hole) {
+        return deadlines[hole];
+    }
+
+    /**
+     * Returns what whacking the hole's mole is worth.
+     * @param hole The hole.
+     * @return The points.
+     */
+    public int points(int hole) {
+        return points[hole];
+    }
+
+    /**
+     * Copies every hole's type ordinal, for a snapshot. The copy is shared
+     * until a spawn changes a hole's type, so it must not be written to.
+     * @return The types, one byte per hole.
+     */
+    byte[] copyTypes() {
+        if (typesCopy == null) typesCopy = types.clone();
+        return typesCopy;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * The kinds of mole, and how each one plays.
+ */
+public enum MoleType {
+    /** One hit, one point; letting it escape costs a life. */
+    NORMAL(1, 1, 100, true, false),
+    /** Takes three hits and stays up half again as long, worth three points. */
+    TOUGH(3, 3, 150, true, false),
+    /** Worth five points but gone in half the time; letting it escape is free. */
+    BONUS(1, 5, 50, false, false),
+    /** Leave it alone: hitting it costs a life, letting it go down is free. */
+    DECOY(1, 0, 100, false, true);
+
+    // values() copies, index lookups use this one
+    private static final MoleType[] BY_ORDINAL = values();
+
+    /** The hits it takes to whack it. */
+    public final int hitPoints;
+    /** The points it's worth when whacked. */
+    public final int points;
+    /** How long it stays up, in percent of the level's mole duration. */
+    public final int durationPercent;
+    /** Whether it costs a life when it times out. */
+    public final boolean timeoutCostsLife;
+    /** Whether it costs a life when it's whacked. */
+    public final boolean hitCostsLife;
+
+    MoleType(int hitPoints, int points, int durationPercent, boolean timeoutCostsLife, boolean hitCostsLife) {
+        this.hitPoints = hitPoints;
+        this.points = points;
+        this.durationPercent = durationPercent;
+        this.timeoutCostsLife = timeoutCostsLife;
+        this.hitCostsLife = hitCostsLife;
+    }
+
+    /**
+     * Returns the type w/ the given ordinal, w/o allocating.
+     * @param ordinal The ordinal.
+     * @return The type.
+     */
+    public static MoleType of(int ordinal) {
+        return BY_ORDINAL[ordinal];
+    }
+
+    /**
+     * Returns the number of types.
+     * @return The count.
+     */
+    public static int count() {
+        return BY_ORDINAL.length;
+    }
+}
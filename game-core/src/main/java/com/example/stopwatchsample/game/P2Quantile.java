@@ -0,0 +1,161 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * Estimates one quantile of a stream w/o keeping the samples: the P-square
+ * algorithm ( Jain & Chlamtac, 1985 ). Five markers track the minimum, the
+ * quantile, the maximum and two points halfway between; each new sample
+ * moves them w/ a piecewise-parabolic fit. Fixed memory, no allocation.
+ *
+ * Up to five samples the answer is exact.
+ */
+public final class P2Quantile {
+
+    private final double p;
+    // marker heights, positions ( 1-based ), desired positions and their increments
+    private final double[] q = new double[5];
+    private final int[] n = new int[5];
+    private final double[] desired = new double[5];
+    private final double[] step = new double[5];
+    private long count;
+
+    /**
+     * Creates an estimator w/ no samples.
+     * @param p The quantile, between 0 and 1 ( 0.5 = the median ).
+     */
+    public P2Quantile(double p) {
+        if (!(p > 0 && p < 1)) throw new IllegalArgumentException("quantile must be in ( 0, 1 )");
+        this.p = p;
+        step[0] = 0;
+        step[1] = p / 2;
+        step[2] = p;
+        step[3] = (1 + p) / 2;
+        step[4] = 1;
+    }
+
+    /**
+     * Returns which quantile this estimates.
+     * @return The quantile, between 0 and 1.
+     */
+    public double quantile() {
+        return p;
+    }
+
+    /**
+     * Returns the number of samples added.
+     * @return The count.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Adds a sample.
+     * @param x The sample.
+     */
+    public void add(double x) {
+        if (count < 5) {
+            // keep the first five sorted, they become the markers
+            int i = (int) count;
+            while (i > 0 && q[i - 1] > x) {
+                q[i] = q[i - 1];
+                i--;
+            }
+            q[i] = x;
+            count++;
+            if (count == 5) {
+                for (int m = 0; m < 5; m++) {
+                    n[m] = m + 1;
+                    desired[m] = 1 + 4 * step[m];
+                }
+            }
+            return;
+        }
+        count++;
+
+        // the cell the sample falls in, stretching the ends if it's a new extreme
+        int k;
+        if (x < q[0]) {
+            q[0] = x;
+            k = 0;
+        } else if (x >= q[4]) {
+            q[4] = Math.max(q[4], x);
+            k = 3;
+        } else {
+            k = 0;
+            while (x >= q[k + 1]) k++;
+        }
+        for (int m = k + 1; m < 5; m++) {
+            n[m]++;
+        }
+        for (int m = 0; m < 5; m++) {
+            desired[m] += step[m];
+        }
+
+        // nudge the middle markers toward where they should be
+        for (int m = 1; m < 4; m++) {
+            double d = desired[m] - n[m];
+            if ((d >= 1 && n[m + 1] - n[m] > 1) || (d <= -1 && n[m - 1] - n[m] < -1)) {
+                int s = d > 0 ? 1 : -1;
+                double h = parabolic(m, s);
+                if (q[m - 1] < h && h < q[m + 1]) {
+                    q[m] = h;
+                } else {
+                    q[m] += s * (q[m + s] - q[m]) / (n[m + s] - n[m]);
+                }
+                n[m] += s;
+            }
+        }
+    }
+
+    // the P-square parabolic prediction for marker m moved by s
+    private double parabolic(int m, int s) {
+        double left = n[m] - n[m - 1];
+        double right = n[m + 1] - n[m];
+        return q[m] + s / (double) (n[m + 1] - n[m - 1])
+                * ((left + s) * (q[m + 1] - q[m]) / right + (right - s) * (q[m] - q[m - 1]) / left);
+    }
+
+    /**
+     * Returns the estimate.
+     * @return The quantile of the samples so far, or NaN if there are none.
+     */
+    public double get() {
+        if (count == 0) return Double.NaN;
+        if (count < 5) return q[(int) Math.round(p * (count - 1))];
+        return q[2];
+    }
+
+    /**
+     * Forgets every sample.
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    // the markers, for a game snapshot
+    void save(SnapshotBuffer out) {
+        out.putVarint(count);
+        int markers = (int) Math.min(count, 5);
+        for (int m = 0; m < markers; m++) {
+            out.putDouble(q[m]);
+        }
+        if (count < 5) return;
+        for (int m = 0; m < 5; m++) {
+            out.putVarint(n[m]);
+            out.putDouble(desired[m]);
+        }
+    }
+
+    void restore(SnapshotBuffer in) {
+        count = in.getVarint();
+        int markers = (int) Math.min(count, 5);
+        for (int m = 0; m < markers; m++) {
+            q[m] = in.getDouble();
+        }
+        if (count < 5) return;
+        for (int m = 0; m < 5; m++) {
+            n[m] = in.getInt();
+            desired[m] = in.getDouble();
+        }
+    }
+}
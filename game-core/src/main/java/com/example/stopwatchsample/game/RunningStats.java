@@ -0,0 +1,80 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * Count, mean and variance of a stream, updated one sample at a time
+ * ( Welford's method, which stays accurate where a sum of squares would
+ * cancel out ). Fixed memory, no allocation.
+ */
+public final class RunningStats {
+
+    private long count;
+    private double mean;
+    // sum of squared differences from the current mean
+    private double m2;
+
+    /**
+     * Adds a sample.
+     * @param x The sample.
+     */
+    public void add(double x) {
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+    }
+
+    /**
+     * Returns the number of samples added.
+     * @return The count.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the mean of the samples.
+     * @return The mean, or 0 if there are none.
+     */
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * Returns the sample variance.
+     * @return The variance, or 0 w/ fewer than two samples.
+     */
+    public double variance() {
+        return count > 1 ? m2 / (count - 1) : 0;
+    }
+
+    /**
+     * Returns the sample standard deviation.
+     * @return The standard deviation, or 0 w/ fewer than two samples.
+     */
+    public double stdDev() {
+        return Math.sqrt(variance());
+    }
+
+    /**
+     * Forgets every sample.
+     */
+    public void reset() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+    }
+
+    // for a game snapshot
+    void save(SnapshotBuffer out) {
+        out.putVarint(count);
+        if (count == 0) return;
+        out.putDouble(mean);
+        out.putDouble(m2);
+    }
+
+    void restore(SnapshotBuffer in) {
+        count = in.getVarint();
+        mean = count == 0 ? 0 : in.getDouble();
+        m2 = count == 0 ? 0 : in.getDouble();
+    }
+}
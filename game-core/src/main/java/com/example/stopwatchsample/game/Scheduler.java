@@ -0,0 +1,26 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * Runs the game's delayed work ( mole timeouts, spawning ).
+ * Mirrors the parts of android.os.Handler that the game uses.
+ */
+public interface Scheduler {
+
+    /**
+     * Runs the task after the given delay.
+     * @param task The task to run.
+     * @param delayMillis How long to wait, in milliseconds.
+     */
+    void postDelayed(Runnable task, long delayMillis);
+
+    /**
+     * Cancels every pending run of the task.
+     * @param task The task to cancel.
+     */
+    void removeCallbacks(Runnable task);
+
+    /**
+     * Cancels every pending task.
+     */
+    void removeAll();
+}
@@ -0,0 +1,102 @@
+package com.example.stopwatchsample.game;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Games from one install, as they go to the leaderboard server in a single
+ * request: gzip-compressed, big-endian.
+ * <pre>
+ * "WMSB", version, install id ( 8 bytes ), count,
+ * then per game: sequence ( 8 ), score, duration ( 8 ), hits, misses, timestamp ( 8 )
+ * </pre>
+ * The server stores each ( install id, sequence ) once, so a batch sent
+ * again after a lost reply changes nothing.
+ */
+public final class ScoreBatch {
+
+    /** The media type of an encoded batch. */
+    public static final String CONTENT_TYPE = "application/x-whackmole-scores";
+
+    private static final int MAGIC = 0x574D5342; // "WMSB"
+    private static final int VERSION = 1;
+
+    public final long installId;
+    public final List<ScoreOutbox.Entry> entries;
+
+    /**
+     * Creates a batch.
+     * @param installId The install the games were played on.
+     * @param entries The games, oldest first.
+     */
+    public ScoreBatch(long installId, List<ScoreOutbox.Entry> entries) {
+        this.installId = installId;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Returns the sequence of the newest game in the batch.
+     * @return The last sequence, or 0 if the batch is empty.
+     */
+    public long lastSequence() {
+        return entries.isEmpty() ? 0 : entries.get(entries.size() - 1).sequence;
+    }
+
+    /**
+     * Encodes and compresses the batch.
+     * @return The request body.
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + entries.size() * 12);
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(installId);
+            out.writeInt(entries.size());
+            for (ScoreOutbox.Entry entry : entries) {
+                GameRecord game = entry.game;
+                out.writeLong(entry.sequence);
+                out.writeInt(game.score);
+                out.writeLong(game.durationMillis);
+                out.writeInt(game.hits);
+                out.writeInt(game.misses);
+                out.writeLong(game.timestamp);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("writing to memory failed", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decompresses and decodes a batch.
+     * @param body The request body.
+     * @return The batch.
+     * @throws IOException If the body isn't a batch.
+     */
+    public static ScoreBatch decode(byte[] body) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(body)))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a score batch");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unknown score batch version " + version);
+            long installId = in.readLong();
+            int count = in.readInt();
+            if (count < 0) throw new IOException("bad score batch count " + count);
+            List<ScoreOutbox.Entry> entries = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                long sequence = in.readLong();
+                entries.add(new ScoreOutbox.Entry(sequence, new GameRecord(in.readInt(), in.readLong(),
+                        in.readInt(), in.readInt(), in.readLong())));
+            }
+            return new ScoreBatch(installId, entries);
+        }
+    }
+}
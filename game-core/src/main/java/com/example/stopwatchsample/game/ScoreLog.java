@@ -0,0 +1,237 @@
+package com.example.stopwatchsample.game;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Every finished game, in an append-only file of fixed-size records.
+ *
+ * The file is an 8 byte header ( magic, version ) followed by one
+ * RECORD_BYTES record per game; a record cut short by a crash is dropped
+ * when the log is opened. Ranks and the leaderboard come from an index
+ * that is built from the file on the first query and then kept up to date
+ * by append(): every score in sorted order ( rank = a binary search ) and
+ * a min-heap of the best records. The methods block on disk I/O, so call
+ * them off the main thread. Thread-safe.
+ */
+public final class ScoreLog implements Closeable {
+
+    /** The size of one record: score, duration, hits, misses, timestamp. */
+    public static final int RECORD_BYTES = 4 + 8 + 4 + 4 + 8;
+
+    private static final int MAGIC = 0x574D534C; // "WMSL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int READ_RECORDS = 2048;
+
+    // best score first, then the oldest game
+    private static final Comparator<GameRecord> BEST_FIRST = (a, b) ->
+            a.score != b.score ? Integer.compare(b.score, a.score) : Long.compare(a.timestamp, b.timestamp);
+
+    private final FileChannel channel;
+    private final int topSize;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private int size;
+
+    // the index, null until the first query
+    private int[] sortedScores;
+    private PriorityQueue<GameRecord> top;
+
+    /**
+     * Opens ( or creates ) a log.
+     *
+     * @param file The log file.
+     * @param topSize How many records the leaderboard keeps.
+     * @throws IOException If the file can't be opened or isn't a score log.
+     */
+    public ScoreLog(File file, int topSize) throws IOException {
+        if (topSize <= 0) throw new IllegalArgumentException("topSize must be positive");
+        this.topSize = topSize;
+        // not FileChannel.open(), java.nio.file needs API 26
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        try {
+            openHeader();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void openHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (channel.size() < HEADER_BYTES) {
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            writeFully(header, 0);
+            size = 0;
+            return;
+        }
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) throw new IOException("not a score log");
+        int version = header.getInt();
+        if (version != VERSION) throw new IOException("unknown score log version " + version);
+
+        size = (int) ((channel.size() - HEADER_BYTES) / RECORD_BYTES);
+        // drop a record cut short by a crash
+        channel.truncate(HEADER_BYTES + (long) size * RECORD_BYTES);
+    }
+
+    /**
+     * Adds a game to the end of the log ( and to the index, if it's built ).
+     * @param game The finished game.
+     * @throws IOException If the write fails.
+     */
+    public synchronized void append(GameRecord game) throws IOException {
+        record.clear();
+        record.putInt(game.score).putLong(game.durationMillis)
+                .putInt(game.hits).putInt(game.misses).putLong(game.timestamp).flip();
+        writeFully(record, HEADER_BYTES + (long) size * RECORD_BYTES);
+        size++;
+        if (sortedScores != null) addToIndex(game);
+    }
+
+    /**
+     * Returns the number of games in the log.
+     * @return The record count.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns where a score ranks among every game in the log.
+     * @param score The score.
+     * @return 1 + the number of games that scored higher.
+     * @throws IOException If the index has to be built and reading fails.
+     */
+    public synchronized int rank(int score) throws IOException {
+        buildIndex();
+        return 1 + size - upperBound(score);
+    }
+
+    /**
+     * Returns the best score in the log.
+     * @return The personal best, or 0 if the log is empty.
+     * @throws IOException If the index has to be built and reading fails.
+     */
+    public synchronized int bestScore() throws IOException {
+        buildIndex();
+        return size == 0 ? 0 : sortedScores[size - 1];
+    }
+
+    /**
+     * Returns the leaderboard.
+     * @return Up to topSize records, best first ( ties: oldest first ).
+     * @throws IOException If the index has to be built and reading fails.
+     */
+    public synchronized List<GameRecord> top() throws IOException {
+        buildIndex();
+        List<GameRecord> list = new ArrayList<>(top);
+        Collections.sort(list, BEST_FIRST);
+        return list;
+    }
+
+    /**
+     * Reads every game in the log, oldest first.
+     * @return The records.
+     * @throws IOException If reading fails.
+     */
+    public synchronized List<GameRecord> readAll() throws IOException {
+        List<GameRecord> all = new ArrayList<>(size);
+        ByteBuffer buffer = ByteBuffer.allocate(READ_RECORDS * RECORD_BYTES);
+        long position = HEADER_BYTES;
+        long end = HEADER_BYTES + (long) size * RECORD_BYTES;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            readFully(buffer, position);
+            position += buffer.limit();
+            buffer.flip();
+            while (buffer.remaining() >= RECORD_BYTES) {
+                all.add(new GameRecord(buffer.getInt(), buffer.getLong(),
+                        buffer.getInt(), buffer.getInt(), buffer.getLong()));
+            }
+        }
+        return all;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void buildIndex() throws IOException {
+        if (sortedScores != null) return;
+        List<GameRecord> all = readAll();
+        int[] scores = new int[Math.max(16, all.size() * 2)];
+        PriorityQueue<GameRecord> heap = new PriorityQueue<>(topSize + 1, Collections.reverseOrder(BEST_FIRST));
+        for (int i = 0; i < all.size(); i++) {
+            GameRecord game = all.get(i);
+            scores[i] = game.score;
+            offerTop(heap, game);
+        }
+        Arrays.sort(scores, 0, all.size());
+        sortedScores = scores;
+        top = heap;
+    }
+
+    private void addToIndex(GameRecord game) {
+        int count = size - 1; // size already includes the new game
+        if (count == sortedScores.length) sortedScores = Arrays.copyOf(sortedScores, count * 2);
+        int at = upperBound(game.score, count);
+        System.arraycopy(sortedScores, at, sortedScores, at + 1, count - at);
+        sortedScores[at] = game.score;
+        offerTop(top, game);
+    }
+
+    // the heap's head is the worst record on the leaderboard
+    private void offerTop(PriorityQueue<GameRecord> heap, GameRecord game) {
+        if (heap.size() < topSize) {
+            heap.add(game);
+        } else if (BEST_FIRST.compare(game, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(game);
+        }
+    }
+
+    private int upperBound(int score) {
+        return upperBound(score, size);
+    }
+
+    // the first index in sortedScores[0, count) w/ a score above the given one
+    private int upperBound(int score, int count) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedScores[mid] <= score) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new IOException("score log ended early");
+            position += read;
+        }
+    }
+}
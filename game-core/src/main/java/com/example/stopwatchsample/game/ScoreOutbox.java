@@ -0,0 +1,226 @@
+package com.example.stopwatchsample.game;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finished games waiting to be sent to the leaderboard, in an append-only
+ * file that survives the app being killed.
+ *
+ * The file is a HEADER_BYTES header ( magic, version, install id, the
+ * last acknowledged sequence ) followed by one RECORD_BYTES record per
+ * game: its sequence number and its GameRecord. Sequence numbers count up
+ * from 1 and never repeat for an install, so ( install id, sequence ) is
+ * a submission id the server can use to ignore a batch it has already
+ * stored. Once every record is acknowledged the file is cut back to its
+ * header. Like ScoreLog, a record cut short by a crash is dropped when
+ * the file is opened, and the methods block on disk I/O. Thread-safe.
+ *
+ * Only one ScoreOutbox may have a file open at a time: each keeps its own
+ * idea of where the records start and end. A second one is refused ( the
+ * file is locked ) instead of overwriting records.
+ */
+public final class ScoreOutbox implements Closeable {
+
+    /** The size of one record: sequence, then a ScoreLog record. */
+    public static final int RECORD_BYTES = 8 + ScoreLog.RECORD_BYTES;
+
+    private static final int MAGIC = 0x574D534F; // "WMSO"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8;
+    private static final int ACKED_AT = 16;
+
+    /**
+     * A game in the outbox.
+     */
+    public static final class Entry {
+        /** Its sequence number, unique for the install. */
+        public final long sequence;
+        public final GameRecord game;
+
+        /**
+         * Creates an entry.
+         * @param sequence The sequence number.
+         * @param game The game.
+         */
+        public Entry(long sequence, GameRecord game) {
+            this.sequence = sequence;
+            this.game = game;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private final ByteBuffer acked = ByteBuffer.allocate(8);
+    private long installId;
+    private long lastAcked;
+    // the sequence of the first record in the file, and of the next one to append
+    private long firstInFile;
+    private long next;
+
+    /**
+     * Opens ( or creates ) an outbox. A new one gets a random install id.
+     * @param file The outbox file.
+     * @throws IOException If the file can't be opened, is open in another outbox, or isn't an outbox.
+     */
+    public ScoreOutbox(File file) throws IOException {
+        // not FileChannel.open(), java.nio.file needs API 26
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        try {
+            lock();
+            openHeader();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // held until close()
+    private void lock() throws IOException {
+        try {
+            if (channel.tryLock() == null) throw new IOException("score outbox is open in another process");
+        } catch (OverlappingFileLockException e) {
+            throw new IOException("score outbox is already open", e);
+        }
+    }
+
+    private void openHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (channel.size() < HEADER_BYTES) {
+            installId = new SecureRandom().nextLong();
+            lastAcked = 0;
+            header.putInt(MAGIC).putInt(VERSION).putLong(installId).putLong(lastAcked).flip();
+            channel.truncate(0);
+            writeFully(header, 0);
+            channel.force(false);
+            firstInFile = next = 1;
+            return;
+        }
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) throw new IOException("not a score outbox");
+        int version = header.getInt();
+        if (version != VERSION) throw new IOException("unknown score outbox version " + version);
+        installId = header.getLong();
+        lastAcked = header.getLong();
+
+        int size = (int) ((channel.size() - HEADER_BYTES) / RECORD_BYTES);
+        // drop a record cut short by a crash
+        channel.truncate(HEADER_BYTES + (long) size * RECORD_BYTES);
+        if (size == 0) {
+            firstInFile = next = lastAcked + 1;
+        } else {
+            ByteBuffer first = ByteBuffer.allocate(8);
+            readFully(first, HEADER_BYTES);
+            first.flip();
+            firstInFile = first.getLong();
+            next = firstInFile + size;
+        }
+    }
+
+    /**
+     * Returns the random id this outbox was created w/.
+     * @return The install id.
+     */
+    public synchronized long installId() {
+        return installId;
+    }
+
+    /**
+     * Adds a game and waits for it to reach the disk.
+     * @param game The finished game.
+     * @return Its sequence number.
+     * @throws IOException If the write fails.
+     */
+    public synchronized long append(GameRecord game) throws IOException {
+        long sequence = next;
+        record.clear();
+        record.putLong(sequence).putInt(game.score).putLong(game.durationMillis)
+                .putInt(game.hits).putInt(game.misses).putLong(game.timestamp).flip();
+        writeFully(record, positionOf(sequence));
+        channel.force(false);
+        next++;
+        return sequence;
+    }
+
+    /**
+     * Returns the number of games not acknowledged yet.
+     * @return The pending count.
+     */
+    public synchronized int pending() {
+        return (int) (next - 1 - lastAcked);
+    }
+
+    /**
+     * Reads the oldest games not acknowledged yet.
+     * @param max The most games to read.
+     * @return Up to max entries, oldest first.
+     * @throws IOException If reading fails.
+     */
+    public synchronized List<Entry> peek(int max) throws IOException {
+        long from = Math.max(lastAcked + 1, firstInFile);
+        int count = (int) Math.min(max, next - from);
+        List<Entry> entries = new ArrayList<>(Math.max(0, count));
+        if (count <= 0) return entries;
+        ByteBuffer buffer = ByteBuffer.allocate(count * RECORD_BYTES);
+        readFully(buffer, positionOf(from));
+        buffer.flip();
+        for (int i = 0; i < count; i++) {
+            long sequence = buffer.getLong();
+            entries.add(new Entry(sequence, new GameRecord(buffer.getInt(), buffer.getLong(),
+                    buffer.getInt(), buffer.getInt(), buffer.getLong())));
+        }
+        return entries;
+    }
+
+    /**
+     * Marks every game up to the given sequence as stored by the server.
+     * When nothing is left the file is cut back to its header.
+     * @param sequence The last sequence the server has.
+     * @throws IOException If the write fails.
+     */
+    public synchronized void acknowledge(long sequence) throws IOException {
+        if (sequence <= lastAcked) return;
+        lastAcked = Math.min(sequence, next - 1);
+        acked.clear();
+        acked.putLong(lastAcked).flip();
+        writeFully(acked, ACKED_AT);
+        channel.force(false);
+        if (lastAcked == next - 1) {
+            // a crash before this leaves acknowledged records, which opening skips
+            channel.truncate(HEADER_BYTES);
+            firstInFile = next;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private long positionOf(long sequence) {
+        return HEADER_BYTES + (sequence - firstInFile) * RECORD_BYTES;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new IOException("score outbox ended early");
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.stopwatchsample.game;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends finished games to the leaderboard, offline first: a game goes into
+ * a ScoreOutbox on disk, and the outbox is flushed in batches of up to
+ * MAX_BATCH games on the uploader's own thread.
+ *
+ * A failed flush ( no network, a 5xx, a timeout ) is retried after an
+ * exponential backoff w/ jitter. Games submitted in the meantime wait
+ * for that retry, so an offline session ends up in a few large batches
+ * instead of many failed requests. A batch is only acknowledged once the
+ * server took it. Resending it after a lost reply is harmless, since the
+ * server keys games by ( install id, sequence ). Whatever is still in the
+ * outbox when the app dies goes out the next time an uploader opens it.
+ */
+public final class ScoreUploader implements Closeable {
+
+    /** The most games sent in one request. */
+    public static final int MAX_BATCH = 100;
+
+    private static final Logger LOG = Logger.getLogger("ScoreUploader");
+    // how long close() waits for queued work, a send in flight included
+    private static final long CLOSE_TIMEOUT_MS = 30_000;
+
+    /**
+     * Sends one encoded ScoreBatch.
+     */
+    public interface Transport {
+        /**
+         * Sends the batch, blocking until the server answers.
+         * @param body The encoded batch ( ScoreBatch.encode() ).
+         * @return The HTTP status.
+         * @throws IOException If there was no answer.
+         */
+        int post(byte[] body) throws IOException;
+    }
+
+    private final File file;
+    private final Transport transport;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Random jitter = new Random();
+
+    // the uploader thread only
+    private ScoreOutbox outbox;
+    private ScheduledFuture<?> retry;
+    private boolean flushQueued;
+    private int failures;
+    // counters, for tests and debugging
+    private volatile int sentBatches;
+    private volatile int failedAttempts;
+    private volatile int pending = -1;
+
+    /**
+     * Creates an uploader; nothing is read or sent until the first call.
+     *
+     * @param file The outbox file.
+     * @param transport Where batches go.
+     * @param baseDelayMillis How long to wait after the first failure.
+     * @param maxDelayMillis The longest wait, however many failures in a row.
+     */
+    public ScoreUploader(File file, Transport transport, long baseDelayMillis, long maxDelayMillis) {
+        if (baseDelayMillis <= 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("bad backoff " + baseDelayMillis + ".." + maxDelayMillis);
+        }
+        this.file = file;
+        this.transport = transport;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "score-upload"));
+        // a retry waiting on its backoff must not keep a closed uploader alive
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Puts a game in the outbox and sends it as soon as the network lets it.
+     * @param game The finished game.
+     */
+    public void submit(GameRecord game) {
+        executor.execute(() -> {
+            try {
+                open().append(game);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "saving a score for upload failed", e);
+                return;
+            }
+            // games submitted back to back are appended before this runs, and go in one batch
+            if (flushQueued) return;
+            if (executor.isShutdown()) {
+                flush(); // closing, nothing else is coming
+                return;
+            }
+            flushQueued = true;
+            executor.execute(() -> {
+                flushQueued = false;
+                flush();
+            });
+        });
+    }
+
+    /**
+     * Sends whatever is in the outbox ( games left from an earlier run, say ),
+     * unless a retry is already waiting.
+     */
+    public void flushPending() {
+        executor.execute(this::flush);
+    }
+
+    /**
+     * Returns the number of batches the server took.
+     * @return The batch count.
+     */
+    public int getSentBatches() {
+        return sentBatches;
+    }
+
+    /**
+     * Returns the number of sends that failed and will be retried.
+     * @return The failure count.
+     */
+    public int getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    /**
+     * Returns the number of games still in the outbox, as of the uploader's last look.
+     * @return The pending count, or -1 before the outbox was opened.
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * Stops uploading and closes the outbox once the work already queued is
+     * done, and waits for that, so another uploader can open the file right
+     * after. The outbox keeps whatever wasn't sent. Blocks, keep it off the
+     * main thread.
+     */
+    @Override
+    public void close() {
+        executor.execute(() -> {
+            try {
+                if (outbox != null) outbox.close();
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "closing the score outbox failed", e);
+            }
+        });
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                LOG.warning("score uploader still busy after " + CLOSE_TIMEOUT_MS + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // the base delay doubled for each failure in a row, capped, w/ its upper half random
+    private long backoff(int failures, Random random) {
+        long delay = baseDelayMillis << Math.min(failures - 1, 30);
+        if (delay <= 0 || delay > maxDelayMillis) delay = maxDelayMillis;
+        long half = delay / 2;
+        return half + (long) (random.nextDouble() * (delay - half));
+    }
+
+    private ScoreOutbox open() throws IOException {
+        if (outbox == null) outbox = new ScoreOutbox(file);
+        return outbox;
+    }
+
+    // send batches until the outbox is empty or a send fails
+    private void flush() {
+        if (retry != null) return; // a retry is coming, everything new goes w/ it
+        try {
+            ScoreOutbox box = open();
+            while (true) {
+                pending = box.pending();
+                List<ScoreOutbox.Entry> entries = box.peek(MAX_BATCH);
+                if (entries.isEmpty()) break;
+                ScoreBatch batch = new ScoreBatch(box.installId(), entries);
+                int status = transport.post(batch.encode());
+                if (status / 100 != 2 && retryable(status)) {
+                    throw new IOException("leaderboard answered " + status);
+                }
+                if (status / 100 != 2) {
+                    // the server will never take it, don't let it block the games behind it
+                    LOG.warning("leaderboard rejected a batch w/ " + status + ", dropping it");
+                }
+                box.acknowledge(batch.lastSequence());
+                sentBatches++;
+                failures = 0;
+            }
+        } catch (IOException e) {
+            failures++;
+            failedAttempts++;
+            long delay = backoff(failures, jitter);
+            LOG.log(Level.FINE, "score upload failed, retrying in " + delay + " ms", e);
+            if (executor.isShutdown()) return;
+            retry = executor.schedule(() -> {
+                retry = null;
+                flush();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // timeouts, throttling and server trouble pass; anything else is the batch's fault
+    private static boolean retryable(int status) {
+        return status == 408 || status == 429 || status >= 500 || status < 200;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.stopwatchsample.game;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a stream written by SessionWriter, one event at a time.
+ *
+ * next() fills in type(), time(), hole() and value() w/o allocating. A
+ * stream cut off in the middle of an event ( the app died while recording )
+ * simply ends before that event.
+ */
+public final class SessionReader implements Closeable {
+
+    private final InputStream in;
+    private final GameConfig config;
+    private final int version;
+    private final long tapGrace;
+    private int type;
+    private long time;
+    private int hole;
+    private long value;
+
+    /**
+     * Reads the header.
+     * @param in The recorded stream, closed by close().
+     * @throws IOException If the stream isn't a recording this version can read.
+     */
+    public SessionReader(InputStream in) throws IOException {
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in);
+        for (byte b : SessionWriter.MAGIC) {
+            if (readByte() != b) throw new IOException("not a session recording");
+        }
+        version = (int) readVarint();
+        if (version < 1 || version > SessionWriter.VERSION) {
+            throw new IOException("unknown recording version " + version);
+        }
+        int numHoles = (int) readVarint();
+        int lives = (int) readVarint();
+        long moleDur = readVarint();
+        long spawnInterval = readVarint();
+        double rate = Double.longBitsToDouble(readFixed());
+        int scorePerMole = (int) readVarint();
+        int scorePerTimeoutLevel = (int) readVarint();
+        tapGrace = version >= 2 ? readVarint() : 0;
+        int[] weights = new int[MoleType.count()];
+        weights[MoleType.NORMAL.ordinal()] = 1;
+        if (version >= 3) {
+            int types = (int) readVarint();
+            if (types != weights.length) throw new IOException("recorded w/ " + types + " mole types");
+            for (int i = 0; i < types; i++) {
+                weights[i] = (int) readVarint();
+            }
+        }
+        config = new GameConfig(numHoles, lives, moleDur, spawnInterval, rate, scorePerMole,
+                scorePerTimeoutLevel, weights);
+    }
+
+    /**
+     * Returns the settings the session was played w/.
+     * @return The config.
+     */
+    public GameConfig config() {
+        return config;
+    }
+
+    /**
+     * Returns the tap grace the session was played w/.
+     * @return The grace in milliseconds, see WhackmoleGame.setTapGrace().
+     */
+    public long tapGrace() {
+        return tapGrace;
+    }
+
+    /**
+     * Moves to the next event.
+     * @return False at the end of the stream.
+     * @throws IOException If reading fails or the stream is corrupt.
+     */
+    public boolean next() throws IOException {
+        int b = in.read();
+        if (b < 0) return false;
+        try {
+            type = b;
+            time += readVarint();
+            hole = -1;
+            value = 0;
+            switch (type) {
+                case GameRecorder.START:
+                    value = readFixed();
+                    break;
+                case GameRecorder.STOP:
+                    value = readVarint();
+                    break;
+                case GameRecorder.TAP:
+                    hole = (int) readVarint();
+                    value = version >= 2 ? time - readVarint() : time;
+                    break;
+                case GameRecorder.WAKEUP:
+                case GameRecorder.PAUSE:
+                case GameRecorder.RESUME:
+                    break;
+                case GameRecorder.SPAWN:
+                    hole = (int) readVarint();
+                    value = time + readVarint();
+                    break;
+                case GameRecorder.HIT:
+                case GameRecorder.TIMEOUT:
+                    hole = (int) readVarint();
+                    value = readVarint();
+                    break;
+                default:
+                    throw new IOException("unknown event type " + type);
+            }
+            return true;
+        } catch (EOFException e) {
+            return false; // cut off mid-event
+        }
+    }
+
+    /**
+     * Returns the type of the event next() read.
+     * @return The event type ( GameRecorder.START, ... ).
+     */
+    public int type() {
+        return type;
+    }
+
+    /**
+     * Returns when the event next() read happened.
+     * @return The time, on the game clock.
+     */
+    public long time() {
+        return time;
+    }
+
+    /**
+     * Returns the hole of the event next() read.
+     * @return The hole involved, or -1.
+     */
+    public int hole() {
+        return hole;
+    }
+
+    /**
+     * Returns the extra data of the event next() read.
+     * @return The value, see GameRecorder.
+     */
+    public long value() {
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException();
+        return b;
+    }
+
+    private long readVarint() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IOException("varint too long");
+    }
+
+    private long readFixed() throws IOException {
+        long result = 0;
+        for (int i = 0; i < 8; i++) {
+            result = (result << 8) | readByte();
+        }
+        return result;
+    }
+}
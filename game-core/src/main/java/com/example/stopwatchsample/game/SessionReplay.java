@@ -0,0 +1,194 @@
+package com.example.stopwatchsample.game;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Plays a recorded session back through a fresh WhackmoleGame and checks
+ * that it comes out the same.
+ *
+ * Only the inputs are fed in: each game starts w/ the recorded GameRandom
+ * state, taps land at their recorded times, and the tick runs exactly when
+ * it ran live ( late wake-ups included ). Every outcome the replay produces
+ * must then match the recorded one, in order. Time is virtual, so a replay
+ * takes as long as the game logic does, not as long as the game did.
+ */
+public final class SessionReplay {
+
+    /**
+     * What a replay found.
+     */
+    public static final class Result {
+        /** The number of events read. */
+        public final long events;
+        /** The score at the end of the replay. */
+        public final int score;
+        /** The lives left at the end of the replay. */
+        public final int lives;
+        /** Where the replay went its own way, or null if it matched the recording. */
+        public final String mismatch;
+
+        Result(long events, int score, int lives, String mismatch) {
+            this.events = events;
+            this.score = score;
+            this.lives = lives;
+            this.mismatch = mismatch;
+        }
+
+        /**
+         * Returns whether the replay matched the recording.
+         * @return True if every outcome was the same.
+         */
+        public boolean matches() {
+            return mismatch == null;
+        }
+    }
+
+    private SessionReplay() {
+    }
+
+    /**
+     * Replays a recording.
+     * @param in The recorded stream ( closed when done ).
+     * @return What the replay found.
+     * @throws IOException If the stream can't be read.
+     */
+    public static Result run(InputStream in) throws IOException {
+        try (SessionReader reader = new SessionReader(in)) {
+            ReplayTime time = new ReplayTime();
+            GameRandom rand = new GameRandom(0);
+            Checker checker = new Checker(reader);
+            WhackmoleGame game = new WhackmoleGame(reader.config(), time, time, rand, new WhackmoleGame.Listener() {
+                @Override
+                public void onScoreChanged(int score) {
+                }
+
+                @Override
+                public void onLivesChanged(int lives) {
+                }
+
+                @Override
+                public void onMolesChanged() {
+                }
+            });
+            game.setTapGrace(reader.tapGrace());
+            game.setRecorder(checker);
+
+            long events = 0;
+            while (checker.mismatch == null && reader.next()) {
+                events++;
+                time.now = reader.time();
+                checker.inputPending = true;
+                switch (reader.type()) {
+                    case GameRecorder.START:
+                        rand.setState(reader.value());
+                        game.start();
+                        break;
+                    case GameRecorder.STOP:
+                        game.stop();
+                        break;
+                    case GameRecorder.PAUSE:
+                        game.pause();
+                        break;
+                    case GameRecorder.RESUME:
+                        game.resume();
+                        break;
+                    case GameRecorder.TAP:
+                        game.hitHole(reader.hole(), reader.value());
+                        break;
+                    case GameRecorder.WAKEUP:
+                        if (!time.runPending()) checker.fail("no tick was pending");
+                        break;
+                    default:
+                        checker.fail("the replay didn't produce it");
+                        break;
+                }
+                if (checker.inputPending) checker.fail("the replay ignored it");
+                events += checker.outcomes;
+                checker.outcomes = 0;
+            }
+            return new Result(events, game.getScore(), game.getLives(), checker.mismatch);
+        }
+    }
+
+    // compares what the replayed game records w/ the next recorded events
+    private static final class Checker implements GameRecorder {
+        private final SessionReader reader;
+        boolean inputPending;
+        long outcomes;
+        String mismatch;
+
+        Checker(SessionReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public void record(int type, long time, int hole, long value) {
+            if (mismatch != null) return;
+            if (inputPending) {
+                // the input the replay was fed
+                inputPending = false;
+            } else {
+                try {
+                    if (!reader.next()) {
+                        mismatch = "recording ended, replay went on w/ " + describe(type, time, hole, value);
+                        return;
+                    }
+                } catch (IOException e) {
+                    mismatch = "recording unreadable: " + e.getMessage();
+                    return;
+                }
+                outcomes++;
+            }
+            if (type != reader.type() || time != reader.time() || hole != reader.hole() || value != reader.value()) {
+                mismatch = "recorded " + describe(reader.type(), reader.time(), reader.hole(), reader.value())
+                        + ", replayed " + describe(type, time, hole, value);
+            }
+        }
+
+        void fail(String why) {
+            if (mismatch == null) {
+                mismatch = "recorded " + describe(reader.type(), reader.time(), reader.hole(), reader.value())
+                        + ", but " + why;
+            }
+        }
+    }
+
+    private static String describe(int type, long time, int hole, long value) {
+        return "type " + type + " at " + time + " ( hole " + hole + ", value " + value + " )";
+    }
+
+    // the clock and the one pending tick, both moved only by the recording
+    private static final class ReplayTime implements Clock, Scheduler {
+        long now;
+        private Runnable pending;
+
+        @Override
+        public long now() {
+            return now;
+        }
+
+        @Override
+        public void postDelayed(Runnable task, long delayMillis) {
+            pending = task;
+        }
+
+        @Override
+        public void removeCallbacks(Runnable task) {
+            if (pending == task) pending = null;
+        }
+
+        @Override
+        public void removeAll() {
+            pending = null;
+        }
+
+        boolean runPending() {
+            Runnable task = pending;
+            if (task == null) return false;
+            pending = null;
+            task.run();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.stopwatchsample.game;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a recorded session as a compact binary stream.
+ *
+ * Format ( version 3 ), numbers are unsigned LEB128 varints unless noted:
+ * <pre>
+ * header: "WMRC", version, numHoles, lives, moleDur, spawnInterval,
+ *         rate ( 8 byte big-endian double ), scorePerMole, scorePerTimeoutLevel,
+ *         tap grace, number of mole types, each type's weight
+ * event:  type ( 1 byte ), time - previous event's time, then by type:
+ *         START   GameRandom state ( 8 byte big-endian )
+ *         STOP    score
+ *         TAP     hole, time - tap time
+ *         WAKEUP  -
+ *         SPAWN   hole, deadline - time
+ *         HIT     hole, score
+ *         TIMEOUT hole, lives left
+ * </pre>
+ * Version 1 had no tap grace and no tap times ( every tap landed when it
+ * was applied ), versions 1 and 2 only normal moles; SessionReader still
+ * reads both. A tap takes about 4 bytes. Events go through a small buffer that is
+ * written out whenever it fills, so a long session never sits in memory.
+ * Write errors don't reach the game: the first one is kept ( getError() )
+ * and recording stops.
+ */
+public final class SessionWriter implements GameRecorder, Flushable, Closeable {
+
+    static final byte[] MAGIC = {'W', 'M', 'R', 'C'};
+    /** The format version this class writes. */
+    public static final int VERSION = 3;
+
+    private static final int BUFFER_BYTES = 4096;
+    // the longest event: type, 2 x 10 byte varints, 8 byte state
+    private static final int MAX_EVENT_BYTES = 1 + 10 + 10 + 10;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    private int length;
+    private long lastTime;
+    private IOException error;
+
+    /**
+     * Starts a recording of games w/o a tap grace.
+     *
+     * @param out Where the stream goes, closed by close().
+     * @param config The settings of the recorded games.
+     * @throws IOException If the header can't be written.
+     */
+    public SessionWriter(OutputStream out, GameConfig config) throws IOException {
+        this(out, config, 0);
+    }
+
+    /**
+     * Starts a recording by writing its header.
+     *
+     * @param out Where the stream goes, closed by close().
+     * @param config The settings of the recorded games.
+     * @param tapGrace The recorded games' tap grace, see WhackmoleGame.setTapGrace().
+     * @throws IOException If the header can't be written.
+     */
+    public SessionWriter(OutputStream out, GameConfig config, long tapGrace) throws IOException {
+        this.out = out;
+        System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+        length = MAGIC.length;
+        putVarint(VERSION);
+        putVarint(config.numHoles);
+        putVarint(config.lives);
+        putVarint(config.moleDur);
+        putVarint(config.spawnInterval);
+        putFixed(Double.doubleToLongBits(config.rate));
+        putVarint(config.scorePerMole);
+        putVarint(config.scorePerTimeoutLevel);
+        putVarint(tapGrace);
+        putVarint(MoleType.count());
+        for (int i = 0; i < MoleType.count(); i++) {
+            putVarint(config.moleWeight(MoleType.of(i)));
+        }
+        flush();
+        if (error != null) throw error;
+    }
+
+    @Override
+    public void record(int type, long time, int hole, long value) {
+        if (error != null) return;
+        if (length + MAX_EVENT_BYTES > BUFFER_BYTES) writeBuffer();
+
+        buffer[length++] = (byte) type;
+        putVarint(time - lastTime);
+        lastTime = time;
+        switch (type) {
+            case START:
+                putFixed(value);
+                break;
+            case STOP:
+                putVarint(value);
+                break;
+            case TAP:
+                putVarint(hole);
+                putVarint(time - value);
+                break;
+            case SPAWN:
+                putVarint(hole);
+                putVarint(value - time);
+                break;
+            case HIT:
+            case TIMEOUT:
+                putVarint(hole);
+                putVarint(value);
+                break;
+            default: // WAKEUP, PAUSE and RESUME have no payload
+                break;
+        }
+    }
+
+    /**
+     * Returns the first write error.
+     * @return The error, or null if every write worked.
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    @Override
+    public void flush() {
+        writeBuffer();
+        if (error != null) return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+        if (error != null) throw error;
+    }
+
+    private void writeBuffer() {
+        if (error != null || length == 0) return;
+        try {
+            out.write(buffer, 0, length);
+        } catch (IOException e) {
+            error = e;
+        }
+        length = 0;
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private void putFixed(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.stopwatchsample.game;
+
+import java.util.Arrays;
+
+/**
+ * The bytes of a game snapshot, written or read front to back: unsigned
+ * LEB128 varints ( as in SessionWriter ), zigzag varints for values that may
+ * be negative, and 8 byte big-endian fixed values. Reading past the end,
+ * or a varint that never ends, throws IllegalArgumentException.
+ */
+final class SnapshotBuffer {
+
+    private byte[] bytes;
+    private int length;
+    private int position;
+
+    /**
+     * Creates an empty buffer to write to.
+     * @param capacity The expected size, it grows past it.
+     */
+    SnapshotBuffer(int capacity) {
+        bytes = new byte[capacity];
+    }
+
+    /**
+     * Creates a buffer that reads the given bytes.
+     * @param bytes The snapshot.
+     */
+    SnapshotBuffer(byte[] bytes) {
+        this.bytes = bytes;
+        this.length = bytes.length;
+    }
+
+    void putVarint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    void putSigned(long value) {
+        putVarint((value << 1) ^ (value >> 63));
+    }
+
+    void putFixed(long value) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            bytes[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    void putDouble(double value) {
+        putFixed(Double.doubleToLongBits(value));
+    }
+
+    long getVarint() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = getByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalArgumentException("varint too long");
+    }
+
+    /**
+     * Reads a varint that must fit an int.
+     * @return The value.
+     */
+    int getInt() {
+        long value = getVarint();
+        if (value > Integer.MAX_VALUE) throw new IllegalArgumentException("value too large: " + value);
+        return (int) value;
+    }
+
+    long getSigned() {
+        long value = getVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long getFixed() {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | getByte();
+        }
+        return value;
+    }
+
+    double getDouble() {
+        return Double.longBitsToDouble(getFixed());
+    }
+
+    /**
+     * Returns whether every byte has been read.
+     * @return True at the end.
+     */
+    boolean atEnd() {
+        return position == length;
+    }
+
+    /**
+     * Copies out what was written.
+     * @return The snapshot.
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private int getByte() {
+        if (position >= length) throw new IllegalArgumentException("snapshot ended early");
+        return bytes[position++] & 0xFF;
+    }
+
+    private void ensure(int more) {
+        if (length + more > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + more));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * Decides when the next paced spawn is due.
+ *
+ * A spawn is only scheduled while the board is short of moles. Its
+ * deadline is never closer than the minimum interval to the last spawn
+ * and is rounded up to a frame boundary. A wake-up that arrives late
+ * drops the spawns it missed instead of bursting to catch up.
+ */
+public final class SpawnPacer {
+
+    /** The frame length deadlines are aligned to, in milliseconds. */
+    public static final long FRAME_MILLIS = 16;
+
+    /** The deadline when no spawn is scheduled. */
+    public static final long NOT_SCHEDULED = Long.MAX_VALUE;
+
+    private final long minInterval;
+    private long origin;
+    private long deadline = NOT_SCHEDULED;
+    private long interval;
+    private long lastSpawnAt;
+    private long shed;
+
+    /**
+     * Creates a pacer w/ nothing scheduled.
+     * @param minInterval The shortest time between paced spawns, in milliseconds.
+     */
+    public SpawnPacer(long minInterval) {
+        if (minInterval <= 0) throw new IllegalArgumentException("minInterval must be positive");
+        this.minInterval = minInterval;
+    }
+
+    /**
+     * Forgets everything and aligns future frames to the given time.
+     * @param now The start of the game.
+     */
+    public void reset(long now) {
+        origin = now;
+        deadline = NOT_SCHEDULED;
+        interval = 0;
+        lastSpawnAt = now - minInterval;
+        shed = 0;
+    }
+
+    /**
+     * Returns when the next spawn is due.
+     * @return The deadline, or NOT_SCHEDULED.
+     */
+    public long deadline() {
+        return deadline;
+    }
+
+    /**
+     * Returns the shortest time between paced spawns.
+     * @return The interval in milliseconds.
+     */
+    public long minInterval() {
+        return minInterval;
+    }
+
+    /**
+     * Returns how many paced spawns were dropped because a wake-up came late.
+     * @return The number of shed spawns.
+     */
+    public long shedCount() {
+        return shed;
+    }
+
+    /**
+     * Schedules a spawn after the given delay, unless one is already scheduled.
+     * @param now The current time.
+     * @param delay The wanted delay ( the level's spawn interval ).
+     */
+    public void request(long now, long delay) {
+        if (deadline != NOT_SCHEDULED) return;
+        interval = Math.max(delay, minInterval);
+        long at = Math.max(now + delay, lastSpawnAt + minInterval);
+        // round up to the next frame boundary
+        long frames = (at - origin + FRAME_MILLIS - 1) / FRAME_MILLIS;
+        deadline = origin + frames * FRAME_MILLIS;
+    }
+
+    /**
+     * Drops the scheduled spawn ( the board has enough moles ).
+     */
+    public void cancel() {
+        deadline = NOT_SCHEDULED;
+    }
+
+    /**
+     * Moves the frame grid, the last spawn and the scheduled spawn by the same
+     * amount ( a paused game resuming ).
+     * @param delta How far to move them, in milliseconds.
+     */
+    public void shift(long delta) {
+        origin += delta;
+        lastSpawnAt += delta;
+        if (deadline != NOT_SCHEDULED) deadline += delta;
+    }
+
+    /**
+     * Consumes the scheduled spawn if it is due.
+     * @param now The current time.
+     * @return True if a spawn should happen now.
+     */
+    public boolean poll(long now) {
+        if (deadline > now) return false;
+        long late = now - deadline;
+        if (late >= interval) shed += late / interval;
+        deadline = NOT_SCHEDULED;
+        return true;
+    }
+
+    /**
+     * Records that a mole was spawned.
+     * @param now The current time.
+     */
+    public void onSpawned(long now) {
+        lastSpawnAt = now;
+    }
+
+    // relative to now, for a game snapshot: the frame phase, the last spawn, the scheduled one
+    void save(SnapshotBuffer out, long now) {
+        out.putVarint(Math.floorMod(now - origin, FRAME_MILLIS));
+        out.putSigned(now - lastSpawnAt);
+        out.putVarint(interval);
+        out.putVarint(shed);
+        out.putVarint(deadline == NOT_SCHEDULED ? 0 : 1);
+        if (deadline != NOT_SCHEDULED) out.putSigned(deadline - now);
+    }
+
+    void restore(SnapshotBuffer in, long now) {
+        origin = now - in.getVarint();
+        lastSpawnAt = now - in.getSigned();
+        interval = in.getVarint();
+        shed = in.getVarint();
+        deadline = in.getVarint() == 0 ? NOT_SCHEDULED : now + in.getSigned();
+    }
+}
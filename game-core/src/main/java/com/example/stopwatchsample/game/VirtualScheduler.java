@@ -0,0 +1,120 @@
+package com.example.stopwatchsample.game;
+
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+
+/**
+ * A clock and scheduler that only move when told to.
+ * Lets a whole game run as fast as the CPU allows ( tests, profiling ).
+ *
+ * Zero delays are treated as 1 ms, like a turn of the looper, so a task
+ * that keeps re-posting itself can't stall virtual time.
+ *
+ * Tasks that ran are reused for later posts, so once the queue has grown
+ * to its size, posting and running allocate nothing ( and allocation
+ * tests measure the game, not the scheduler ).
+ */
+public final class VirtualScheduler implements Clock, Scheduler {
+
+    private static final class Task implements Comparable<Task> {
+        Runnable runnable;
+        long when;
+        long seq;
+
+        @Override
+        public int compareTo(Task o) {
+            if (when != o.when) return when < o.when ? -1 : 1;
+            return Long.compare(seq, o.seq); // same time -> posting order
+        }
+    }
+
+    private final PriorityQueue<Task> queue = new PriorityQueue<>();
+    // tasks that ran, for postDelayed() to fill again
+    private final ArrayDeque<Task> free = new ArrayDeque<>();
+    private long now;
+    private long nextSeq;
+    private long tasksRun;
+
+    /**
+     * Creates a scheduler whose clock starts at 0.
+     */
+    public VirtualScheduler() {
+        this(0);
+    }
+
+    /**
+     * Creates a scheduler whose clock starts at the given time.
+     * @param startMillis The initial time.
+     */
+    public VirtualScheduler(long startMillis) {
+        this.now = startMillis;
+    }
+
+    @Override
+    public long now() {
+        return now;
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMillis) {
+        Task t = free.poll();
+        if (t == null) t = new Task();
+        t.runnable = task;
+        t.when = now + Math.max(1, delayMillis);
+        t.seq = nextSeq++;
+        queue.add(t);
+    }
+
+    @Override
+    public void removeCallbacks(Runnable task) {
+        queue.removeIf(t -> t.runnable == task);
+    }
+
+    @Override
+    public void removeAll() {
+        queue.clear();
+    }
+
+    /**
+     * Moves the clock forward, running every task that comes due on the way.
+     * @param millis How far to move the clock.
+     */
+    public void advanceBy(long millis) {
+        advanceTo(now + millis);
+    }
+
+    /**
+     * Moves the clock to the given time, running every task that comes due.
+     * @param time The time to stop at.
+     */
+    public void advanceTo(long time) {
+        Task next;
+        while ((next = queue.peek()) != null && next.when <= time) {
+            queue.poll();
+            now = next.when;
+            tasksRun++;
+            Runnable runnable = next.runnable;
+            // free before it runs, a task that re-posts itself gets the same one back
+            next.runnable = null;
+            free.push(next);
+            runnable.run();
+        }
+        if (time > now) now = time;
+    }
+
+    /**
+     * Returns the number of tasks waiting to run.
+     * @return The pending task count.
+     */
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Returns how many tasks have run so far.
+     * @return The task count.
+     */
+    public long tasksRun() {
+        return tasksRun;
+    }
+}
@@ -0,0 +1,632 @@
+package com.example.stopwatchsample.game;
+
+/**
+ * The Whack-A-Mole rules: spawning, timeouts, score and lives.
+ * Plain Java, all timing goes through the given Clock and Scheduler.
+ */
+public final class WhackmoleGame {
+
+    private static final long NEVER = Long.MAX_VALUE;
+    private static final int SNAPSHOT_VERSION = 1;
+    // boards up to this size keep their empty-hole order in a snapshot ( a byte per hole )
+    private static final int SNAPSHOT_ORDER_HOLES = 64;
+
+    /**
+     * Receives every change to the game state.
+     */
+    public interface Listener {
+        void onScoreChanged(int score);
+        void onLivesChanged(int lives);
+
+        /**
+         * The moles changed, or a tough mole took a hit and stays up. Nothing
+         * is copied: read getMoles() or getState() when the change is shown
+         * ( once a frame ), which copies the board once however many changes
+         * came before.
+         */
+        void onMolesChanged();
+
+        /**
+         * A mole popped up ( sent before onMolesChanged ).
+         * @param index The index of the hole.
+         * @param deadline When it will time out, on the game clock.
+         * @param type What kind of mole it is.
+         */
+        default void onMoleShown(int index, long deadline, MoleType type) {
+        }
+
+        /**
+         * A mole went back down ( sent before onMolesChanged ).
+         * @param index The index of the hole.
+         * @param reason Why it went down.
+         */
+        default void onMoleHidden(int index, HideReason reason) {
+        }
+    }
+
+    private final GameConfig config;
+    private final Clock clock;
+    private final Scheduler scheduler;
+    private final GameRandom rand;
+    private final Listener listener;
+
+    private final MoleBoard board;
+    // mole timeouts and paced spawns, both drained by one tick posted for the earliest deadline
+    private final HoleTimerWheel timeouts;
+    private final HoleTimerWheel.ExpiryListener onTimeout = (hole, deadline) -> onMoleTimeout(hole);
+    private final SpawnPacer spawnPacer = new SpawnPacer(SpawnPacer.FRAME_MILLIS);
+    private final Runnable tick = this::onTick;
+    private long tickAt = NEVER;
+    // each hole's mole: type, hit points, spawn time, deadline and points
+    private final MoleTable moles;
+    // how long a mole's timeout waits past its deadline for taps still on their way
+    private long tapGrace;
+    private long wakeups;
+    // null unless tracing was switched on
+    private GameTrace trace;
+    // null unless the game is being recorded
+    private GameRecorder recorder;
+
+    private boolean running = false;
+    private boolean paused;
+    private long pausedAt;
+    private int score;
+    private int lives;
+    private final GameStats stats = new GameStats();
+    private long startedAt;
+    private long stoppedAt;
+
+    /**
+     * Creates a game that hasn't started yet.
+     *
+     * @param config The difficulty settings.
+     * @param clock Where the game reads the time.
+     * @param scheduler Where the game posts its delayed work.
+     * @param rand Picks the holes moles spawn in ( its state is part of a recording ).
+     * @param listener Told about every state change.
+     */
+    public WhackmoleGame(GameConfig config, Clock clock, Scheduler scheduler, GameRandom rand,
+                         Listener listener) {
+        this.config = config;
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.rand = rand;
+        this.listener = listener;
+        this.board = new MoleBoard(config.numHoles);
+        this.timeouts = new HoleTimerWheel(config.numHoles, config.moleDur);
+        this.moles = new MoleTable(config.numHoles);
+        this.lives = config.lives;
+    }
+
+    /**
+     * Returns the settings this game was created with.
+     * @return The config.
+     */
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Returns the number of points that have accumulated in the current game.
+     * @return The score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the number of lives the player has remaining before the game ends.
+     * @return The number of lives remaining.
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * Returns how many taps landed on moles in the current ( or last ) game
+     * ( a tough mole takes several, decoys count as misses ).
+     * @return The hit count.
+     */
+    public int getHits() {
+        return stats.hits();
+    }
+
+    /**
+     * Returns how many taps missed in the current ( or last ) game: empty holes,
+     * taps too early or too late, and decoys.
+     * @return The miss count.
+     */
+    public int getMisses() {
+        return stats.misses();
+    }
+
+    /**
+     * Returns the positions of the moles, copied once per change.
+     * @return A snapshot of the holes that contain moles.
+     */
+    public MoleSnapshot getMoles() {
+        return board.snapshot();
+    }
+
+    /**
+     * Returns the score, lives, moles and running flag as one consistent snapshot.
+     * @return The current state.
+     */
+    public GameState getState() {
+        boolean allNormal = config.moleWeight(MoleType.NORMAL) == config.totalMoleWeight();
+        return new GameState(score, lives, board.snapshot(), running, stats.hits(), stats.misses(),
+                getElapsedMillis(), stats.summary(),
+                allNormal ? null : moles.copyTypes());
+    }
+
+    /**
+     * Returns the type of the mole in the given hole.
+     * @param index The index of the hole.
+     * @return The type ( of the last mole there, if the hole is empty ).
+     */
+    public MoleType getMoleType(int index) {
+        return moles.type(index);
+    }
+
+    /**
+     * Returns when the mole in the given hole times out ( for debugging ).
+     * @param index The index of the hole.
+     * @return The deadline on the game clock, or HoleTimerWheel.NOT_ARMED.
+     */
+    public long getMoleDeadline(int index) {
+        return timeouts.deadline(index);
+    }
+
+    /**
+     * Sets how long a mole's timeout waits past its deadline for taps that
+     * landed in time but haven't been delivered yet ( input goes through a
+     * frame or two of dispatch ). Those taps are judged by when they landed,
+     * see hitHole(int, long). Set it before the game starts.
+     * @param millis The grace period, 0 ( the default ) to time out right at the deadline.
+     */
+    public void setTapGrace(long millis) {
+        if (millis < 0) throw new IllegalArgumentException("tap grace must not be negative");
+        tapGrace = millis;
+    }
+
+    /**
+     * Returns how long timeouts wait for late taps.
+     * @return The grace period in milliseconds.
+     */
+    public long getTapGrace() {
+        return tapGrace;
+    }
+
+    /**
+     * Records the game's events into the given trace from now on.
+     * @param trace The trace, or null to stop tracing.
+     */
+    public void setTrace(GameTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Records every input and outcome of the games from now on, see SessionWriter.
+     * @param recorder The recorder, or null to stop recording.
+     */
+    public void setRecorder(GameRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Returns how many times the game has woken up to do timed work.
+     * @return The wake-up count for the current ( or last ) game.
+     */
+    public long getWakeups() {
+        return wakeups;
+    }
+
+    /**
+     * Returns the average wake-up rate of the current ( or last ) game.
+     * @return Wake-ups per second of game time.
+     */
+    public double getWakeupsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed <= 0 ? 0 : wakeups * 1000.0 / elapsed;
+    }
+
+    /**
+     * Returns how many paced spawns were skipped because a wake-up came late.
+     * @return The shed spawn count.
+     */
+    public long getShedSpawns() {
+        return spawnPacer.shedCount();
+    }
+
+    /**
+     * Returns whether the game is active.
+     * @return The running boolean.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns how long the current ( or last ) game has lasted.
+     * @return The duration in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return (running ? (paused ? pausedAt : clock.now()) : stoppedAt) - startedAt;
+    }
+
+    /**
+     * Returns whether the running game is paused.
+     * @return True between pause() and resume().
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Freezes the running game: its clock stops, every mole keeps the time it
+     * has left, and nothing stays posted to the scheduler. Taps are ignored
+     * until resume(). Does nothing if the game isn't running or is paused.
+     */
+    public void pause() {
+        if (!running || paused) return;
+        paused = true;
+        pausedAt = clock.now();
+        if (trace != null) trace.record(GameTrace.PAUSE, pausedAt, -1, 0);
+        if (recorder != null) recorder.record(GameRecorder.PAUSE, pausedAt, -1, 0);
+        scheduler.removeAll();
+        tickAt = NEVER;
+    }
+
+    /**
+     * Unfreezes a paused game: every deadline ( the moles' and the next
+     * spawn's ) moves by how long it was paused, so each has exactly the time
+     * left it had at pause().
+     */
+    public void resume() {
+        if (!paused) return;
+        paused = false;
+        long now = clock.now();
+        long gap = now - pausedAt;
+        if (trace != null) trace.record(GameTrace.RESUME, now, -1, (int) Math.min(gap, Integer.MAX_VALUE));
+        if (recorder != null) recorder.record(GameRecorder.RESUME, now, -1, 0);
+        startedAt += gap;
+        for (int i = board.nextActive(0); i >= 0; i = board.nextActive(i + 1)) {
+            moles.shift(i, gap);
+        }
+        timeouts.shiftAll(gap);
+        spawnPacer.shift(gap);
+        scheduleTick();
+    }
+
+    /**
+     * Returns the whole game as a compact snapshot, for restoreState() in a
+     * new process. Times are kept relative to now ( or to when the game was
+     * paused ), so they survive the clock starting over. Only the moles that
+     * are up take space, 5 to 7 bytes each; the rest is under 300 bytes
+     * whatever the board size, plus a byte per hole on boards of up to 64.
+     * Format, varints as in SessionWriter:
+     * <pre>
+     * version, numHoles, running, score, lives, elapsed, wake-ups,
+     * GameRandom state ( 8 byte big-endian ), the GameStats,
+     * if running: the SpawnPacer, mole count, then per mole:
+     *         holes skipped since the last one, hit points * types + type,
+     *         deadline - now ( zigzag ), now - spawn time
+     *     and up to 64 holes: MoleBoard's hole order
+     * </pre>
+     * The hole order maps each random draw to an empty hole. Larger boards
+     * leave it out to stay small, so a restored game draws the same numbers
+     * and spawns the same moles at the same times, but not always in the
+     * same holes.
+     * @return The snapshot.
+     */
+    public byte[] saveState() {
+        long now = paused ? pausedAt : clock.now();
+        SnapshotBuffer out = new SnapshotBuffer(320 + board.count() * 8);
+        out.putVarint(SNAPSHOT_VERSION);
+        out.putVarint(config.numHoles);
+        out.putVarint(running ? 1 : 0);
+        out.putVarint(score);
+        out.putVarint(lives);
+        out.putVarint(getElapsedMillis());
+        out.putVarint(wakeups);
+        out.putFixed(rand.getState());
+        stats.save(out);
+        if (!running) return out.toByteArray();
+
+        spawnPacer.save(out, now);
+        out.putVarint(board.count());
+        int last = -1;
+        for (int i = board.nextActive(0); i >= 0; i = board.nextActive(i + 1)) {
+            out.putVarint(i - last - 1);
+            last = i;
+            out.putVarint((long) moles.hitPoints(i) * MoleType.count() + moles.type(i).ordinal());
+            out.putSigned(moles.deadline(i) - now);
+            out.putVarint(now - moles.spawnedAt(i));
+        }
+        if (config.numHoles <= SNAPSHOT_ORDER_HOLES) board.saveOrder(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Replaces this game w/ one from saveState(), w/o replaying anything: the
+     * moles, deadlines, next spawn, score, lives, stats and the GameRandom
+     * state are all as they were ( see saveState() for the hole order ). A game that was running comes back paused,
+     * resume() picks it up w/ every deadline as far off as when it was saved.
+     * The listener is told the new score, lives and moles, not each mole.
+     *
+     * @param snapshot The snapshot, from a game w/ the same number of holes.
+     * @throws IllegalArgumentException If the snapshot is malformed or for another board,
+     *         the game is left reset.
+     */
+    public void restoreState(byte[] snapshot) {
+        SnapshotBuffer in = new SnapshotBuffer(snapshot);
+        int version = in.getInt();
+        if (version != SNAPSHOT_VERSION) throw new IllegalArgumentException("unknown snapshot version " + version);
+        int numHoles = in.getInt();
+        if (numHoles != config.numHoles) {
+            throw new IllegalArgumentException("snapshot has " + numHoles + " holes, not " + config.numHoles);
+        }
+        reset();
+        try {
+            readState(in);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            reset();
+            throw new IllegalArgumentException("bad snapshot", e);
+        }
+        listener.onScoreChanged(score);
+        listener.onLivesChanged(lives);
+        listener.onMolesChanged();
+    }
+
+    // the rest of restoreState(), on a reset game
+    private void readState(SnapshotBuffer in) {
+        boolean wasRunning = in.getVarint() != 0;
+        score = in.getInt();
+        lives = in.getInt();
+        long elapsed = in.getVarint();
+        wakeups = in.getVarint();
+        rand.setState(in.getFixed());
+        stats.restore(in);
+        long now = clock.now();
+        startedAt = now - elapsed;
+        stoppedAt = now;
+        if (wasRunning) {
+            spawnPacer.restore(in, now);
+            timeouts.start(now);
+            int count = in.getInt();
+            int hole = -1;
+            for (int n = 0; n < count; n++) {
+                hole += in.getInt() + 1;
+                long kind = in.getVarint();
+                MoleType type = MoleType.of((int) (kind % MoleType.count()));
+                long deadline = now + in.getSigned();
+                if (!board.set(hole)) throw new IllegalArgumentException("hole " + hole + " twice");
+                moles.restore(hole, type, (int) (kind / MoleType.count()), now - in.getVarint(), deadline);
+                timeouts.arm(hole, deadline);
+            }
+            if (config.numHoles <= SNAPSHOT_ORDER_HOLES) board.restoreOrder(in);
+            running = true;
+            paused = true;
+            pausedAt = now;
+        }
+        if (!in.atEnd()) throw new IllegalArgumentException("snapshot has trailing bytes");
+    }
+
+    /**
+     * Starts the game.
+     */
+    public void start() {
+        reset();
+        running = true;
+        startedAt = clock.now();
+        timeouts.start(startedAt);
+        spawnPacer.reset(startedAt);
+        if (trace != null) trace.record(GameTrace.START, startedAt, -1, config.numHoles);
+        if (recorder != null) recorder.record(GameRecorder.START, startedAt, -1, rand.getState());
+        requestSpawn();
+        scheduleTick();
+    }
+
+    /**
+     * Stops the game.
+     */
+    public void stop() {
+        if (running) {
+            stoppedAt = paused ? pausedAt : clock.now();
+            if (trace != null) trace.record(GameTrace.STOP, stoppedAt, -1, score);
+            if (recorder != null) recorder.record(GameRecorder.STOP, stoppedAt, -1, score);
+        }
+        running = false;
+        paused = false;
+        scheduler.removeAll();
+        timeouts.cancelAll();
+        spawnPacer.cancel();
+        tickAt = NEVER;
+        for (int i = board.nextActive(0); i >= 0; i = board.nextActive(i + 1)) {
+            listener.onMoleHidden(i, HideReason.RESET);
+        }
+        board.clearAll();
+        listener.onMolesChanged();
+    }
+
+    /**
+     * Resets the game.
+     */
+    public void reset() {
+        stop();
+        score = 0;
+        lives = config.lives;
+        stats.reset();
+        wakeups = 0;
+        startedAt = stoppedAt = clock.now();
+        listener.onScoreChanged(score);
+        listener.onLivesChanged(lives);
+    }
+
+    /**
+     * Hit the hole w/ the given index, now.
+     * @param index  The index of the hole to hit.
+     * @return True if a mole was whacked, false if the hole was empty ( or the game is paused ).
+     */
+    public boolean hitHole(int index) {
+        return hitHole(index, clock.now());
+    }
+
+    /**
+     * Hit the hole w/ the given index at the given time. The tap is judged by
+     * when it landed, not when it's applied: it lands on the mole only if it
+     * came after the mole popped up and before its deadline. What the hit
+     * does depends on the MoleType ( a tough mole takes several, a decoy
+     * costs a life ).
+     *
+     * @param index The index of the hole to hit.
+     * @param tapTime When the finger went down, on the game clock ( not after now ).
+     * @return True if the tap landed on a mole, false if the hole was empty, the
+     *         tap came too early or too late, or the game is paused.
+     */
+    public boolean hitHole(int index, long tapTime) {
+        if (paused) return false;
+        long now = clock.now();
+        if (tapTime > now) tapTime = now;
+        if (running && recorder != null) recorder.record(GameRecorder.TAP, now, index, tapTime);
+        if (board.contains(index) && tapTime >= moles.spawnedAt(index) && tapTime < moles.deadline(index)) {
+            MoleType type = moles.type(index);
+            if (type.hitCostsLife) {
+                stats.onMiss();
+            } else {
+                stats.onHit();
+            }
+            if (moles.hit(index) > 0) {
+                // it takes more than that
+                if (trace != null) trace.record(GameTrace.HIT, now, index, score);
+                if (recorder != null) recorder.record(GameRecorder.HIT, now, index, score);
+                // the board is the same, but the hit counts are part of the state
+                listener.onMolesChanged();
+                return true;
+            }
+            board.clear(index);
+            if (!type.hitCostsLife) stats.onWhacked(tapTime - moles.spawnedAt(index));
+            stats.onMoleDown(now - moles.spawnedAt(index));
+            score += moles.points(index);
+            if (trace != null) trace.record(GameTrace.HIT, now, index, score);
+            if (recorder != null) recorder.record(GameRecorder.HIT, now, index, score);
+            if (type.points != 0) listener.onScoreChanged(score);
+            listener.onMoleHidden(index, HideReason.HIT);
+            listener.onMolesChanged();
+
+            // cancel the timeout for this mole ( a tick that finds nothing due just re-arms )
+            timeouts.cancel(index);
+
+            if (type.hitCostsLife) loseLife();
+            spawnMoles();
+            requestSpawn();
+            scheduleTick();
+            return true;
+        }
+        if (running) {
+            stats.onMiss();
+            if (trace != null) trace.record(GameTrace.MISS, clock.now(), index, 0);
+        }
+        return false;
+    }
+
+    // remove a life
+    private void loseLife() {
+        lives--;
+        listener.onLivesChanged(lives);
+        if (lives <= 0) stop();
+    }
+
+    // add a mole with timer
+    private void addMole(int targetMoles) {
+        if (!running) return;
+
+        if (board.count() >= targetMoles) return;
+        if (board.isFull()) {
+            stop();
+            return;
+        }
+
+        int moleIdx = board.emptyHole(rand.nextInt(board.emptyCount()));
+
+        // add to active board
+        board.set(moleIdx);
+        MoleType type = config.hasMoleMix()
+                ? config.moleTypeAt(rand.nextInt(config.totalMoleWeight())) : config.moleTypeAt(0);
+        long now = clock.now();
+        long deadline = now + config.moleDuration(score) * type.durationPercent / 100;
+        moles.spawn(moleIdx, type, now, deadline);
+        timeouts.arm(moleIdx, deadline);
+        spawnPacer.onSpawned(now);
+        if (trace != null) trace.record(GameTrace.SPAWN, now, moleIdx, (int) (deadline - now));
+        if (recorder != null) recorder.record(GameRecorder.SPAWN, now, moleIdx, deadline);
+
+        listener.onMoleShown(moleIdx, deadline, type);
+        listener.onMolesChanged();
+    }
+
+    // the one wake-up: drains due timeouts, then the paced spawn
+    private void onTick() {
+        long now = clock.now();
+        if (trace != null) trace.record(GameTrace.WAKEUP, now, -1, (int) (now - tickAt));
+        if (recorder != null) recorder.record(GameRecorder.WAKEUP, now, -1, 0);
+        tickAt = NEVER;
+        wakeups++;
+        timeouts.advance(now - tapGrace, onTimeout);
+        if (running && spawnPacer.poll(now)) {
+            spawnMoles();
+        }
+        requestSpawn();
+        scheduleTick();
+    }
+
+    // keep a paced spawn scheduled only while the board is short of moles
+    private void requestSpawn() {
+        if (!running) return;
+        if (board.count() < config.targetMoles(score)) {
+            spawnPacer.request(clock.now(), config.spawnDelay(score));
+        } else {
+            spawnPacer.cancel();
+        }
+    }
+
+    // make sure the tick fires by the earliest deadline ( an early tick just re-arms )
+    private void scheduleTick() {
+        if (!running) return;
+        long timeout = timeouts.nextDeadline();
+        if (timeout != HoleTimerWheel.NOT_ARMED) timeout += tapGrace;
+        long next = Math.min(timeout, spawnPacer.deadline());
+        if (next >= tickAt) return;
+        if (tickAt != NEVER) scheduler.removeCallbacks(tick);
+        tickAt = next;
+        scheduler.postDelayed(tick, Math.max(0, next - clock.now()));
+    }
+
+    // the mole in the given hole was not hit in time
+    private void onMoleTimeout(int index) {
+        if (board.clear(index)) {
+            boolean costsLife = moles.type(index).timeoutCostsLife;
+            stats.onMoleDown(moles.deadline(index) - moles.spawnedAt(index));
+            if (costsLife) stats.onEscaped();
+            int livesLeft = costsLife ? lives - 1 : lives;
+            if (trace != null) trace.record(GameTrace.TIMEOUT, clock.now(), index, livesLeft);
+            if (recorder != null) recorder.record(GameRecorder.TIMEOUT, clock.now(), index, livesLeft);
+            listener.onMoleHidden(index, HideReason.TIMEOUT);
+            listener.onMolesChanged();
+            if (costsLife) loseLife();
+
+            spawnMoles();
+        }
+    }
+
+    // spawn moles until there are enough
+    private void spawnMoles() {
+        if (!running) return;
+
+        int targetMoles = config.targetMoles(score);
+
+        if (board.count() < targetMoles) {
+            addMole( targetMoles );
+        }
+    }
+}
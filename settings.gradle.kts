@@ -21,4 +21,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "WhackMole"
 include(":app")
+include(":game-core")
+include(":simulator")
+include(":benchmark")
  
\ No newline at end of file
@@ -0,0 +1,18 @@
+plugins {
+    application
+}
+
+// A command-line tool: plays thousands of games against bots to tune the difficulty curve.
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+application {
+    mainClass.set("com.example.stopwatchsample.sim.DifficultySweep")
+}
+
+dependencies {
+    implementation(project(":game-core"))
+    testImplementation(libs.junit)
+}
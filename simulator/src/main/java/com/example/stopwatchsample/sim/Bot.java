@@ -0,0 +1,80 @@
+package com.example.stopwatchsample.sim;
+
+import com.example.stopwatchsample.game.Clock;
+import com.example.stopwatchsample.game.MoleType;
+import com.example.stopwatchsample.game.Scheduler;
+import com.example.stopwatchsample.game.WhackmoleGame;
+
+import java.util.Random;
+
+/**
+ * A simulated player. It sees each mole as it pops up and taps it after a
+ * reaction time, one tap at a time, sometimes hitting the wrong hole.
+ * A tap lands on whatever is in the hole by then, like a real one.
+ */
+final class Bot implements WhackmoleGame.Listener {
+
+    private final BotProfile profile;
+    private final Random random;
+    private final Clock clock;
+    private final Scheduler scheduler;
+    private WhackmoleGame game;
+    private long nextTapAt;
+
+    /**
+     * Creates a bot.
+     *
+     * @param profile How it plays.
+     * @param random Its random numbers ( separate from the game's ).
+     * @param clock The game clock.
+     * @param scheduler Where its taps are scheduled ( the game's scheduler ).
+     */
+    Bot(BotProfile profile, Random random, Clock clock, Scheduler scheduler) {
+        this.profile = profile;
+        this.random = random;
+        this.clock = clock;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sets the game to play, before it starts.
+     * @param game The game.
+     */
+    void play(WhackmoleGame game) {
+        this.game = game;
+        this.nextTapAt = 0;
+    }
+
+    @Override
+    public void onMoleShown(int index, long deadline, MoleType type) {
+        // a decoy is left alone
+        if (type == MoleType.DECOY) return;
+        long now = clock.now();
+        long at = Math.max(now + profile.sampleReaction(random), nextTapAt);
+        nextTapAt = at + profile.tapGap;
+        scheduler.postDelayed(() -> tap(index), at - now);
+    }
+
+    private void tap(int index) {
+        if (!game.isRunning()) return;
+        int numHoles = game.getConfig().numHoles;
+        if (numHoles > 1 && random.nextDouble() < profile.missRate) {
+            // a near miss, into some other hole
+            game.hitHole((index + 1 + random.nextInt(numHoles - 1)) % numHoles);
+        } else {
+            game.hitHole(index);
+        }
+    }
+
+    @Override
+    public void onScoreChanged(int score) {
+    }
+
+    @Override
+    public void onLivesChanged(int lives) {
+    }
+
+    @Override
+    public void onMolesChanged() {
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.stopwatchsample.sim;
+
+import java.util.Random;
+
+/**
+ * How a simulated player plays: how fast it reacts, how often it misses,
+ * and how quickly it can tap again.
+ *
+ * Reaction times are log-normal ( like human ones: a typical value and a
+ * long tail of slow reactions ) around the given median.
+ */
+public final class BotProfile {
+
+    /** The reaction time half of the reactions beat, in milliseconds. */
+    public final long reactionMedian;
+    /** The spread of the reaction times ( log-normal sigma, 0 = always the median ). */
+    public final double reactionSigma;
+    /** The chance a tap lands in the wrong hole, 0 to 1. */
+    public final double missRate;
+    /** The shortest time between two taps, in milliseconds. */
+    public final long tapGap;
+
+    public BotProfile(long reactionMedian, double reactionSigma, double missRate, long tapGap) {
+        if (reactionMedian <= 0 || tapGap < 0) throw new IllegalArgumentException("times must be positive");
+        if (reactionSigma < 0) throw new IllegalArgumentException("reactionSigma must not be negative");
+        if (missRate < 0 || missRate > 1) throw new IllegalArgumentException("missRate must be 0..1");
+        this.reactionMedian = reactionMedian;
+        this.reactionSigma = reactionSigma;
+        this.missRate = missRate;
+        this.tapGap = tapGap;
+    }
+
+    /**
+     * Draws one reaction time.
+     * @param random The bot's random numbers.
+     * @return The time from a mole popping up to the tap, in milliseconds ( at least 1 ).
+     */
+    long sampleReaction(Random random) {
+        return Math.max(1, Math.round(reactionMedian * Math.exp(reactionSigma * random.nextGaussian())));
+    }
+
+    @Override
+    public String toString() {
+        return "reaction=" + reactionMedian + "ms~" + reactionSigma + " miss=" + missRate;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.stopwatchsample.sim;
+
+import com.example.stopwatchsample.game.GameConfig;
+import com.example.stopwatchsample.game.GameRandom;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Sweeps the difficulty curve: plays many games for every combination of
+ * the given rules and bot settings, and prints how long the bots survive
+ * and what they score. Each batch of games runs in parallel on every core.
+ *
+ * Every parameter set plays the same game seeds, so differences between
+ * the rows come from the parameters rather than from luck.
+ *
+ * <pre>
+ * ./gradlew :simulator:run --args="--spawn 800,1000 --rate 0.85,0.9 --reaction 350,500"
+ * </pre>
+ */
+public final class DifficultySweep {
+
+    private static final String USAGE = String.join("\n",
+            "usage: DifficultySweep [options]   ( lists are comma separated )",
+            "  --games N          games per parameter set ( 1000 )",
+            "  --grid N           rows ( and columns ) of holes ( 3 )",
+            "  --lives N          lives per game ( 3 )",
+            "  --spawn LIST       spawn intervals at level 1, ms ( 1000 )",
+            "  --duration LIST    mole durations at level 0, ms ( 5000 )",
+            "  --rate LIST        speed-up per level ( 0.9 )",
+            "  --per-mole N       points per extra mole ( and spawn level ) ( 10 )",
+            "  --per-level N      points per timeout level ( 5 )",
+            "  --reaction LIST    bot median reaction times, ms ( 450 )",
+            "  --sigma X          bot reaction spread, log-normal sigma ( 0.35 )",
+            "  --miss LIST        bot miss rates, 0..1 ( 0.05 )",
+            "  --tap-gap N        shortest time between bot taps, ms ( 120 )",
+            "  --max-minutes N    longest game to play ( 30 )",
+            "  --seed N           first game seed ( 1 )",
+            "  --csv              print CSV instead of a table",
+            "  -h, --help         print this and exit");
+
+    /**
+     * The parsed command line.
+     */
+    static final class Options {
+        int games = 1000;
+        int grid = GameConfig.DEFAULT_GRID_SIZE;
+        int lives = 3;
+        long[] spawn = {1000};
+        long[] duration = {5000};
+        double[] rate = {0.9};
+        int perMole = 10;
+        int perLevel = 5;
+        long[] reaction = {450};
+        double sigma = 0.35;
+        double[] miss = {0.05};
+        long tapGap = 120;
+        long maxMinutes = 30;
+        long seed = 1;
+        boolean csv;
+        boolean help;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--help") || arg.equals("-h")) {
+                    o.help = true; // whatever else is there doesn't matter
+                    return o;
+                }
+                if (arg.equals("--csv")) {
+                    o.csv = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) throw new IllegalArgumentException("missing value for " + arg);
+                String value = args[++i];
+                switch (arg) {
+                    case "--games": o.games = Integer.parseInt(value); break;
+                    case "--grid": o.grid = Integer.parseInt(value); break;
+                    case "--lives": o.lives = Integer.parseInt(value); break;
+                    case "--spawn": o.spawn = longs(value); break;
+                    case "--duration": o.duration = longs(value); break;
+                    case "--rate": o.rate = doubles(value); break;
+                    case "--per-mole": o.perMole = Integer.parseInt(value); break;
+                    case "--per-level": o.perLevel = Integer.parseInt(value); break;
+                    case "--reaction": o.reaction = longs(value); break;
+                    case "--sigma": o.sigma = Double.parseDouble(value); break;
+                    case "--miss": o.miss = doubles(value); break;
+                    case "--tap-gap": o.tapGap = Long.parseLong(value); break;
+                    case "--max-minutes": o.maxMinutes = Long.parseLong(value); break;
+                    case "--seed": o.seed = Long.parseLong(value); break;
+                    default: throw new IllegalArgumentException("unknown option " + arg);
+                }
+            }
+            if (o.games <= 0) throw new IllegalArgumentException("--games must be positive");
+            return o;
+        }
+
+        private static long[] longs(String list) {
+            String[] parts = list.split(",");
+            long[] values = new long[parts.length];
+            for (int i = 0; i < parts.length; i++) values[i] = Long.parseLong(parts[i].trim());
+            return values;
+        }
+
+        private static double[] doubles(String list) {
+            String[] parts = list.split(",");
+            double[] values = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) values[i] = Double.parseDouble(parts[i].trim());
+            return values;
+        }
+    }
+
+    /**
+     * One row of the sweep: the rules, the bot, and how the games went.
+     */
+    static final class Row {
+        final GameConfig config;
+        final BotProfile bot;
+        final Distribution survival;
+        final Distribution score;
+        final int capped;
+
+        Row(GameConfig config, BotProfile bot, Distribution survival, Distribution score, int capped) {
+            this.config = config;
+            this.bot = bot;
+            this.survival = survival;
+            this.score = score;
+            this.capped = capped;
+        }
+    }
+
+    private DifficultySweep() {
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        long start = System.nanoTime();
+        PrintStream out = System.out;
+        if (!options.csv) {
+            out.printf(Locale.US, "# %d games per set, %d cores, %d min cap%n",
+                    options.games, Runtime.getRuntime().availableProcessors(), options.maxMinutes);
+            out.println("spawn  dur    rate  react  miss | survival s: mean   p10    p50    p90"
+                    + " | score: mean   p10   p50   p90   max | capped");
+        } else {
+            out.println("spawn_interval,mole_dur,rate,reaction_ms,reaction_sigma,miss_rate,games,"
+                    + "survival_mean_s,survival_p10_s,survival_p50_s,survival_p90_s,"
+                    + "score_mean,score_p10,score_p50,score_p90,score_max,capped");
+        }
+        for (Row row : run(options)) {
+            print(out, row, options.csv);
+        }
+        if (!options.csv) {
+            out.printf(Locale.US, "# took %.1f s%n", (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * Plays every parameter set ( each set's games in parallel ).
+     * @param options The sweep.
+     * @return One row per parameter set, in order.
+     */
+    static List<Row> run(Options options) {
+        long maxMillis = options.maxMinutes * 60_000;
+        int n = options.grid * options.grid;
+        List<Row> rows = new ArrayList<>();
+        for (long spawn : options.spawn) {
+            for (long duration : options.duration) {
+                for (double rate : options.rate) {
+                    GameConfig config = new GameConfig(n, options.lives, duration, spawn, rate,
+                            options.perMole, options.perLevel);
+                    for (long reaction : options.reaction) {
+                        for (double miss : options.miss) {
+                            BotProfile bot = new BotProfile(reaction, options.sigma, miss, options.tapGap);
+                            rows.add(runSet(config, bot, options.games, options.seed, maxMillis));
+                        }
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Plays one parameter set's games in parallel ( the common fork/join pool, so every core ).
+     *
+     * @param config The rules.
+     * @param bot The bot.
+     * @param games How many games to play.
+     * @param seed The first game seed.
+     * @param maxMillis The longest game to play.
+     * @return The set's row.
+     */
+    static Row runSet(GameConfig config, BotProfile bot, int games, long seed, long maxMillis) {
+        Simulation.Result[] results = IntStream.range(0, games).parallel()
+                .mapToObj(i -> Simulation.play(config, bot, new GameRandom(seed + i).nextLong(), maxMillis))
+                .toArray(Simulation.Result[]::new);
+
+        long[] survival = new long[games];
+        long[] score = new long[games];
+        int capped = 0;
+        for (int i = 0; i < games; i++) {
+            survival[i] = results[i].survivalMillis;
+            score[i] = results[i].score;
+            if (results[i].capped) capped++;
+        }
+        return new Row(config, bot, new Distribution(survival), new Distribution(score), capped);
+    }
+
+    private static void print(PrintStream out, Row row, boolean csv) {
+        GameConfig c = row.config;
+        Distribution s = row.survival;
+        Distribution p = row.score;
+        if (csv) {
+            out.printf(Locale.US, "%d,%d,%s,%d,%s,%s,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%d,%d,%d,%d,%d%n",
+                    c.spawnInterval, c.moleDur, c.rate, row.bot.reactionMedian, row.bot.reactionSigma,
+                    row.bot.missRate, s.count, s.mean / 1000, s.p10 / 1000.0, s.p50 / 1000.0, s.p90 / 1000.0,
+                    p.mean, p.p10, p.p50, p.p90, p.max, row.capped);
+        } else {
+            out.printf(Locale.US, "%5d  %5d  %4.2f  %5d  %4.2f | %17.1f %6.1f %6.1f %6.1f | %11.1f %5d %5d %5d %5d | %5.1f%%%n",
+                    c.spawnInterval, c.moleDur, c.rate, row.bot.reactionMedian, row.bot.missRate,
+                    s.mean / 1000, s.p10 / 1000.0, s.p50 / 1000.0, s.p90 / 1000.0,
+                    p.mean, p.p10, p.p50, p.p90, p.max, 100.0 * row.capped / s.count);
+        }
+    }
+}
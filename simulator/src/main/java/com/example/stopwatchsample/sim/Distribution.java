@@ -0,0 +1,40 @@
+package com.example.stopwatchsample.sim;
+
+import java.util.Arrays;
+
+/**
+ * Summary statistics of a batch of values ( exact, the values are sorted ).
+ */
+final class Distribution {
+
+    final int count;
+    final double mean;
+    final long min;
+    final long p10;
+    final long p50;
+    final long p90;
+    final long max;
+
+    /**
+     * Summarizes the values.
+     * @param values The values ( sorted in place ), at least one.
+     */
+    Distribution(long[] values) {
+        Arrays.sort(values);
+        count = values.length;
+        long sum = 0;
+        for (long v : values) sum += v;
+        mean = (double) sum / count;
+        min = values[0];
+        p10 = percentile(values, 10);
+        p50 = percentile(values, 50);
+        p90 = percentile(values, 90);
+        max = values[count - 1];
+    }
+
+    // nearest rank
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(sorted.length * percentile / 100);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.stopwatchsample.sim;
+
+import com.example.stopwatchsample.game.GameConfig;
+import com.example.stopwatchsample.game.GameRandom;
+import com.example.stopwatchsample.game.VirtualScheduler;
+import com.example.stopwatchsample.game.WhackmoleGame;
+
+import java.util.Random;
+
+/**
+ * Plays one game between the real rules and a bot, in virtual time.
+ */
+final class Simulation {
+
+    /**
+     * The outcome of one simulated game.
+     */
+    static final class Result {
+        final long survivalMillis;
+        final int score;
+        final int misses;
+        /** True if the game hit the time cap instead of ending. */
+        final boolean capped;
+
+        Result(long survivalMillis, int score, int misses, boolean capped) {
+            this.survivalMillis = survivalMillis;
+            this.score = score;
+            this.misses = misses;
+            this.capped = capped;
+        }
+    }
+
+    private static final long STEP_MILLIS = 1000;
+
+    private Simulation() {
+    }
+
+    /**
+     * Plays a game until the bot runs out of lives ( or time runs out ).
+     *
+     * @param config The rules.
+     * @param profile The bot.
+     * @param seed Seeds both the game and the bot, so a game can be replayed.
+     * @param maxMillis The longest game to play.
+     * @return The outcome.
+     */
+    static Result play(GameConfig config, BotProfile profile, long seed, long maxMillis) {
+        VirtualScheduler time = new VirtualScheduler();
+        Bot bot = new Bot(profile, new Random(~seed), time, time);
+        WhackmoleGame game = new WhackmoleGame(config, time, time, new GameRandom(seed), bot);
+        bot.play(game);
+
+        game.start();
+        while (game.isRunning() && time.now() < maxMillis) {
+            time.advanceBy(Math.min(STEP_MILLIS, maxMillis - time.now()));
+        }
+        boolean capped = game.isRunning();
+        game.stop();
+        return new Result(game.getElapsedMillis(), game.getScore(), game.getMisses(), capped);
+    }
+}
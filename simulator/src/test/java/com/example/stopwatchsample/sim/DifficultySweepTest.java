@@ -0,0 +1,69 @@
+package com.example.stopwatchsample.sim;
+
+import com.example.stopwatchsample.game.GameConfig;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DifficultySweepTest {
+
+    private static final long CAP = 10 * 60_000;
+
+    @Test
+    public void sameSeedPlaysTheSameGame() {
+        BotProfile bot = new BotProfile(450, 0.35, 0.05, 120);
+        Simulation.Result a = Simulation.play(GameConfig.defaults(), bot, 77, CAP);
+        Simulation.Result b = Simulation.play(GameConfig.defaults(), bot, 77, CAP);
+        assertEquals(a.survivalMillis, b.survivalMillis);
+        assertEquals(a.score, b.score);
+        assertEquals(a.misses, b.misses);
+    }
+
+    @Test
+    public void fasterBotsScoreMore() {
+        GameConfig config = GameConfig.defaults();
+        DifficultySweep.Row fast = DifficultySweep.runSet(config, new BotProfile(300, 0.3, 0.02, 100), 200, 1, CAP);
+        DifficultySweep.Row slow = DifficultySweep.runSet(config, new BotProfile(900, 0.3, 0.2, 100), 200, 1, CAP);
+        // not necessarily longer: scoring is what speeds the game up
+        assertTrue(fast.score.mean > slow.score.mean);
+        assertTrue(fast.score.p50 > slow.score.p50);
+        assertEquals(200, fast.survival.count);
+    }
+
+    @Test
+    public void idleBotLosesEveryLifeQuickly() {
+        // a bot too slow to ever reach a mole in time
+        BotProfile idle = new BotProfile(60_000, 0, 0, 0);
+        Simulation.Result result = Simulation.play(GameConfig.defaults(), idle, 3, CAP);
+        assertFalse(result.capped);
+        assertEquals(0, result.score);
+        assertTrue(result.survivalMillis < 60_000);
+    }
+
+    @Test
+    public void optionsMakeEveryCombination() {
+        DifficultySweep.Options options = DifficultySweep.Options.parse(new String[]{
+                "--games", "4", "--spawn", "800,1000", "--rate", "0.85,0.9,0.95", "--miss", "0.1", "--max-minutes", "2"});
+        List<DifficultySweep.Row> rows = DifficultySweep.run(options);
+        assertEquals(6, rows.size());
+        assertEquals(800, rows.get(0).config.spawnInterval);
+        assertEquals(0.95, rows.get(2).config.rate, 0);
+        assertEquals(1000, rows.get(3).config.spawnInterval);
+        assertEquals(0.1, rows.get(5).bot.missRate, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOptionsAreRejected() {
+        DifficultySweep.Options.parse(new String[]{"--speed", "3"});
+    }
+
+    @Test
+    public void helpIsNotAMissingValue() {
+        assertTrue(DifficultySweep.Options.parse(new String[]{"--help"}).help);
+        assertTrue(DifficultySweep.Options.parse(new String[]{"--games", "5", "-h", "--speed"}).help);
+        assertFalse(DifficultySweep.Options.parse(new String[]{"--csv"}).help);
+    }
+}